@@ -1,26 +1,53 @@
 package library.gui;
 
+import library.dao.SQLiteBookDAO;
+import library.dao.SQLiteStorageEngine;
 import library.model.*;
+import library.service.BookSearchService;
+import library.service.FullTextBookSearchService;
+import UI.TypeAheadPopup;
+import util.PrefixIndex;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class BookManagementPanel extends JPanel {
     
+    private static final int FULL_TEXT_LIMIT = 200;
+    
     private LibraryManagementGUI mainFrame;
     private JTable booksTable;
     private DefaultTableModel tableModel;
     private JTextField searchField;
     private JComboBox<Category> categoryFilter;
+    private JComboBox<String> availabilityFilter, yearFilter, typeFilter;
     
     private JTextField idField, titleField, authorField, isbnField, yearField;
     private JTextField totalCopiesField, availableCopiesField;
     private JComboBox<Category> categoryCombo;
+    private volatile PrefixIndex suggestionIndex;
+    private BookSearchService bookSearch;
+    private BookSearchService.FacetedResult facetCounts;
+    private FullTextBookSearchService fullTextSearch; // Set when the catalog lives in SQLite
+    private boolean updatingFilters = false;
     
     public BookManagementPanel(LibraryManagementGUI mainFrame) {
         this.mainFrame = mainFrame;
+        this.bookSearch = new BookSearchService(mainFrame.getBooks());
+        if (mainFrame.getStorageEngine() instanceof SQLiteStorageEngine) {
+            this.fullTextSearch = new FullTextBookSearchService(
+                    ((SQLiteStorageEngine) mainFrame.getStorageEngine()).books());
+        }
         initializeComponents();
         setupLayout();
         setupEventHandlers();
@@ -37,6 +64,11 @@ public class BookManagementPanel extends JPanel {
         } else {
             columns = new String[]{"ID", "Title", "Author", "ISBN", "Year", "Category", "Available/Total", "Action"};
         }
+        if (fullTextSearch != null) {
+            // Last, so the Action column keeps its index
+            columns = Arrays.copyOf(columns, columns.length + 1);
+            columns[columns.length - 1] = "Match";
+        }
         tableModel = new DefaultTableModel(columns, 0) {
             public boolean isCellEditable(int row, int column) { return false; }
         };
@@ -46,8 +78,20 @@ public class BookManagementPanel extends JPanel {
         booksTable.setRowHeight(25);
         
         searchField = new JTextField(20);
+        TypeAheadPopup.install(searchField, this::suggest);
         categoryFilter = new JComboBox<>();
         categoryFilter.addItem(null);
+        categoryFilter.setRenderer(new ComboBoxRenderer.FacetRenderer("All categories",
+                value -> facetCount(BookSearchService.FACET_CATEGORY, value)));
+        availabilityFilter = new JComboBox<>();
+        availabilityFilter.setRenderer(new ComboBoxRenderer.FacetRenderer("Any",
+                value -> facetCount(BookSearchService.FACET_AVAILABILITY, value)));
+        yearFilter = new JComboBox<>();
+        yearFilter.setRenderer(new ComboBoxRenderer.FacetRenderer("Any year",
+                value -> facetCount(BookSearchService.FACET_YEAR, value)));
+        typeFilter = new JComboBox<>();
+        typeFilter.setRenderer(new ComboBoxRenderer.FacetRenderer("All types",
+                value -> facetCount(BookSearchService.FACET_TYPE, value)));
         
         idField = new JTextField(10);
         titleField = new JTextField(20);
@@ -113,6 +157,12 @@ public class BookManagementPanel extends JPanel {
         
         searchPanel.add(new JLabel("Category:"));
         searchPanel.add(categoryFilter);
+        searchPanel.add(new JLabel("Availability:"));
+        searchPanel.add(availabilityFilter);
+        searchPanel.add(new JLabel("Year:"));
+        searchPanel.add(yearFilter);
+        searchPanel.add(new JLabel("Type:"));
+        searchPanel.add(typeFilter);
         
         JButton clearButton = new JButton("Clear");
         clearButton.addActionListener(e -> clearSearch());
@@ -236,8 +286,11 @@ public class BookManagementPanel extends JPanel {
             });
         }
         
-        // Category filter listener
+        // Facet filter listeners
         categoryFilter.addActionListener(e -> performSearch());
+        availabilityFilter.addActionListener(e -> performSearch());
+        yearFilter.addActionListener(e -> performSearch());
+        typeFilter.addActionListener(e -> performSearch());
         
         // Search field enter key listener
         searchField.addActionListener(e -> performSearch());
@@ -247,97 +300,170 @@ public class BookManagementPanel extends JPanel {
      * Refreshes the data in the table and combo boxes.
      */
     public void refreshData() {
-        refreshTable();
+        bookSearch.invalidate();
         refreshCategoryComboBoxes();
+        refreshFacetFilters();
+        performSearch();
+        rebuildSuggestions();
     }
     
-
-    private void refreshTable() {
-        tableModel.setRowCount(0);
-        
-        for (Book book : mainFrame.getBooks().values()) {
-            if (mainFrame.getUserSession().isAdmin()) {
-                Object[] rowData = {
-                    book.getId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getIsbn(),
-                    book.getPublicationYear(),
-                    book.getCategory() != null ? book.getCategory().getName() : "No Category",
-                    book.getAvailableCopies() + "/" + book.getTotalCopies()
-                };
-                tableModel.addRow(rowData);
-            } else {
-                Object[] rowData = {
-                    book.getId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getIsbn(),
-                    book.getPublicationYear(),
-                    book.getCategory() != null ? book.getCategory().getName() : "No Category",
-                    book.getAvailableCopies() + "/" + book.getTotalCopies(),
-                    book.getAvailableCopies() > 0 ? "Request" : "Unavailable"
-                };
-                tableModel.addRow(rowData);
+    /**
+     * Rebuilds the type-ahead index of titles and authors in the background.
+     * Books with more loans and reservations are suggested first.
+     */
+    private void rebuildSuggestions() {
+        List<Book> books = new ArrayList<>(mainFrame.getBooks().values());
+        List<Loan> loans = new ArrayList<>(mainFrame.getLoans().values());
+        
+        new SwingWorker<PrefixIndex, Void>() {
+            @Override
+            protected PrefixIndex doInBackground() {
+                Map<String, Integer> loanCounts = new HashMap<>();
+                for (Loan loan : loans) {
+                    loanCounts.merge(loan.getBookId(), 1, Integer::sum);
+                }
+                PrefixIndex.Builder builder = PrefixIndex.builder();
+                for (Book book : books) {
+                    int weight = loanCounts.getOrDefault(book.getId(), 0) + book.getReservedByUsers().size();
+                    builder.add(book.getTitle(), weight);
+                    builder.add(book.getAuthor(), weight);
+                }
+                return builder.build();
             }
-        }
+            
+            @Override
+            protected void done() {
+                try {
+                    suggestionIndex = get();
+                } catch (Exception e) {
+                    mainFrame.getLogger().logError("Error building search suggestions", e);
+                }
+            }
+        }.execute();
+    }
+    
+    private List<String> suggest(String prefix) {
+        PrefixIndex index = suggestionIndex;
+        return index != null ? index.suggest(prefix, 8) : null;
     }
     
 
     private void refreshCategoryComboBoxes() {
-        categoryFilter.removeAllItems();
-        categoryFilter.addItem(null); // "All categories" option
-        
-        categoryCombo.removeAllItems();
-        categoryCombo.addItem(null); // "No category" option
-        
-        for (Category category : mainFrame.getCategories().values()) {
-            categoryFilter.addItem(category);
-            categoryCombo.addItem(category);
+        Object selectedCategory = categoryFilter.getSelectedItem();
+        updatingFilters = true;
+        try {
+            categoryFilter.removeAllItems();
+            categoryFilter.addItem(null); // "All categories" option
+            
+            categoryCombo.removeAllItems();
+            categoryCombo.addItem(null); // "No category" option
+            
+            for (Category category : mainFrame.getCategories().values()) {
+                categoryFilter.addItem(category);
+                categoryCombo.addItem(category);
+            }
+            categoryFilter.setSelectedItem(selectedCategory);
+        } finally {
+            updatingFilters = false;
+        }
+    }
+    
+    /**
+     * Fills the availability, year and type filters with the options present
+     * in the facet index, keeping the current selections.
+     */
+    private void refreshFacetFilters() {
+        BookSearchService.FacetedResult all = bookSearch.facetedSearch("", new HashMap<>());
+        updatingFilters = true;
+        try {
+            refillFacetFilter(availabilityFilter, Arrays.asList(BookSearchService.AVAILABLE, BookSearchService.UNAVAILABLE));
+            List<String> years = new ArrayList<>();
+            for (Object year : all.getCounts(BookSearchService.FACET_YEAR).keySet()) {
+                years.add(String.valueOf(year));
+            }
+            Collections.sort(years);
+            refillFacetFilter(yearFilter, years);
+            List<String> types = new ArrayList<>();
+            for (Object type : all.getCounts(BookSearchService.FACET_TYPE).keySet()) {
+                types.add(String.valueOf(type));
+            }
+            refillFacetFilter(typeFilter, types);
+        } finally {
+            updatingFilters = false;
+        }
+    }
+    
+    private void refillFacetFilter(JComboBox<String> filter, List<String> options) {
+        Object selected = filter.getSelectedItem();
+        filter.removeAllItems();
+        filter.addItem(null);
+        for (String option : options) {
+            filter.addItem(option);
+        }
+        filter.setSelectedItem(selected);
+    }
+    
+    private Integer facetCount(String facet, Object value) {
+        BookSearchService.FacetedResult result = facetCounts;
+        if (result == null) {
+            return null;
+        }
+        if (value == null) {
+            return result.getTotal(facet);
+        }
+        return result.getCounts(facet).getOrDefault(value, 0);
+    }
+    
+    private Map<String, Object> facetSelections() {
+        Map<String, Object> selections = new HashMap<>();
+        if (categoryFilter.getSelectedItem() != null) {
+            selections.put(BookSearchService.FACET_CATEGORY, categoryFilter.getSelectedItem());
         }
+        if (availabilityFilter.getSelectedItem() != null) {
+            selections.put(BookSearchService.FACET_AVAILABILITY, availabilityFilter.getSelectedItem());
+        }
+        if (yearFilter.getSelectedItem() != null) {
+            selections.put(BookSearchService.FACET_YEAR, yearFilter.getSelectedItem());
+        }
+        if (typeFilter.getSelectedItem() != null) {
+            selections.put(BookSearchService.FACET_TYPE, typeFilter.getSelectedItem());
+        }
+        return selections;
     }
     
 
     private void performSearch() {
+        if (updatingFilters) {
+            return;
+        }
         String searchText = searchField.getText().toLowerCase().trim();
-        Category selectedCategory = (Category) categoryFilter.getSelectedItem();
+        Map<String, Object> selections = facetSelections();
         
         tableModel.setRowCount(0);
         
-        for (Book book : mainFrame.getBooks().values()) {
-            boolean matchesSearch = searchText.isEmpty() || 
-                    book.getTitle().toLowerCase().contains(searchText) ||
-                    book.getAuthor().toLowerCase().contains(searchText) ||
-                    book.getIsbn().toLowerCase().contains(searchText);
-            
-            boolean matchesCategory = selectedCategory == null || 
-                    (book.getCategory() != null && book.getCategory().equals(selectedCategory));
-            
-            if (matchesSearch && matchesCategory) {
-                if (mainFrame.getUserSession().isAdmin()) {
-                    Object[] rowData = {
-                        book.getId(),
-                        book.getTitle(),
-                        book.getAuthor(),
-                        book.getIsbn(),
-                        book.getPublicationYear(),
-                        book.getCategory() != null ? book.getCategory().getName() : "No Category",
-                        book.getAvailableCopies() + "/" + book.getTotalCopies()
-                    };
-                    tableModel.addRow(rowData);
-                } else {
-                    Object[] rowData = {
-                        book.getId(),
-                        book.getTitle(),
-                        book.getAuthor(),
-                        book.getIsbn(),
-                        book.getPublicationYear(),
-                        book.getCategory() != null ? book.getCategory().getName() : "No Category",
-                        book.getAvailableCopies() + "/" + book.getTotalCopies(),
-                        book.getAvailableCopies() > 0 ? "Request" : "Unavailable"
-                    };
-                    tableModel.addRow(rowData);
-                }
+        BookSearchService.FacetedResult result = bookSearch.facetedSearch(searchText, selections);
+        facetCounts = result;
+        categoryFilter.repaint();
+        availabilityFilter.repaint();
+        yearFilter.repaint();
+        typeFilter.repaint();
+        
+        if (fullTextSearch != null && !searchText.isEmpty()) {
+            addFullTextRows(searchText, selections);
+        } else {
+            for (Book book : result.getBooks()) {
+                addBookRow(book);
+            }
+        }
+        
+        // Nothing matched exactly: fall back to typo-tolerant keyword search
+        if (tableModel.getRowCount() == 0 && !searchText.isEmpty()) {
+            for (Book book : bookSearch.searchByKeyword(searchText, selections)) {
+                addBookRow(book);
+            }
+            if (tableModel.getRowCount() > 0) {
+                mainFrame.updateStatus("No exact matches - showing " + tableModel.getRowCount() + " close matches");
+                return;
             }
         }
         
@@ -345,10 +471,77 @@ public class BookManagementPanel extends JPanel {
     }
     
 
+    /**
+     * Adds the full-text hits for a search, ranked by bm25, with the matched
+     * text shown in the Match column. The facet filters still apply.
+     */
+    private void addFullTextRows(String searchText, Map<String, Object> selections) {
+        Set<String> allowed = null;
+        if (!selections.isEmpty()) {
+            allowed = new HashSet<>();
+            for (Book book : bookSearch.facetedSearch("", selections).getBooks()) {
+                allowed.add(book.getId());
+            }
+        }
+        for (SQLiteBookDAO.Match match : fullTextSearch.searchWithSnippets(searchText, FULL_TEXT_LIMIT)) {
+            // Show the live book, whose copy counts may be newer than the row just read
+            Book book = mainFrame.getBooks().get(match.getBook().getId());
+            if (book != null && (allowed == null || allowed.contains(book.getId()))) {
+                addBookRow(book, snippetHtml(match.getSnippet()));
+            }
+        }
+    }
+    
+    // The snippet is plain text with highlight markers; escape it so only the markers render as HTML
+    private static String snippetHtml(String snippet) {
+        if (snippet == null || snippet.isEmpty()) {
+            return "";
+        }
+        return "<html>" + escapeHtml(snippet)
+                .replace(escapeHtml(SQLiteBookDAO.HIGHLIGHT_START), SQLiteBookDAO.HIGHLIGHT_START)
+                .replace(escapeHtml(SQLiteBookDAO.HIGHLIGHT_END), SQLiteBookDAO.HIGHLIGHT_END) + "</html>";
+    }
+    
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
+    private void addBookRow(Book book) {
+        addBookRow(book, "");
+    }
+    
+    private void addBookRow(Book book, String match) {
+        List<Object> rowData = new ArrayList<>(Arrays.asList(
+            book.getId(),
+            book.getTitle(),
+            book.getAuthor(),
+            book.getIsbn(),
+            book.getPublicationYear(),
+            book.getCategory() != null ? book.getCategory().getName() : "No Category",
+            book.getAvailableCopies() + "/" + book.getTotalCopies()
+        ));
+        if (!mainFrame.getUserSession().isAdmin()) {
+            rowData.add(book.getAvailableCopies() > 0 ? "Request" : "Unavailable");
+        }
+        if (fullTextSearch != null) {
+            rowData.add(match);
+        }
+        tableModel.addRow(rowData.toArray());
+    }
+    
+
     private void clearSearch() {
-        searchField.setText("");
-        categoryFilter.setSelectedItem(null);
-        refreshTable();
+        updatingFilters = true;
+        try {
+            searchField.setText("");
+            categoryFilter.setSelectedItem(null);
+            availabilityFilter.setSelectedItem(null);
+            yearFilter.setSelectedItem(null);
+            typeFilter.setSelectedItem(null);
+        } finally {
+            updatingFilters = false;
+        }
+        performSearch();
         mainFrame.updateStatus("Search cleared - showing all books");
     }
     
@@ -413,8 +606,9 @@ public class BookManagementPanel extends JPanel {
             
             Book book = createBookFromForm();
             mainFrame.getBooks().put(book.getId(), book);
+            bookSearch.reindex(book);
             
-            refreshTable();
+            performSearch();
             clearForm();
             mainFrame.updateStatus("Book added successfully: " + book.getTitle());
             mainFrame.getLogger().logInfo("Book added: " + book.getId());
@@ -452,8 +646,10 @@ public class BookManagementPanel extends JPanel {
             existingBook.setTotalCopies(Integer.parseInt(totalCopiesField.getText().trim()));
             existingBook.setAvailableCopies(Integer.parseInt(availableCopiesField.getText().trim()));
             existingBook.setCategory((Category) categoryCombo.getSelectedItem());
+            mainFrame.persist(existingBook);
+            bookSearch.reindex(existingBook);
             
-            refreshTable();
+            performSearch();
             mainFrame.updateStatus("Book updated successfully: " + existingBook.getTitle());
             mainFrame.getLogger().logInfo("Book updated: " + existingBook.getId());
             
@@ -493,7 +689,8 @@ public class BookManagementPanel extends JPanel {
         
         if (option == JOptionPane.YES_OPTION) {
             mainFrame.getBooks().remove(id);
-            refreshTable();
+            bookSearch.remove(id);
+            performSearch();
             clearForm();
             mainFrame.updateStatus("Book deleted successfully: " + book.getTitle());
             mainFrame.getLogger().logInfo("Book deleted: " + id);
@@ -591,14 +788,7 @@ public class BookManagementPanel extends JPanel {
     
 
     private void generateBookId() {
-        int nextId = mainFrame.getBooks().size() + 1;
-        String generatedId;
-        
-        // Keep generating until we find a unique ID
-        do {
-            generatedId = String.format("B%03d", nextId);
-            nextId++;
-        } while (mainFrame.getBooks().containsKey(generatedId));
+        String generatedId = mainFrame.nextBookId();
         
         idField.setText(generatedId);
         mainFrame.updateStatus("Generated book ID: " + generatedId);
@@ -693,7 +883,7 @@ public class BookManagementPanel extends JPanel {
                 }
                 
                 // Create borrow request
-                String requestId = "R" + String.format("%03d", mainFrame.getBorrowRequests().size() + 1);
+                String requestId = mainFrame.nextRequestId();
                 String currentUser = mainFrame.getUserSession().getCurrentUser();
                 BorrowRequest request = new BorrowRequest(requestId, currentUser, bookId, returnDate);
                 
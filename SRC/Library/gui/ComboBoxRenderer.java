@@ -4,6 +4,7 @@ import library.model.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.function.Function;
 
 /**
  * Custom renderers for combo boxes to display user-friendly text.
@@ -65,4 +66,37 @@ public class ComboBoxRenderer {
             return this;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Renderer for facet filters that shows how many books each option matches.
+     * A null item is the "all" option.
+     */
+    public static class FacetRenderer extends DefaultListCellRenderer {
+        private final String allLabel;
+        private final Function<Object, Integer> counter;
+        
+        public FacetRenderer(String allLabel, Function<Object, Integer> counter) {
+            this.allLabel = allLabel;
+            this.counter = counter;
+        }
+        
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            
+            String label;
+            if (value == null) {
+                label = allLabel;
+            } else if (value instanceof Category) {
+                label = ((Category) value).getName();
+            } else {
+                label = value.toString();
+            }
+            Integer count = counter.apply(value);
+            setText(count != null ? label + " (" + count + ")" : label);
+            
+            return this;
+        }
+    }
+}
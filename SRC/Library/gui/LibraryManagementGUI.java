@@ -1,11 +1,25 @@
 package library.gui;
 
+import library.dao.AppendOnlyStore;
+import library.dao.JournaledMap;
+import library.dao.LibraryStateCodec;
+import library.dao.LoanEventJournal;
+import library.dao.SQLiteStorageEngine;
+import library.dao.StorageEngine;
+import library.dao.StorageEngines;
+import library.exception.DatabaseException;
 import library.util.*;
 import library.model.*;
+import library.service.ManagedRepository;
+import library.service.RepositoryMap;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class LibraryManagementGUI extends JFrame {
@@ -20,6 +34,15 @@ public class LibraryManagementGUI extends JFrame {
     private Map<Integer, Category> categories;
     private Map<String, BorrowRequest> borrowRequests;
     private static Map<String, BorrowRequest> globalBorrowRequests = new HashMap<>();
+    private static final IdGenerator requestIds = new IdGenerator("R", 3);
+    private final IdGenerator bookIds = new IdGenerator("B", 3);
+    private final IdGenerator userIds = new IdGenerator("U", 3);
+    private final IdGenerator loanIds = new IdGenerator("L", 3);
+    private AppendOnlyStore stateStore;
+    private StorageEngine storageEngine;
+    private LoanEventJournal loanJournal;
+    private boolean stateRestored;
+    private Path unreadableStatePath;
     
     private JPanel contentPanel;
     private JLabel statusLabel;
@@ -44,7 +67,18 @@ public class LibraryManagementGUI extends JFrame {
             
             initializeGUI();
             setupEventHandlers();
-            loadSampleData();
+            if (stateRestored) {
+                loadRegisteredUsers();
+                updateStatus("Saved library data restored - Ready to use");
+            } else {
+                loadSampleData();
+            }
+            if (unreadableStatePath != null) {
+                JOptionPane.showMessageDialog(this,
+                        "Saved library data could not be read and was moved to:\n" + unreadableStatePath
+                                + "\n\nThe application started with sample data.",
+                        "Saved Data Unreadable", JOptionPane.WARNING_MESSAGE);
+            }
             setVisible(true); // Make the window visible after successful login
         } catch (Exception e) {
             if (logger != null) {
@@ -64,19 +98,237 @@ public class LibraryManagementGUI extends JFrame {
     }
     
     private void initializeData() {
-        books = new HashMap<>();
-        users = new HashMap<>();
-        loans = new HashMap<>();
-        categories = new HashMap<>();
+        stateStore = openStateStore();
+        loanJournal = openLoanJournal();
+        if (stateStore != null) {
+            createJournaledMaps();
+            stateRestored = restoreState();
+            if (!stateRestored && !stateStore.isEmpty()) {
+                // Never seed sample data over saved data that could not be read
+                stateStore = setAsideStateStore();
+                if (stateStore != null) {
+                    createJournaledMaps();
+                }
+            }
+        }
+        if (stateStore == null) {
+            books = new HashMap<>();
+            users = new HashMap<>();
+            loans = new HashMap<>();
+            categories = new HashMap<>();
+        }
+        if (!StorageEngines.MEMORY.equalsIgnoreCase(configManager.getStorageEngine().trim())) {
+            restoreFromStorageEngine();
+            startLoanHistoryMirror();
+        }
         borrowRequests = globalBorrowRequests; // Use the global persistent map
         userSession = UserSession.getInstance();
+        seedIdGenerators();
+    }
+    
+    // Continue numbering after the highest loaded ID, so an ID deleted before a restart is not handed out again
+    private void seedIdGenerators() {
+        bookIds.seed(books.keySet());
+        userIds.seed(users.keySet());
+        loanIds.seed(loans.keySet());
+        requestIds.seed(borrowRequests.keySet());
+    }
+    
+    private void createJournaledMaps() {
+        books = new JournaledMap<>(stateStore, LibraryStateCodec.BOOKS, LibraryStateCodec::encodeBook);
+        users = new JournaledMap<>(stateStore, LibraryStateCodec.USERS, LibraryStateCodec::encodeUser);
+        loans = new JournaledMap<>(stateStore, LibraryStateCodec.LOANS, LibraryStateCodec::encodeLoan);
+        categories = new JournaledMap<>(stateStore, LibraryStateCodec.CATEGORIES, LibraryStateCodec::encodeCategory);
+        globalBorrowRequests = new JournaledMap<>(stateStore, LibraryStateCodec.BORROW_REQUESTS,
+                LibraryStateCodec::encodeBorrowRequest);
+    }
+    
+    /**
+     * Moves an unreadable state directory aside, untouched, and opens an empty store in its place.
+     *
+     * @return the new store, or null if the old one could not be moved (changes are then not saved)
+     */
+    private AppendOnlyStore setAsideStateStore() {
+        stateStore.close();
+        Path directory = Paths.get(configManager.getProperty("data.directory", "data"), "state");
+        Path aside = directory.resolveSibling("state.unreadable-" + System.currentTimeMillis());
+        try {
+            Files.move(directory, aside);
+            unreadableStatePath = aside;
+            logger.logWarning("Saved state could not be read and was moved to " + aside);
+            return openStateStore();
+        } catch (IOException e) {
+            logger.logError("Failed to move unreadable saved state aside; changes will not be saved", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Opens the snapshot + log store under data.directory/state.
+     * Without it the application still runs, but changes are lost on exit.
+     */
+    private AppendOnlyStore openStateStore() {
+        try {
+            return new AppendOnlyStore(
+                    Paths.get(configManager.getProperty("data.directory", "data"), "state"),
+                    configManager.getIntProperty("persistence.compact.bytes", 4 * 1024 * 1024),
+                    configManager.getBooleanProperty("persistence.sync", true));
+        } catch (DatabaseException e) {
+            logger.logError("Failed to open state store; changes will not be saved", e);
+            return null;
+        }
+    }
+    
+    private LoanEventJournal openLoanJournal() {
+        try {
+            return new LoanEventJournal(
+                    Paths.get(configManager.getProperty("data.directory", "data"), "journal"),
+                    configManager.getIntProperty("journal.segment.records", 65536));
+        } catch (DatabaseException e) {
+            logger.logError("Failed to open loan event journal; loan events will not be recorded", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Loads the saved maps and relinks loans to their books and users.
+     *
+     * @return true if saved data was found
+     */
+    @SuppressWarnings("unchecked")
+    private boolean restoreState() {
+        if (stateStore.isEmpty()) {
+            return false;
+        }
+        try {
+            for (byte[] data : stateStore.getAll(LibraryStateCodec.CATEGORIES).values()) {
+                Category category = LibraryStateCodec.decodeCategory(data);
+                ((JournaledMap<Integer, Category>) categories).restore(category.getId(), category);
+            }
+            for (byte[] data : stateStore.getAll(LibraryStateCodec.BOOKS).values()) {
+                Book book = LibraryStateCodec.decodeBook(data, categories);
+                ((JournaledMap<String, Book>) books).restore(book.getId(), book);
+            }
+            for (byte[] data : stateStore.getAll(LibraryStateCodec.USERS).values()) {
+                User user = LibraryStateCodec.decodeUser(data);
+                ((JournaledMap<String, User>) users).restore(user.getId(), user);
+            }
+            for (byte[] data : stateStore.getAll(LibraryStateCodec.BORROW_REQUESTS).values()) {
+                BorrowRequest request = LibraryStateCodec.decodeBorrowRequest(data);
+                ((JournaledMap<String, BorrowRequest>) globalBorrowRequests).restore(request.getRequestId(), request);
+            }
+            for (byte[] data : stateStore.getAll(LibraryStateCodec.LOANS).values()) {
+                Loan loan = LibraryStateCodec.decodeLoan(data);
+                ((JournaledMap<String, Loan>) loans).restore(loan.getId(), loan);
+                relinkLoan(loan);
+            }
+            logger.logInfo("Restored " + books.size() + " books, " + users.size() + " users and "
+                    + loans.size() + " loans from saved state");
+            return true;
+        } catch (RuntimeException e) {
+            logger.logError("Failed to restore saved state", e);
+            return false;
+        }
+    }
+    
+    /**
+     * Loads books, users, loans and categories from the engine named by
+     * storage.engine and keeps them there; borrow requests stay in the state
+     * store. If the engine cannot be opened or read, the state store data is
+     * used instead and nothing is written to the engine.
+     */
+    private void restoreFromStorageEngine() {
+        StorageEngine engine;
+        try {
+            engine = StorageEngines.fromConfig();
+        } catch (DatabaseException e) {
+            logger.logError("Failed to open storage engine " + configManager.getStorageEngine()
+                    + "; using local saved state", e);
+            return;
+        }
+        try {
+            RepositoryMap<String, Book> engineBooks = new RepositoryMap<>(new ManagedRepository<>(engine.books(), "book"));
+            RepositoryMap<String, User> engineUsers = new RepositoryMap<>(new ManagedRepository<>(engine.users(), "user"));
+            RepositoryMap<String, Loan> engineLoans = new RepositoryMap<>(new ManagedRepository<>(engine.loans(), "loan"));
+            RepositoryMap<Integer, Category> engineCategories =
+                    new RepositoryMap<>(new ManagedRepository<>(engine.categories(), "category"));
+            // Books first: an engine may derive categories while reading them
+            for (Book book : engine.books().findAll()) {
+                engineBooks.restore(book.getId(), book);
+            }
+            for (Category category : engine.categories().findAll()) {
+                engineCategories.restore(category.getId(), category);
+            }
+            for (User user : engine.users().findAll()) {
+                engineUsers.restore(user.getId(), user);
+            }
+            for (Loan loan : engine.loans().findAll()) {
+                engineLoans.restore(loan.getId(), loan);
+            }
+            books = engineBooks;
+            users = engineUsers;
+            loans = engineLoans;
+            categories = engineCategories;
+            for (Loan loan : loans.values()) {
+                relinkLoan(loan);
+            }
+            storageEngine = engine;
+            stateRestored = !books.isEmpty() || !users.isEmpty();
+            logger.logInfo("Loaded " + books.size() + " books, " + users.size() + " users and "
+                    + loans.size() + " loans from storage engine " + engine.getName());
+        } catch (DatabaseException | RuntimeException e) {
+            logger.logError("Failed to load data from storage engine " + engine.getName()
+                    + "; using local saved state", e);
+            engine.close();
+        }
+    }
+    
+    // loan_history references the loans table, so only the SQLite engine gets the journal copied into it
+    private void startLoanHistoryMirror() {
+        if (!(storageEngine instanceof SQLiteStorageEngine) || loanJournal == null) {
+            return;
+        }
+        try {
+            ((SQLiteStorageEngine) storageEngine).startLoanHistoryMirror(loanJournal,
+                    configManager.getIntProperty("journal.mirror.interval.seconds", 5));
+        } catch (DatabaseException e) {
+            logger.logError("Failed to start the loan history mirror; loan_history will not be updated", e);
+        }
+    }
+    
+    private void relinkLoan(Loan loan) {
+        User user = users.get(loan.getUserId());
+        if (user != null) {
+            user.addLoan(loan);
+        }
+        Book book = books.get(loan.getBookId());
+        // The saved available count already excludes this loan, so give the copy back before borrowing it
+        if (book != null && loan.getStatus().isActive() && book.getAvailableCopies() < book.getTotalCopies()) {
+            book.setAvailableCopies(book.getAvailableCopies() + 1);
+            book.borrowCopy(loan);
+        }
+    }
+    
+    private void closeStorage() {
+        if (storageEngine != null) {
+            storageEngine.close();
+            storageEngine = null;
+        }
+        if (stateStore != null) {
+            stateStore.close();
+            stateStore = null;
+        }
+        if (loanJournal != null) {
+            loanJournal.close();
+            loanJournal = null;
+        }
     }
     
     private boolean showLoginDialog() {
         LoginDialog dialog = new LoginDialog(null);
         
         dialog.setUserRegistrationCallback(user -> {
-            String userId = "U" + String.format("%03d", users.size() + 1);
+            String userId = nextUserId();
             User newUser = new User(userId, user.name, user.email, user.phone);
             users.put(userId, newUser);
             logger.logInfo("Registered user added to system: " + user.username);
@@ -437,6 +689,7 @@ public class LibraryManagementGUI extends JFrame {
         if (option == JOptionPane.YES_OPTION) {
             logger.logUserActivity(userSession.getCurrentUser(), "Logged out");
             userSession.logout();
+            closeStorage();
             dispose();
             
             // Restart the application with login
@@ -552,6 +805,7 @@ public class LibraryManagementGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
         
         if (option == JOptionPane.YES_OPTION) {
+            closeStorage();
             logger.logSystemShutdown();
             System.exit(0);
         }
@@ -626,6 +880,9 @@ public class LibraryManagementGUI extends JFrame {
             book3.borrowCopy(loan1);
             user1.addLoan(loan1);
             loans.put(loan1.getId(), loan1);
+            persist(book3);
+            recordLoanEvent(LoanEvent.Type.ISSUED, loan1);
+            seedIdGenerators();
             
             logger.logInfo("Sample data loaded successfully");
             updateStatus("Sample data loaded - Ready to use");
@@ -644,7 +901,7 @@ public class LibraryManagementGUI extends JFrame {
                 .anyMatch(user -> user.getEmail().equals(userCred.email));
             
             if (!userExists) {
-                String userId = "U" + String.format("%03d", users.size() + 1);
+                String userId = nextUserId();
                 User newUser = new User(userId, userCred.name, userCred.email, userCred.phone);
                 users.put(userId, newUser);
                 logger.logInfo("Loaded registered user: " + userCred.username);
@@ -658,9 +915,48 @@ public class LibraryManagementGUI extends JFrame {
     public Map<String, Loan> getLoans() { return loans; }
     public Map<Integer, Category> getCategories() { return categories; }
     public Map<String, BorrowRequest> getBorrowRequests() { return borrowRequests; }
+    
+    // New IDs come from atomic counters, so deletions and concurrent approvals cannot reuse one
+    public String nextBookId() { return bookIds.next(books::containsKey); }
+    public String nextUserId() { return userIds.next(users::containsKey); }
+    public String nextLoanId() { return loanIds.next(loans::containsKey); }
+    public String nextRequestId() { return requestIds.next(borrowRequests::containsKey); }
 
     public Logger getLogger() { return logger; }
     public UserSession getUserSession() { return userSession; }
+    public StorageEngine getStorageEngine() { return storageEngine; }
+    
+    // Record entities changed in place so the change survives a restart
+    public void persist(Book book) { persist(books, book.getId()); }
+    public void persist(User user) { persist(users, user.getId()); }
+    public void persist(Loan loan) { persist(loans, loan.getId()); }
+    public void persist(BorrowRequest request) { persist(borrowRequests, request.getRequestId()); }
+    
+    /**
+     * Appends a loan lifecycle event to the loan event journal.
+     *
+     * @param type what happened
+     * @param loan the loan it happened to
+     */
+    public void recordLoanEvent(LoanEvent.Type type, Loan loan) {
+        if (loanJournal == null) {
+            return;
+        }
+        try {
+            loanJournal.append(LoanEvent.of(type, loan));
+        } catch (DatabaseException e) {
+            logger.logError("Failed to record loan event " + type + " for " + loan.getId(), e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <K, V> void persist(Map<K, V> map, K key) {
+        if (map instanceof JournaledMap) {
+            ((JournaledMap<K, V>) map).update(key);
+        } else if (map instanceof RepositoryMap) {
+            ((RepositoryMap<K, V>) map).update(key);
+        }
+    }
     
 
     public static void main(String[] args) {
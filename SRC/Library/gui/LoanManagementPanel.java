@@ -375,6 +375,8 @@ public class LoanManagementPanel extends JPanel {
             if (selectedBook.borrowCopy(loan)) {
                 selectedUser.addLoan(loan);
                 mainFrame.getLoans().put(loan.getId(), loan);
+                mainFrame.persist(selectedBook);
+                mainFrame.recordLoanEvent(LoanEvent.Type.ISSUED, loan);
                 
                 refreshData();
                 clearLoanForm();
@@ -417,8 +419,11 @@ public class LoanManagementPanel extends JPanel {
             Book book = mainFrame.getBooks().get(loan.getBookId());
             User user = mainFrame.getUsers().get(loan.getUserId());
             
+            mainFrame.persist(loan);
+            mainFrame.recordLoanEvent(LoanEvent.Type.RETURNED, loan);
             if (book != null) {
                 book.returnCopy(loanId);
+                mainFrame.persist(book);
             }
             if (user != null) {
                 user.returnBook(loan.getBookId());
@@ -460,6 +465,8 @@ public class LoanManagementPanel extends JPanel {
             try {
                 int days = Integer.parseInt(daysStr.trim());
                 if (days > 0 && loan.extendDueDate(days)) {
+                    mainFrame.persist(loan);
+                    mainFrame.recordLoanEvent(LoanEvent.Type.EXTENDED, loan);
                     refreshData();
                     loadLoanDetails(selectedRow);
                     mainFrame.updateStatus("Loan extended by " + days + " days");
@@ -500,6 +507,8 @@ public class LoanManagementPanel extends JPanel {
                 try {
                     double fine = Double.parseDouble(fineStr.trim());
                     loan.markAsLost(fine);
+                    mainFrame.persist(loan);
+                    mainFrame.recordLoanEvent(LoanEvent.Type.LOST, loan);
                     
                     refreshData();
                     loadLoanDetails(selectedRow);
@@ -525,6 +534,10 @@ public class LoanManagementPanel extends JPanel {
         
         if (loan != null) {
             double fine = loan.calculateFine();
+            mainFrame.persist(loan);
+            if (fine > 0) {
+                mainFrame.recordLoanEvent(LoanEvent.Type.FINE_ASSESSED, loan);
+            }
             refreshData();
             loadLoanDetails(selectedRow);
             
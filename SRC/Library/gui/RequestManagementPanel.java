@@ -115,24 +115,30 @@ public class RequestManagementPanel extends JPanel {
         }
         
         Book book = mainFrame.getBooks().get(request.getBookId());
-        if (book == null || book.getAvailableCopies() <= 0) {
+        if (book == null) {
             JOptionPane.showMessageDialog(this, "Book is not available!", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
         
         // Create loan
-        String loanId = "L" + String.format("%03d", mainFrame.getLoans().size() + 1);
+        String loanId = mainFrame.nextLoanId();
         LocalDateTime dueDate = request.getReturnDate().atTime(23, 59);
         Loan loan = new Loan(loanId, getUserIdByUsername(request.getUsername()), request.getBookId(), dueDate);
         
-        // Update book availability
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        // Take the copy atomically; a concurrent approval may have taken the last one
+        if (!book.borrowCopy(loan)) {
+            JOptionPane.showMessageDialog(this, "Book is not available!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        mainFrame.persist(book);
         
         // Add loan to system
         mainFrame.getLoans().put(loanId, loan);
+        mainFrame.recordLoanEvent(LoanEvent.Type.APPROVED, loan);
         
         // Update request status
         request.setStatus(BorrowRequest.RequestStatus.APPROVED);
+        mainFrame.persist(request);
         
         // Log the approval
         mainFrame.getLogger().logInfo("Request approved: " + requestId + " for user: " + request.getUsername() + ", Loan created: " + loanId);
@@ -185,6 +191,7 @@ public class RequestManagementPanel extends JPanel {
         String reason = JOptionPane.showInputDialog(this, "Enter reason for denial (optional):", "Deny Request", JOptionPane.QUESTION_MESSAGE);
         
         request.setStatus(BorrowRequest.RequestStatus.DENIED);
+        mainFrame.persist(request);
         
         // Log the denial
         String logMessage = "Request denied: " + requestId + " for user: " + request.getUsername();
@@ -285,6 +285,7 @@ public class UserManagementPanel extends JPanel {
             user.setEmail(emailField.getText().trim());
             user.setPhone(phoneField.getText().trim());
             user.setActive(activeCheckBox.isSelected());
+            mainFrame.persist(user);
             
             refreshTable();
             mainFrame.updateStatus("User updated successfully: " + user.getName());
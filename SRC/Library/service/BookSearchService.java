@@ -0,0 +1,313 @@
+package library.service;
+
+import library.model.Book;
+import library.util.BitmapIndex;
+import library.util.FuzzyIndex;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Search service over the in-memory book catalog.
+ * Field searches are plain substring filters; keyword search tolerates typos
+ * through a trigram index, and faceted search filters with bitset indexes.
+ * Both indexes are built on first use and kept current by
+ * {@link #reindex(Book)} and {@link #remove(String)}.
+ */
+public class BookSearchService implements Searchable<Book> {
+
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_AVAILABILITY = "availability";
+    public static final String FACET_YEAR = "year";
+    public static final String FACET_TYPE = "type";
+    public static final String AVAILABLE = "Available";
+    public static final String UNAVAILABLE = "Unavailable";
+    public static final String[] FACETS = {FACET_CATEGORY, FACET_AVAILABILITY, FACET_YEAR, FACET_TYPE};
+
+    private static final int MAX_KEYWORD_RESULTS = 100;
+
+    private final Map<String, Book> books;
+    private final FuzzyIndex keywordIndex = new FuzzyIndex();
+    private final BitmapIndex facetIndex = new BitmapIndex();
+    private final List<String> textByOrdinal = new ArrayList<>(); // lowercased title/author/ISBN
+    private volatile boolean indexStale = true;
+
+    /**
+     * Creates a search service over a live catalog map.
+     *
+     * @param books the catalog, keyed by book ID
+     */
+    public BookSearchService(Map<String, Book> books) {
+        this.books = books;
+    }
+
+    @Override
+    public List<Book> searchByTitle(String title) {
+        return filter(book -> contains(book.getTitle(), title));
+    }
+
+    @Override
+    public List<Book> searchByAuthor(String author) {
+        return filter(book -> contains(book.getAuthor(), author));
+    }
+
+    @Override
+    public List<Book> searchByCategory(String category) {
+        return filter(book -> book.getCategory() != null && contains(book.getCategory().getName(), category));
+    }
+
+    @Override
+    public List<Book> searchByIsbn(String isbn) {
+        return filter(book -> contains(book.getIsbn(), isbn));
+    }
+
+    /**
+     * Searches titles and authors, tolerating misspellings.
+     * Books matching more query words rank first, then closer spellings.
+     *
+     * @param searchTerm the keywords, possibly misspelled
+     * @return matching books, best first
+     */
+    @Override
+    public List<Book> searchByKeyword(String searchTerm) {
+        List<Book> results = new ArrayList<>();
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return results;
+        }
+        if (indexStale) {
+            rebuildIndex();
+        }
+        for (String id : keywordIndex.search(searchTerm, MAX_KEYWORD_RESULTS)) {
+            Book book = books.get(id);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Keyword search restricted to books matching the facet selections.
+     *
+     * @param searchTerm the keywords, possibly misspelled
+     * @param selections selected value per facet name
+     * @return matching books, best first
+     */
+    public List<Book> searchByKeyword(String searchTerm, Map<String, Object> selections) {
+        List<Book> results = searchByKeyword(searchTerm);
+        if (selections.isEmpty()) {
+            return results;
+        }
+        BitSet allowed = facetIndex.all();
+        for (Map.Entry<String, Object> entry : selections.entrySet()) {
+            allowed.and(facetIndex.anyOf(entry.getKey(), entry.getValue()));
+        }
+        results.removeIf(book -> {
+            int ordinal = facetIndex.ordinalOf(book.getId());
+            return ordinal < 0 || !allowed.get(ordinal);
+        });
+        return results;
+    }
+
+    /**
+     * Filters the catalog by text and facet selections using only the indexes.
+     * The result carries, for every facet, the counts each option would give
+     * with the text and the other facets' selections applied.
+     *
+     * @param searchText substring to match in title, author or ISBN (empty for all)
+     * @param selections selected value per facet name; facets not present are unfiltered
+     * @return matching books and live facet counts
+     */
+    public FacetedResult facetedSearch(String searchText, Map<String, Object> selections) {
+        if (indexStale) {
+            rebuildIndex();
+        }
+
+        BitSet base = matchText(searchText == null ? "" : searchText.toLowerCase().trim());
+        Map<String, BitSet> selected = new HashMap<>();
+        for (Map.Entry<String, Object> entry : selections.entrySet()) {
+            selected.put(entry.getKey(), facetIndex.anyOf(entry.getKey(), entry.getValue()));
+        }
+
+        Map<String, Map<Object, Integer>> counts = new HashMap<>();
+        Map<String, Integer> totals = new HashMap<>();
+        for (String facet : FACETS) {
+            BitSet others = (BitSet) base.clone();
+            for (Map.Entry<String, BitSet> entry : selected.entrySet()) {
+                if (!entry.getKey().equals(facet)) {
+                    others.and(entry.getValue());
+                }
+            }
+            counts.put(facet, facetIndex.counts(facet, others));
+            totals.put(facet, others.cardinality());
+        }
+
+        BitSet matches = base;
+        for (BitSet bits : selected.values()) {
+            matches.and(bits);
+        }
+        List<Book> results = new ArrayList<>();
+        for (String id : facetIndex.docIds(matches)) {
+            Book book = books.get(id);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return new FacetedResult(results, counts, totals);
+    }
+
+    /**
+     * Maps a publication year to its facet bucket.
+     *
+     * @param year the publication year
+     * @return the bucket label
+     */
+    public static String yearBucket(int year) {
+        if (year <= 0) return "Unknown";
+        if (year < 1900) return "Before 1900";
+        if (year < 1950) return "1900-1949";
+        if (year < 2000) return "1950-1999";
+        return (year / 10 * 10) + "s";
+    }
+
+    @Override
+    public int getTotalCount() {
+        return books.size();
+    }
+
+    /**
+     * Updates the search indexes after a book is added or edited.
+     *
+     * @param book the saved book
+     */
+    public void reindex(Book book) {
+        if (!indexStale && book != null) {
+            indexBook(book);
+        }
+    }
+
+    /**
+     * Drops a deleted book from the search indexes.
+     *
+     * @param bookId the deleted book's ID
+     */
+    public synchronized void remove(String bookId) {
+        int ordinal = facetIndex.ordinalOf(bookId);
+        if (ordinal >= 0) {
+            textByOrdinal.set(ordinal, null);
+        }
+        facetIndex.remove(bookId);
+        keywordIndex.remove(bookId);
+    }
+
+    /**
+     * Marks the indexes for a full rebuild on the next search,
+     * for when the catalog was changed outside this service.
+     */
+    public void invalidate() {
+        indexStale = true;
+    }
+
+    private synchronized void rebuildIndex() {
+        if (!indexStale) {
+            return;
+        }
+        keywordIndex.clear();
+        facetIndex.clear();
+        textByOrdinal.clear();
+        for (Book book : new ArrayList<>(books.values())) {
+            indexBook(book);
+        }
+        indexStale = false;
+    }
+
+    private synchronized void indexBook(Book book) {
+        String id = book.getId();
+        keywordIndex.index(id, book.getTitle(), book.getAuthor());
+        facetIndex.put(id, FACET_CATEGORY, book.getCategory());
+        facetIndex.put(id, FACET_AVAILABILITY, book.getAvailableCopies() > 0 ? AVAILABLE : UNAVAILABLE);
+        facetIndex.put(id, FACET_YEAR, yearBucket(book.getPublicationYear()));
+        facetIndex.put(id, FACET_TYPE, book.getPublicationType());
+
+        int ordinal = facetIndex.ordinalOf(id);
+        while (textByOrdinal.size() <= ordinal) {
+            textByOrdinal.add(null);
+        }
+        // Separator keeps a search from matching across the end of one field and the start of the next
+        textByOrdinal.set(ordinal, (book.getTitle() + "\u0001" + book.getAuthor() + "\u0001" + book.getIsbn()).toLowerCase());
+    }
+
+    private synchronized BitSet matchText(String searchText) {
+        BitSet bits = facetIndex.all();
+        if (searchText.isEmpty()) {
+            return bits;
+        }
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            String text = i < textByOrdinal.size() ? textByOrdinal.get(i) : null;
+            if (text == null || !text.contains(searchText)) {
+                bits.clear(i);
+            }
+        }
+        return bits;
+    }
+
+    private List<Book> filter(Predicate<Book> predicate) {
+        List<Book> results = new ArrayList<>();
+        for (Book book : books.values()) {
+            if (predicate.test(book)) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    private static boolean contains(String value, String searchText) {
+        return value != null && searchText != null
+                && value.toLowerCase().contains(searchText.toLowerCase().trim());
+    }
+
+    /**
+     * Books matching a faceted search, with live counts per facet option.
+     */
+    public static class FacetedResult {
+        private final List<Book> books;
+        private final Map<String, Map<Object, Integer>> counts;
+        private final Map<String, Integer> totals;
+
+        FacetedResult(List<Book> books, Map<String, Map<Object, Integer>> counts, Map<String, Integer> totals) {
+            this.books = books;
+            this.counts = counts;
+            this.totals = totals;
+        }
+
+        public List<Book> getBooks() {
+            return books;
+        }
+
+        /**
+         * Gets how many books each option of a facet would show.
+         *
+         * @param facet the facet name
+         * @return count per facet value
+         */
+        public Map<Object, Integer> getCounts(String facet) {
+            Map<Object, Integer> facetCounts = counts.get(facet);
+            return facetCounts != null ? facetCounts : Collections.emptyMap();
+        }
+
+        /**
+         * Gets how many books the facet would show with no option selected.
+         *
+         * @param facet the facet name
+         * @return the unfiltered count for that facet
+         */
+        public int getTotal(String facet) {
+            Integer total = totals.get(facet);
+            return total != null ? total : 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package library.service;
+
+import library.dao.SQLiteBookDAO;
+import library.exception.DatabaseException;
+import library.model.Book;
+import library.util.Logger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Search service over the SQLite catalog, backed by the books_fts
+ * full-text table. Words match as prefixes anywhere in a field, and
+ * results are ranked by bm25 with title hits above author, category and
+ * ISBN hits. Failed queries are logged and return no results.
+ */
+public class FullTextBookSearchService implements Searchable<Book> {
+
+    private static final int MAX_RESULTS = 100;
+
+    private final SQLiteBookDAO bookDAO;
+    private final Logger logger = Logger.getInstance();
+
+    /**
+     * Creates a search service over the SQLite book table.
+     *
+     * @param bookDAO the SQLite book DAO
+     */
+    public FullTextBookSearchService(SQLiteBookDAO bookDAO) {
+        this.bookDAO = bookDAO;
+    }
+
+    @Override
+    public List<Book> searchByTitle(String title) {
+        return books(SQLiteBookDAO.toMatchQuery("title", title), MAX_RESULTS, 0);
+    }
+
+    @Override
+    public List<Book> searchByAuthor(String author) {
+        return books(SQLiteBookDAO.toMatchQuery("author", author), MAX_RESULTS, 0);
+    }
+
+    @Override
+    public List<Book> searchByCategory(String category) {
+        return books(SQLiteBookDAO.toMatchQuery("category", category), MAX_RESULTS, 0);
+    }
+
+    @Override
+    public List<Book> searchByIsbn(String isbn) {
+        return books(SQLiteBookDAO.toMatchQuery("isbn", isbn), MAX_RESULTS, 0);
+    }
+
+    @Override
+    public List<Book> searchByCriteria(String title, String author, String category) {
+        StringBuilder query = new StringBuilder();
+        for (String part : new String[] {
+                SQLiteBookDAO.toMatchQuery("title", title),
+                SQLiteBookDAO.toMatchQuery("author", author),
+                SQLiteBookDAO.toMatchQuery("category", category)}) {
+            if (part != null) {
+                query.append(query.length() > 0 ? " AND " : "").append(part);
+            }
+        }
+        return books(query.length() > 0 ? query.toString() : null, MAX_RESULTS, 0);
+    }
+
+    /**
+     * Searches every indexed field, best matches first.
+     *
+     * @param searchTerm the keywords
+     * @return matching books, best first
+     */
+    @Override
+    public List<Book> searchByKeyword(String searchTerm) {
+        return books(SQLiteBookDAO.toMatchQuery(null, searchTerm), MAX_RESULTS, 0);
+    }
+
+    @Override
+    public int getTotalCount() {
+        try {
+            return bookDAO.count();
+        } catch (DatabaseException e) {
+            logger.logError("Failed to count books", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Gets one page of keyword results.
+     *
+     * @param searchTerm the keywords
+     * @param page zero-based page number
+     * @param pageSize books per page
+     * @return the books on that page, best first
+     */
+    @Override
+    public List<Book> searchWithPagination(String searchTerm, int page, int pageSize) {
+        int size = Math.max(1, pageSize);
+        return books(SQLiteBookDAO.toMatchQuery(null, searchTerm), size, Math.max(0, page) * size);
+    }
+
+    /**
+     * Counts keyword matches, for showing the number of pages.
+     *
+     * @param searchTerm the keywords
+     * @return number of matching books
+     */
+    public int countMatches(String searchTerm) {
+        String query = SQLiteBookDAO.toMatchQuery(null, searchTerm);
+        if (query == null) {
+            return 0;
+        }
+        try {
+            return bookDAO.countMatches(query);
+        } catch (DatabaseException e) {
+            logger.logError("Full-text count failed for: " + searchTerm, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Keyword search that also returns a snippet of the matched text with
+     * the query words highlighted.
+     *
+     * @param searchTerm the keywords
+     * @param limit maximum hits
+     * @return hits, best first
+     */
+    public List<SQLiteBookDAO.Match> searchWithSnippets(String searchTerm, int limit) {
+        return matches(SQLiteBookDAO.toMatchQuery(null, searchTerm), limit, 0);
+    }
+
+    private List<Book> books(String query, int limit, int offset) {
+        List<SQLiteBookDAO.Match> matches = matches(query, limit, offset);
+        List<Book> results = new ArrayList<>(matches.size());
+        for (SQLiteBookDAO.Match match : matches) {
+            results.add(match.getBook());
+        }
+        return results;
+    }
+
+    private List<SQLiteBookDAO.Match> matches(String query, int limit, int offset) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return bookDAO.search(query, limit, offset);
+        } catch (DatabaseException e) {
+            logger.logError("Full-text search failed for: " + query, e);
+            return Collections.emptyList();
+        }
+    }
+}
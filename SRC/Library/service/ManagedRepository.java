@@ -0,0 +1,126 @@
+package library.service;
+
+import library.dao.BaseDAO;
+import library.exception.DatabaseException;
+import library.util.Logger;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Manageable view over a storage engine DAO, so services work the same on
+ * any engine. Storage failures are logged and reported as false, null or
+ * an empty list.
+ */
+public class ManagedRepository<T> implements Manageable<T> {
+
+    private final BaseDAO<T> dao;
+    private final String entityName;
+    private final Logger logger = Logger.getInstance();
+
+    /**
+     * Creates a repository over a DAO.
+     *
+     * @param dao the DAO from a storage engine
+     * @param entityName name used in log messages, e.g. book
+     */
+    public ManagedRepository(BaseDAO<T> dao, String entityName) {
+        this.dao = dao;
+        this.entityName = entityName;
+    }
+
+    @Override
+    public boolean add(T item) {
+        if (!validate(item)) {
+            return false;
+        }
+        try {
+            return dao.save(item);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to add " + entityName, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean update(T item) {
+        if (!validate(item)) {
+            return false;
+        }
+        try {
+            return dao.update(item);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to update " + entityName, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        try {
+            return dao.delete(id);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to delete " + entityName + " " + id, e);
+            return false;
+        }
+    }
+
+    @Override
+    public T findById(String id) {
+        try {
+            return dao.findById(id);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to find " + entityName + " " + id, e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<T> findAll() {
+        try {
+            return dao.findAll();
+        } catch (DatabaseException e) {
+            logger.logError("Failed to list " + entityName + "s", e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        try {
+            return dao.exists(id);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to check " + entityName + " " + id, e);
+            return false;
+        }
+    }
+
+    @Override
+    public int count() {
+        try {
+            return dao.count();
+        } catch (DatabaseException e) {
+            logger.logError("Failed to count " + entityName + "s", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int addAll(List<T> items) {
+        try {
+            return dao.saveAll(items);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to add " + entityName + "s", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) {
+        try {
+            return dao.deleteAll(ids);
+        } catch (DatabaseException e) {
+            logger.logError("Failed to delete " + entityName + "s", e);
+            return 0;
+        }
+    }
+}
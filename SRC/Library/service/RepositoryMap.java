@@ -0,0 +1,86 @@
+package library.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HashMap that writes put and remove through to a {@link Manageable}, so the
+ * GUI can keep working on maps while the data lives in a storage engine.
+ * A put adds the value when the key is new and updates it otherwise.
+ * Entities changed in place must be written back with {@link #update(Object)}.
+ * Changes made through views (keySet, values, entrySet) or the compute/merge
+ * methods are not written. A failed write is logged by the repository and
+ * the in-memory change is kept.
+ */
+public class RepositoryMap<K, V> extends HashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Manageable<V> repository;
+
+    /**
+     * Creates an empty map writing to a repository.
+     *
+     * @param repository the repository holding the values
+     */
+    public RepositoryMap(Manageable<V> repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Adds an entry that was read from the repository, without writing it back.
+     *
+     * @param key the key
+     * @param value the loaded value
+     */
+    public void restore(K key, V value) {
+        super.put(key, value);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        boolean present = containsKey(key);
+        V previous = super.put(key, value);
+        if (present) {
+            repository.update(value);
+        } else {
+            repository.add(value);
+        }
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        boolean present = containsKey(key);
+        V previous = super.remove(key);
+        if (present) {
+            repository.delete(String.valueOf(key));
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (Object key : keySet().toArray()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Writes the current state of an entry after it was changed in place.
+     *
+     * @param key the key of the changed entry
+     */
+    public void update(K key) {
+        V value = get(key);
+        if (value != null) {
+            repository.update(value);
+        }
+    }
+}
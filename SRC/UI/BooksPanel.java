@@ -2,10 +2,16 @@ package UI;
 
 import java.awt.*;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import model.Book;
 import service.BookService;
+import service.CatalogImporter;
+import service.IssueService;
+import util.PrefixIndex;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 public class BooksPanel extends JPanel {
     
@@ -19,6 +25,7 @@ public class BooksPanel extends JPanel {
     private JButton deleteButton;
     private JButton refreshButton;
     private String userRole;
+    private volatile PrefixIndex suggestionIndex; // Titles and authors, ranked by times issued
 
     // Default constructor (sets role as "admin")
     public BooksPanel() {
@@ -75,6 +82,8 @@ public class BooksPanel extends JPanel {
 
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 12));
+        searchField.addActionListener(e -> searchBooks());
+        TypeAheadPopup.install(searchField, this::suggest);
 
         JButton searchButton = new JButton("Search");
         searchButton.setFont(new Font("Arial", Font.BOLD, 12));
@@ -130,9 +139,68 @@ public class BooksPanel extends JPanel {
         panel.add(editButton);
         panel.add(deleteButton);
 
+        // Bulk import from a CSV or NDJSON file
+        JButton importButton = new JButton("Import...");
+        importButton.setFont(new Font("Arial", Font.BOLD, 12));
+        importButton.setBackground(new Color(23, 162, 184)); // Teal
+        importButton.setForeground(Color.WHITE);
+        importButton.addActionListener(e -> importBooks());
+        panel.add(importButton);
+
         return panel;
     }
 
+    // Import books from a CSV or NDJSON file in the background, with a progress monitor
+    private void importBooks() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or NDJSON (title, author, isbn)", "csv", "ndjson", "jsonl"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path input = chooser.getSelectedFile().toPath();
+        Path errorReport = input.resolveSibling(input.getFileName() + ".errors.csv");
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + input.getFileName(), "", 0, 1000);
+        CatalogImporter importer = new CatalogImporter();
+        importer.setProgressListener((report, bytesRead, totalBytes) -> SwingUtilities.invokeLater(() -> {
+            if (monitor.isCanceled()) {
+                importer.cancel();
+                return;
+            }
+            monitor.setProgress(totalBytes > 0 ? (int) (bytesRead * 1000 / totalBytes) : 1000);
+            monitor.setNote(report.getRowsWritten() + " added, " + report.getRowsRejected() + " rejected");
+        }));
+
+        new SwingWorker<CatalogImporter.ImportReport, Void>() {
+            @Override
+            protected CatalogImporter.ImportReport doInBackground() throws Exception {
+                return importer.importBooks(input, errorReport);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    CatalogImporter.ImportReport report = get();
+                    String message = "Imported " + report.getRowsWritten() + " of " + report.getRowsRead() + " books"
+                        + String.format(" in %.1fs (%.0f rows/s).", report.getElapsedSeconds(), report.getRowsPerSecond());
+                    if (report.isCancelled()) {
+                        message = "Import cancelled after adding " + report.getRowsWritten() + " books.";
+                    }
+                    if (report.getRowsRejected() > 0) {
+                        message += "\n" + report.getRowsRejected() + " rows were rejected; see " + errorReport;
+                    }
+                    JOptionPane.showMessageDialog(BooksPanel.this, message, "Import", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(BooksPanel.this,
+                        "Error importing books: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+                loadBooks();
+            }
+        }.execute();
+    }
+
     // Create the JTable that shows books
     private void createBooksTable() {
         String[] columnNames = {"ID", "Title", "Author", "ISBN", "Genre", "Status", "Quantity"};
@@ -159,17 +227,19 @@ public class BooksPanel extends JPanel {
         booksTable.getColumnModel().getColumn(6).setPreferredWidth(80);   // Quantity
     }
 
-    // Load all books from the database and display them in the table
+    // Load all books from the database off the EDT and display them in the table
     private void loadBooks() {
-        try {
-            List<Book> books = bookService.getAllBooks();
+        bookService.getAllBooksAsync().whenComplete((books, error) -> SwingUtilities.invokeLater(() -> {
+            if (books == null) {
+                JOptionPane.showMessageDialog(this, 
+                    "Error loading books" + (error != null ? ": " + error.getMessage() : ""), 
+                    "Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             updateTableData(books);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading books: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+            rebuildSuggestions(books);
+        }));
     }
 
     // Update the JTable with a list of books
@@ -189,6 +259,40 @@ public class BooksPanel extends JPanel {
         }
     }
 
+    // Build the type-ahead index off the EDT; popular books are suggested first
+    private void rebuildSuggestions(List<Book> books) {
+        if (books == null) {
+            return;
+        }
+        new SwingWorker<PrefixIndex, Void>() {
+            @Override
+            protected PrefixIndex doInBackground() {
+                Map<Integer, Integer> timesIssued = new IssueService().getIssueCountsByBook();
+                PrefixIndex.Builder builder = PrefixIndex.builder();
+                for (Book book : books) {
+                    int weight = timesIssued.getOrDefault(book.getId(), 0);
+                    builder.add(book.getTitle(), weight);
+                    builder.add(book.getAuthor(), weight);
+                }
+                return builder.build();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    suggestionIndex = get();
+                } catch (Exception e) {
+                    // Keep the previous suggestions; searching still works without them
+                }
+            }
+        }.execute();
+    }
+
+    private List<String> suggest(String prefix) {
+        PrefixIndex index = suggestionIndex;
+        return index != null ? index.suggest(prefix, 8) : null;
+    }
+
     // Search books by title, author, or ISBN
     private void searchBooks() {
         String searchTerm = searchField.getText().trim();
@@ -197,20 +301,16 @@ public class BooksPanel extends JPanel {
             return;
         }
 
-        try {
-            List<Book> allBooks = bookService.getAllBooks();
-            List<Book> filteredBooks = allBooks.stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                              book.getAuthor().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                              book.getIsbn().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(java.util.stream.Collectors.toList());
-            updateTableData(filteredBooks);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error searching books: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        bookService.searchBooksAsync(searchTerm).whenComplete((results, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, 
+                    "Error searching books: " + error.getMessage(), 
+                    "Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            updateTableData(results != null ? results : new java.util.ArrayList<>());
+        }));
     }
 
     // Show dialog to add a new book
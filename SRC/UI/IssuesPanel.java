@@ -1,3 +1,16 @@
+package UI;
+
+import java.awt.*;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import model.Issue;
+import model.Book;
+import model.User;
+import service.CheckoutResult;
+import service.IssueService;
+import service.BookService;
+import service.UserService;
+import java.util.List;
 import java.time.format.DateTimeFormatter;
 
 public class IssuesPanel extends JPanel {
@@ -30,7 +43,8 @@ public class IssuesPanel extends JPanel {
     public IssuesPanel(String userRole) {
         this.issueService = new IssueService();
         this.bookService = new BookService();
-@@ -42,99 +42,97 @@ public IssuesPanel(String userRole) {
+        this.userService = new UserService();
+        this.userRole = userRole;
         setupUI();
         loadIssues();
     }
@@ -135,7 +149,8 @@ public class IssuesPanel extends JPanel {
     private void loadIssues() {
         try {
             List<Issue> issues = issueService.getAllIssues();
-@@ -143,16 +141,19 @@ private void loadIssues() {
+            updateTableData(issues);
+        } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error loading issues: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
@@ -155,7 +170,13 @@ public class IssuesPanel extends JPanel {
                 Object[] row = {
                     issue.getId(),
                     issue.getBookId(),
-@@ -166,169 +167,6 @@ private void updateTableData(List<Issue> issues) {
+                    issue.getUserId(),
+                    issue.getIssueDate().toString(),
+                    issue.getReturnDate() != null ? issue.getReturnDate().toString() : "Not returned",
+                    status,
+                    fineStr
+                };
+                tableModel.addRow(row);
             }
         }
     }
@@ -209,26 +230,28 @@ public class IssuesPanel extends JPanel {
                 int bookId = Integer.parseInt(bookIdText);
                 int userId = Integer.parseInt(userIdText);
                 
-                // Show processing message
+                // Show processing message; the checkout runs off the EDT
                 issueButton.setEnabled(false);
                 issueButton.setText("Processing...");
                 
-                boolean success = issueService.issueBook(bookId, userId);
-                
-                if (success) {
-                    JOptionPane.showMessageDialog(dialog, "Book issued successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    dialog.dispose();
-                    loadIssues();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to issue book. Please check:\n- Book ID exists and is available\n- User ID exists\n- Book is not already issued", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                issueService.checkoutAsync(bookId, userId).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                    issueButton.setEnabled(true);
+                    issueButton.setText("Issue Book");
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(dialog, "Error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    } else if (result.isSuccess()) {
+                        JOptionPane.showMessageDialog(dialog, "Book issued successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        dialog.dispose();
+                        loadIssues();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to issue book: " + result.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        if (result == CheckoutResult.ISSUE_NOT_ROLLED_BACK) {
+                            loadIssues();
+                        }
+                    }
+                }));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid numeric IDs", "Input Error", JOptionPane.ERROR_MESSAGE);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(dialog, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            } finally {
-                issueButton.setEnabled(true);
-                issueButton.setText("Issue Book");
             }
         });
         
@@ -264,24 +287,30 @@ public class IssuesPanel extends JPanel {
             JOptionPane.YES_NO_OPTION);
         
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                // Show processing message
-                returnBookButton.setEnabled(false);
-                returnBookButton.setText("Processing...");
-                
-                boolean success = issueService.returnBook(issueId);
-                if (success) {
+            // Show processing message; the return runs off the EDT
+            Object bookId = tableModel.getValueAt(selectedRow, 1);
+            returnBookButton.setEnabled(false);
+            returnBookButton.setText("Processing...");
+            
+            issueService.checkinAsync(issueId).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                returnBookButton.setEnabled(true);
+                returnBookButton.setText("Return Book");
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, "Error returning book: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (result.isSuccess()) {
                     JOptionPane.showMessageDialog(this, "Book returned successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                     loadIssues();
+                } else if (result == CheckoutResult.RETURNED_BOOK_NOT_RELEASED) {
+                    JOptionPane.showMessageDialog(this, result.getMessage() + ".\nPlease check book ID "
+                        + bookId + ".", "Returned With Warning", JOptionPane.WARNING_MESSAGE);
+                    loadIssues();
                 } else {
-                    JOptionPane.showMessageDialog(this, "Failed to return book. Please check if the issue exists and is not already returned.", "Error", JOptionPane.ERROR_MESSAGE);
+                    JOptionPane.showMessageDialog(this, "Failed to return book: " + result.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    if (result == CheckoutResult.ALREADY_RETURNED) {
+                        loadIssues();
+                    }
                 }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "Error returning book: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            } finally {
-                returnBookButton.setEnabled(true);
-                returnBookButton.setText("Return Book");
-            }
+            }));
         }
     }
     
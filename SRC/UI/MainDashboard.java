@@ -5,6 +5,7 @@ import javax.swing.*;
 import model.User;
 import service.AuthService;
 import service.BookService;
+import service.IssueArchiver;
 import service.IssueService;
 import service.UserService;
 
@@ -37,6 +38,10 @@ public class MainDashboard extends JFrame {
         
         setupUI();
         loadDashboardData();
+        
+        if ("admin".equals(user.getRole())) {
+            IssueArchiver.startIfEnabled();
+        }
     }
     
     private void setupUI() {
@@ -2,12 +2,19 @@ package UI;
 
 import java.awt.*;
 import javax.swing.*;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import service.BookService;
+import service.ExportService;
+import service.IssueArchiver;
 import service.IssueService;
 import service.UserService;
+import dao.IssueArchive;
 import model.Book;
 import model.Issue;
 import model.User;
@@ -244,6 +251,32 @@ public class ReportsPanel extends JPanel {
             report.append("Active Issues: ").append(activeIssues).append("\n");
             report.append("Returned Issues: ").append(returnedIssues).append("\n\n");
             
+            // Archived issues are scanned column by column; only the columns each figure needs are read
+            IssueArchive archive = IssueArchiver.getArchive();
+            long[] lateReturns = {0};
+            long archivedIssues = archive.scan(EnumSet.of(IssueArchive.Column.STATUS), null, chunk -> {
+                for (long code : chunk.get(IssueArchive.Column.STATUS)) {
+                    if (IssueArchiver.STATUS_RETURNED_LATE.equals(chunk.status(code))) {
+                        lateReturns[0]++;
+                    }
+                }
+            });
+            long recentCutoff = LocalDate.now().minusYears(1).toEpochDay();
+            long[] archivedLastYear = {0};
+            archive.scan(EnumSet.of(IssueArchive.Column.RETURN_DATE),
+                stats -> stats.getMax(IssueArchive.Column.RETURN_DATE) >= recentCutoff,
+                chunk -> {
+                    for (long returned : chunk.get(IssueArchive.Column.RETURN_DATE)) {
+                        if (returned >= recentCutoff) {
+                            archivedLastYear[0]++;
+                        }
+                    }
+                });
+            report.append("ARCHIVED ISSUES:\n");
+            report.append("Archived Issues: ").append(archivedIssues).append("\n");
+            report.append("Returned Late: ").append(lateReturns[0]).append("\n");
+            report.append("Returned In The Last Year: ").append(archivedLastYear[0]).append("\n\n");
+            
             // Fines Report
             report.append("FINANCIAL REPORT:\n");
             double totalFines = 0.0;
@@ -267,6 +300,11 @@ public class ReportsPanel extends JPanel {
             Map<Integer, Long> bookIssueCount = issues.stream()
                 .collect(java.util.stream.Collectors.groupingBy(
                     Issue::getBookId, java.util.stream.Collectors.counting()));
+            archive.scan(EnumSet.of(IssueArchive.Column.BOOK_ID), null, chunk -> {
+                for (long bookId : chunk.get(IssueArchive.Column.BOOK_ID)) {
+                    bookIssueCount.merge((int) bookId, 1L, Long::sum);
+                }
+            });
             
             bookIssueCount.entrySet().stream()
                 .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
@@ -284,6 +322,12 @@ public class ReportsPanel extends JPanel {
                     }
                 });
             
+            report.append("\nSEARCH PERFORMANCE:\n");
+            report.append(bookService.getSearchCacheStats()).append("\n");
+            
+            report.append("\nCHECKOUT PERFORMANCE:\n");
+            report.append(IssueService.getCheckoutStats()).append("\n");
+            
             detailedReportArea.setText(report.toString());
             
         } catch (Exception e) {
@@ -294,29 +338,63 @@ public class ReportsPanel extends JPanel {
         }
     }
     
+    // Streams the chosen tables straight from Supabase into files under the export directory
     private void exportReport() {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("Export Report");
-            fileChooser.setSelectedFile(new java.io.File("library_report.txt"));
+        JComboBox<String> datasetBox = new JComboBox<>(new String[] {"All", "Books", "Users", "Issues", "Summary"});
+        JComboBox<ExportService.Format> formatBox = new JComboBox<>(ExportService.Format.values());
+        JCheckBox gzipBox = new JCheckBox("Compress (gzip)");
+        JPanel options = new JPanel(new GridLayout(0, 2, 5, 5));
+        options.add(new JLabel("Export:"));
+        options.add(datasetBox);
+        options.add(new JLabel("Format:"));
+        options.add(formatBox);
+        options.add(new JLabel());
+        options.add(gzipBox);
+        
+        int result = JOptionPane.showConfirmDialog(this, options, "Export Data", JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String choice = (String) datasetBox.getSelectedItem();
+        ExportService.Format format = (ExportService.Format) formatBox.getSelectedItem();
+        boolean gzip = gzipBox.isSelected();
+        
+        ExportService exportService = new ExportService();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting to " + exportService.getExportDirectory(), "", 0, 1);
+        monitor.setMillisToDecideToPopup(0);
+        exportService.setProgressListener((dataset, rowsRead) -> SwingUtilities.invokeLater(() ->
+            monitor.setNote(dataset.name().toLowerCase() + ": " + rowsRead + " rows")));
+        
+        new SwingWorker<List<Path>, Void>() {
+            @Override
+            protected List<Path> doInBackground() throws Exception {
+                if ("All".equals(choice)) {
+                    return exportService.exportAll(format, gzip);
+                }
+                ExportService.Dataset dataset = ExportService.Dataset.valueOf(choice.toUpperCase());
+                return Collections.singletonList(exportService.export(dataset, format, gzip));
+            }
             
-            int result = fileChooser.showSaveDialog(this);
-            if (result == JFileChooser.APPROVE_OPTION) {
-                java.io.File file = fileChooser.getSelectedFile();
-                java.io.PrintWriter writer = new java.io.PrintWriter(file);
-                writer.print(detailedReportArea.getText());
-                writer.close();
-                
-                JOptionPane.showMessageDialog(this, 
-                    "Report exported successfully to: " + file.getAbsolutePath(), 
-                    "Export Success", 
-                    JOptionPane.INFORMATION_MESSAGE);
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    StringBuilder message = new StringBuilder("Exported to:");
+                    for (Path file : get()) {
+                        message.append("\n").append(file.toAbsolutePath());
+                    }
+                    JOptionPane.showMessageDialog(ReportsPanel.this, 
+                        message.toString(), 
+                        "Export Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(ReportsPanel.this, 
+                        "Error exporting report: " + cause.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error exporting report: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        }.execute();
     }
 } 
\ No newline at end of file
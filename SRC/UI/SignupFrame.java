@@ -117,12 +117,16 @@ public class SignupFrame extends JFrame {
             return;
         }
         
-        try {
-            // Create new user
-            User newUser = new User(0, name, email, password, role);
-            boolean success = authService.registerUser(newUser);
-            
-            if (success) {
+        // Create new user; the request runs off the EDT
+        User newUser = new User(0, name, email, password, role);
+        signupButton.setEnabled(false);
+        authService.registerUserAsync(newUser).whenComplete((success, error) -> SwingUtilities.invokeLater(() -> {
+            signupButton.setEnabled(true);
+            if (error != null) {
+                statusLabel.setText("Sign up failed: " + error.getMessage());
+                statusLabel.setForeground(Color.RED);
+                System.err.println("Sign up error: " + error.getMessage());
+            } else if (success) {
                 statusLabel.setText("Account created successfully!");
                 statusLabel.setForeground(new Color(0, 128, 0));
                 
@@ -139,12 +143,7 @@ public class SignupFrame extends JFrame {
                 statusLabel.setText("Failed to create account. Email might already exist.");
                 statusLabel.setForeground(Color.RED);
             }
-            
-        } catch (Exception e) {
-            statusLabel.setText("Sign up failed: " + e.getMessage());
-            statusLabel.setForeground(Color.RED);
-            System.err.println("Sign up error: " + e.getMessage());
-        }
+        }));
     }
     
     private boolean validateSignupInput(String name, String email, String password, String confirmPassword) {
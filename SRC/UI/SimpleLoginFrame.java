@@ -4,6 +4,7 @@ import java.awt.*;
 import javax.swing.*;
 import model.User;
 import service.AuthService;
+import service.ExistenceFilters;
 
 public class SimpleLoginFrame extends JFrame {
     
@@ -17,6 +18,9 @@ public class SimpleLoginFrame extends JFrame {
     public SimpleLoginFrame() {
         this.authService = new AuthService();
         setupUI();
+        
+        // Build the email/ISBN existence filters in the background while the user types
+        ExistenceFilters.warmUp();
     }
     
     private void setupUI() {
@@ -90,9 +94,15 @@ public class SimpleLoginFrame extends JFrame {
             return;
         }
         
-        try {
-            User user = authService.authenticateUser(email, password);
-            if (user != null) {
+        // Authenticate off the EDT so the window stays responsive while Supabase answers
+        loginButton.setEnabled(false);
+        authService.authenticateUserAsync(email, password).whenComplete((user, error) -> SwingUtilities.invokeLater(() -> {
+            loginButton.setEnabled(true);
+            if (error != null) {
+                statusLabel.setText("Login failed: " + error.getMessage());
+                statusLabel.setForeground(Color.RED);
+                System.err.println("Login error: " + error.getMessage());
+            } else if (user != null) {
                 statusLabel.setText("Login successful! Welcome, " + user.getName());
                 statusLabel.setForeground(new Color(0, 128, 0));
                 
@@ -114,11 +124,7 @@ public class SimpleLoginFrame extends JFrame {
                 statusLabel.setForeground(Color.RED);
                 passwordField.setText("");
             }
-        } catch (Exception e) {
-            statusLabel.setText("Login failed: " + e.getMessage());
-            statusLabel.setForeground(Color.RED);
-            System.err.println("Login error: " + e.getMessage());
-        }
+        }));
     }
     
     private void goToSignup() {
@@ -0,0 +1,166 @@
+package UI;
+
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Function;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Debounced suggestion popup for a search field.
+ * Suggestions are looked up once typing pauses; Up/Down move the selection,
+ * Enter or a click accepts it (and fires the field's action), Escape closes.
+ */
+public class TypeAheadPopup {
+    private static final int DEBOUNCE_MS = 150;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Function<String, List<String>> source;
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer timer;
+    private boolean adjusting = false;
+
+    private TypeAheadPopup(JTextField field, Function<String, List<String>> source) {
+        this.field = field;
+        this.source = source;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setFont(field.getFont());
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    accept(model.get(index));
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        popup.setFocusable(false);
+        popup.add(scrollPane);
+
+        timer = new Timer(DEBOUNCE_MS, e -> refresh());
+        timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { textChanged(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { textChanged(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                timer.stop();
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /**
+     * Attaches a suggestion popup to a text field
+     *
+     * @param field The field to watch
+     * @param source Returns suggestions for the text typed so far
+     * @return The installed popup
+     */
+    public static TypeAheadPopup install(JTextField field, Function<String, List<String>> source) {
+        return new TypeAheadPopup(field, source);
+    }
+
+    private void textChanged() {
+        if (!adjusting) {
+            timer.restart();
+        }
+    }
+
+    private void refresh() {
+        String text = field.getText().trim();
+        List<String> suggestions = text.isEmpty() ? null : source.apply(text);
+        if (suggestions == null || suggestions.isEmpty() || !field.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        model.clear();
+        for (int i = 0; i < suggestions.size() && i < MAX_SUGGESTIONS; i++) {
+            model.addElement(suggestions.get(i));
+        }
+        list.setVisibleRowCount(model.size());
+        list.clearSelection();
+        popup.pack();
+        popup.show(field, 0, field.getHeight());
+        field.requestFocusInWindow();
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!popup.isVisible()) {
+            return;
+        }
+        int selected = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(selected + 1, model.size() - 1));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                list.setSelectedIndex(Math.max(selected - 1, 0));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (selected >= 0) {
+                    accept(model.get(selected));
+                    e.consume();
+                } else {
+                    popup.setVisible(false);
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                popup.setVisible(false);
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void accept(String suggestion) {
+        timer.stop();
+        adjusting = true;
+        try {
+            field.setText(suggestion);
+        } finally {
+            adjusting = false;
+        }
+        popup.setVisible(false);
+        field.postActionEvent();
+    }
+}
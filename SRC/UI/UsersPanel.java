@@ -2,13 +2,22 @@ package UI;
 
 import java.awt.*;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import model.User;
+import service.CatalogImporter;
+import service.IssueService;
 import service.UserService;
+import util.Page;
+import util.PrefixIndex;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 public class UsersPanel extends JPanel {
     
+    private static final int PAGE_SIZE = 100;
+    
     private UserService userService;
     private JTable usersTable;
     private DefaultTableModel tableModel;
@@ -17,6 +26,12 @@ public class UsersPanel extends JPanel {
     private JButton editButton;
     private JButton deleteButton;
     private JButton refreshButton;
+    private JButton previousButton;
+    private JButton nextButton;
+    private JLabel pageLabel;
+    private String currentSearchTerm = "";
+    private int currentPage = 0;
+    private volatile PrefixIndex suggestionIndex; // Names and emails, ranked by books borrowed
     
     public UsersPanel() {
         this.userService = new UserService();
@@ -51,6 +66,28 @@ public class UsersPanel extends JPanel {
         
         add(topPanel, BorderLayout.NORTH);
         add(new JScrollPane(usersTable), BorderLayout.CENTER);
+        add(createPagingPanel(), BorderLayout.SOUTH);
+    }
+    
+    private JPanel createPagingPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        panel.setBackground(Color.WHITE);
+        
+        previousButton = new JButton("< Previous");
+        nextButton = new JButton("Next >");
+        pageLabel = new JLabel();
+        previousButton.setFont(new Font("Arial", Font.BOLD, 12));
+        nextButton.setFont(new Font("Arial", Font.BOLD, 12));
+        pageLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        
+        previousButton.addActionListener(e -> showPage(currentPage - 1));
+        nextButton.addActionListener(e -> showPage(currentPage + 1));
+        
+        panel.add(pageLabel);
+        panel.add(previousButton);
+        panel.add(nextButton);
+        
+        return panel;
     }
     
     private JPanel createSearchPanel() {
@@ -62,6 +99,8 @@ public class UsersPanel extends JPanel {
         
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 12));
+        searchField.addActionListener(e -> searchUsers());
+        TypeAheadPopup.install(searchField, this::suggest);
         
         JButton searchButton = new JButton("Search");
         searchButton.setFont(new Font("Arial", Font.BOLD, 12));
@@ -112,9 +151,63 @@ public class UsersPanel extends JPanel {
         panel.add(deleteButton);
         panel.add(refreshButton);
         
+        JButton importButton = new JButton("Import...");
+        importButton.setFont(new Font("Arial", Font.BOLD, 12));
+        importButton.setBackground(new Color(23, 162, 184));
+        importButton.setForeground(Color.WHITE);
+        importButton.addActionListener(e -> importUsers());
+        panel.add(importButton);
+        
         return panel;
     }
     
+    private void importUsers() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or NDJSON (name, email, password, role)", "csv", "ndjson", "jsonl"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path input = chooser.getSelectedFile().toPath();
+        Path errorReport = input.resolveSibling(input.getFileName() + ".errors.csv");
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + input.getFileName(), "", 0, 1000);
+        CatalogImporter importer = new CatalogImporter();
+        importer.setProgressListener((report, bytesRead, totalBytes) -> SwingUtilities.invokeLater(() -> {
+            if (monitor.isCanceled()) {
+                importer.cancel();
+                return;
+            }
+            monitor.setProgress(totalBytes > 0 ? (int) (bytesRead * 1000 / totalBytes) : 1000);
+            monitor.setNote(report.getRowsWritten() + " added, " + report.getRowsRejected() + " rejected");
+        }));
+        
+        new SwingWorker<CatalogImporter.ImportReport, Void>() {
+            @Override
+            protected CatalogImporter.ImportReport doInBackground() throws Exception {
+                return importer.importUsers(input, errorReport);
+            }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    CatalogImporter.ImportReport report = get();
+                    String message = "Imported " + report.getRowsWritten() + " of " + report.getRowsRead() + " users"
+                        + String.format(" in %.1fs (%.0f rows/s).", report.getElapsedSeconds(), report.getRowsPerSecond());
+                    if (report.isCancelled()) {
+                        message = "Import cancelled after adding " + report.getRowsWritten() + " users.";
+                    }
+                    if (report.getRowsRejected() > 0) {
+                        message += "\n" + report.getRowsRejected() + " rows were rejected; see " + errorReport;
+                    }
+                    JOptionPane.showMessageDialog(UsersPanel.this, message, "Import", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(UsersPanel.this, "Error importing users: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+                loadUsers();
+            }
+        }.execute();
+    }
+    
     private void createUsersTable() {
         String[] columnNames = {"ID", "Name", "Email", "Role", "Status"};
         tableModel = new DefaultTableModel(columnNames, 0) {
@@ -139,15 +232,18 @@ public class UsersPanel extends JPanel {
     }
     
     private void loadUsers() {
-        try {
-            List<User> users = userService.getAllUsers();
-            updateTableData(users);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading users: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        // Re-reading every user also refreshes the search index snapshot; the read runs off the EDT
+        userService.getAllUsersAsync().whenComplete((users, error) -> SwingUtilities.invokeLater(() -> {
+            if (users == null) {
+                JOptionPane.showMessageDialog(this, 
+                    "Error loading users" + (error != null ? ": " + error.getMessage() : ""), 
+                    "Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            rebuildSuggestions(users);
+            showPage(currentPage);
+        }));
     }
     
     private void updateTableData(List<User> users) {
@@ -164,22 +260,58 @@ public class UsersPanel extends JPanel {
         }
     }
     
-    private void searchUsers() {
-        String searchTerm = searchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadUsers();
+    // Build the type-ahead index off the EDT; the most active borrowers are suggested first
+    private void rebuildSuggestions(List<User> users) {
+        if (users == null) {
             return;
         }
-        
+        new SwingWorker<PrefixIndex, Void>() {
+            @Override
+            protected PrefixIndex doInBackground() {
+                Map<Integer, Integer> borrowCounts = new IssueService().getIssueCountsByUser();
+                PrefixIndex.Builder builder = PrefixIndex.builder();
+                for (User user : users) {
+                    int weight = borrowCounts.getOrDefault(user.getId(), 0);
+                    builder.add(user.getName(), weight);
+                    builder.add(user.getEmail(), weight);
+                }
+                return builder.build();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    suggestionIndex = get();
+                } catch (Exception e) {
+                    // Keep the previous suggestions; searching still works without them
+                }
+            }
+        }.execute();
+    }
+
+    private List<String> suggest(String prefix) {
+        PrefixIndex index = suggestionIndex;
+        return index != null ? index.suggest(prefix, 8) : null;
+    }
+
+    private void searchUsers() {
+        currentSearchTerm = searchField.getText().trim();
+        showPage(0);
+    }
+    
+    // Show one page of the current search (an empty search lists every user)
+    private void showPage(int pageNumber) {
         try {
-            // For now, we'll just filter the existing users
-            // In a real implementation, you'd have a search method in UserService
-            List<User> allUsers = userService.getAllUsers();
-            List<User> filteredUsers = allUsers.stream()
-                .filter(user -> user.getName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                              user.getEmail().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(java.util.stream.Collectors.toList());
-            updateTableData(filteredUsers);
+            Page<User> page = userService.searchUsers(currentSearchTerm, pageNumber, PAGE_SIZE);
+            if (page.getItems().isEmpty() && page.getPageNumber() > 0) {
+                page = userService.searchUsers(currentSearchTerm, Math.max(0, page.getTotalPages() - 1), PAGE_SIZE);
+            }
+            currentPage = page.getPageNumber();
+            updateTableData(page.getItems());
+            pageLabel.setText("Page " + (page.getTotalPages() == 0 ? 0 : currentPage + 1) + " of "
+                + page.getTotalPages() + " (" + page.getTotalCount() + " users)");
+            previousButton.setEnabled(page.hasPrevious());
+            nextButton.setEnabled(page.hasNext());
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "Error searching users: " + e.getMessage(), 
@@ -232,30 +364,30 @@ public class UsersPanel extends JPanel {
         JButton cancelButton = new JButton("Cancel");
         
         saveButton.addActionListener(e -> {
-            try {
-                String name = nameField.getText().trim();
-                String email = emailField.getText().trim();
-                String password = new String(passwordField.getPassword());
-                String role = (String) roleCombo.getSelectedItem();
-                
-                if (name.isEmpty() || email.isEmpty() || password.isEmpty()) {
-                    JOptionPane.showMessageDialog(dialog, "Please fill all fields", "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                
-                User newUser = new User(0, name, email, password, role);
-                boolean success = userService.addUser(newUser);
-                
-                if (success) {
+            String name = nameField.getText().trim();
+            String email = emailField.getText().trim();
+            String password = new String(passwordField.getPassword());
+            String role = (String) roleCombo.getSelectedItem();
+            
+            if (name.isEmpty() || email.isEmpty() || password.isEmpty()) {
+                JOptionPane.showMessageDialog(dialog, "Please fill all fields", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            
+            User newUser = new User(0, name, email, password, role);
+            saveButton.setEnabled(false);
+            userService.addUserAsync(newUser).whenComplete((success, error) -> SwingUtilities.invokeLater(() -> {
+                saveButton.setEnabled(true);
+                if (error != null) {
+                    JOptionPane.showMessageDialog(dialog, "Error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (success) {
                     JOptionPane.showMessageDialog(dialog, "User added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                     dialog.dispose();
                     loadUsers();
                 } else {
                     JOptionPane.showMessageDialog(dialog, "Failed to add user. Email might already exist.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(dialog, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }));
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
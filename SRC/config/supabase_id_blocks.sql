@@ -0,0 +1,49 @@
+-- Supabase (PostgreSQL) setup for client-side ID allocation (util.IdAllocator).
+-- Each table gets a sequence that steps by the block size. A client leases a
+-- block with lease_ids(), which is one nextval() call, so concurrent leases and
+-- inserts never wait on each other's locks. The id column defaults draw from
+-- the same sequence, so IDs assigned by the client and by the server never
+-- overlap; a row inserted without an ID uses the first ID of a fresh block.
+-- The block size below must be at least ID_BLOCK_SIZE in the application config.
+
+CREATE OR REPLACE FUNCTION lease_ids(p_table TEXT, p_count INT) RETURNS BIGINT AS $$
+DECLARE
+    block BIGINT;
+BEGIN
+    IF p_table NOT IN ('books', 'users', 'issues') THEN
+        RAISE EXCEPTION 'No ID sequence for table %', p_table;
+    END IF;
+    SELECT increment_by INTO block FROM pg_sequences
+     WHERE schemaname = 'public' AND sequencename = p_table || '_id_block_seq';
+    IF p_count > block THEN
+        RAISE EXCEPTION 'Cannot lease % IDs for %; blocks hold %', p_count, p_table, block;
+    END IF;
+    RETURN nextval(format('public.%I', p_table || '_id_block_seq')::regclass);
+END;
+$$ LANGUAGE plpgsql VOLATILE SECURITY DEFINER;
+
+GRANT EXECUTE ON FUNCTION lease_ids(TEXT, INT) TO anon, authenticated;
+
+DO $$
+DECLARE
+    block CONSTANT BIGINT := 100;
+    t TEXT;
+    seq TEXT;
+    start_id BIGINT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['books', 'users', 'issues'] LOOP
+        seq := t || '_id_block_seq';
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY %s', seq, block);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY %s OWNED BY %I.id', seq, block, t);
+        -- Start past every stored ID and, when run again, past every block already leased
+        EXECUTE format('SELECT GREATEST(COALESCE(MAX(id), 0), COALESCE(pg_sequence_last_value(%L) + %s - 1, 0)) + 1 FROM %I',
+                       seq, block, t) INTO start_id;
+        PERFORM setval(seq::regclass, start_id, false);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, seq);
+    END LOOP;
+END;
+$$;
+
+-- Counter table used by earlier versions of this script
+DROP TABLE IF EXISTS id_blocks;
@@ -0,0 +1,14 @@
+-- Supabase (PostgreSQL) functions for type-ahead suggestion weights.
+-- Return one row per book or user with its issue count, so the client does
+-- not have to download the whole issues table to count them.
+
+CREATE OR REPLACE FUNCTION issue_counts_by_book() RETURNS TABLE (id BIGINT, issue_count BIGINT) AS $$
+    SELECT book_id, COUNT(*) FROM issues GROUP BY book_id;
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION issue_counts_by_user() RETURNS TABLE (id BIGINT, issue_count BIGINT) AS $$
+    SELECT user_id, COUNT(*) FROM issues GROUP BY user_id;
+$$ LANGUAGE sql STABLE;
+
+GRANT EXECUTE ON FUNCTION issue_counts_by_book() TO anon, authenticated;
+GRANT EXECUTE ON FUNCTION issue_counts_by_user() TO anon, authenticated;
@@ -0,0 +1,41 @@
+-- Supabase (PostgreSQL) setup for the local read replica (util.LocalReplica).
+-- Adds updated_at to the replicated tables, keeps it current on every
+-- update, and records deletions as tombstones so replicas can drop them.
+
+CREATE OR REPLACE FUNCTION replica_touch() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE IF NOT EXISTS replica_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    table_name TEXT NOT NULL,
+    row_id BIGINT NOT NULL,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION replica_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO replica_tombstones (table_name, row_id) VALUES (TG_TABLE_NAME, OLD.id);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['books', 'users', 'issues'] LOOP
+        EXECUTE format('ALTER TABLE %I ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()', t);
+        EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I (updated_at, id)', t || '_updated_at_idx', t);
+        EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', t || '_replica_touch', t);
+        EXECUTE format('CREATE TRIGGER %I BEFORE INSERT OR UPDATE ON %I FOR EACH ROW EXECUTE FUNCTION replica_touch()',
+                       t || '_replica_touch', t);
+        EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', t || '_replica_tombstone', t);
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE ON %I FOR EACH ROW EXECUTE FUNCTION replica_tombstone()',
+                       t || '_replica_tombstone', t);
+    END LOOP;
+END;
+$$;
@@ -0,0 +1,187 @@
+package dao;
+
+import model.Book;
+import util.InvertedIndex;
+import util.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side Book Search Index
+ *
+ * This class keeps an inverted index over book titles, authors and ISBNs so
+ * catalog searches are answered locally instead of with ilike round trips.
+ * It is built from a catalog snapshot and kept current by SupabaseBookDao writes.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class BookSearchIndex {
+
+    private static final BookSearchIndex INSTANCE = new BookSearchIndex();
+
+    // Field weights: an ISBN hit is the strongest signal, then title, then author
+    private static final int[] FIELD_WEIGHTS = {6, 3, 2};
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final Map<Integer, Book> books = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    // Bumped on every change to the searchable fields; result caches compare against it
+    private final AtomicLong version = new AtomicLong();
+
+    private BookSearchIndex() {
+    }
+
+    /**
+     * Gets the shared index instance
+     *
+     * @return The book search index
+     */
+    public static BookSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if the index has been built from a catalog snapshot
+     *
+     * @return true if searches can be answered locally
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the catalog version, which changes whenever search results could change
+     *
+     * @return The current catalog version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Rebuilds the index from a full catalog snapshot
+     *
+     * A snapshot whose titles, authors and ISBNs match the index only refreshes
+     * the stored books, so the version (and every cached search) survives the
+     * routine full reads done by screen refreshes.
+     *
+     * @param snapshot All books in the catalog
+     */
+    public synchronized void load(List<Book> snapshot) {
+        if (loaded && matchesSearchableFields(snapshot)) {
+            for (Book book : snapshot) {
+                books.put(book.getId(), book);
+            }
+            return;
+        }
+        index.clear();
+        books.clear();
+        for (Book book : snapshot) {
+            indexBook(book);
+        }
+        loaded = true;
+        version.incrementAndGet();
+        Logger.log("Book search index built with " + books.size() + " books");
+    }
+
+    /**
+     * Adds or re-indexes a book after a write
+     *
+     * @param book The book that was saved
+     */
+    public void put(Book book) {
+        if (loaded && book != null && book.getId() > 0) {
+            indexBook(book);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes a deleted book from the index
+     *
+     * @param bookId The deleted book's ID
+     */
+    public void remove(int bookId) {
+        index.remove(bookId);
+        books.remove(bookId);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Updates the cached issue status of a book (status does not affect tokens)
+     *
+     * @param bookId The book ID
+     * @param issued The new issue status
+     */
+    public void updateStatus(int bookId, boolean issued) {
+        Book book = books.get(bookId);
+        if (book != null) {
+            book.setIssued(issued);
+            book.setStatus(issued ? "issued" : "available");
+        }
+    }
+
+    /**
+     * Searches the indexed catalog
+     *
+     * @param query Free-text query over title, author and ISBN
+     * @param matchAll true to require every query term, false to match any
+     * @return Matching books, most relevant first
+     */
+    public List<Book> search(String query, boolean matchAll) {
+        List<Book> results = new ArrayList<>();
+        for (Integer id : index.search(query, matchAll)) {
+            Book book = books.get(id);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets an indexed book by ID
+     *
+     * @param bookId The book ID
+     * @return The book, or null if it is not indexed
+     */
+    public Book get(int bookId) {
+        return books.get(bookId);
+    }
+
+    /**
+     * Gets the number of indexed books
+     *
+     * @return Book count
+     */
+    public int size() {
+        return books.size();
+    }
+
+    private boolean matchesSearchableFields(List<Book> snapshot) {
+        if (snapshot.size() != books.size()) {
+            return false;
+        }
+        for (Book book : snapshot) {
+            Book indexed = books.get(book.getId());
+            if (indexed == null
+                    || !Objects.equals(indexed.getTitle(), book.getTitle())
+                    || !Objects.equals(indexed.getAuthor(), book.getAuthor())
+                    || !Objects.equals(indexed.getIsbn(), book.getIsbn())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void indexBook(Book book) {
+        books.put(book.getId(), book);
+        index.index(book.getId(), new String[] {book.getIsbn(), book.getTitle(), book.getAuthor()}, FIELD_WEIGHTS);
+    }
+}
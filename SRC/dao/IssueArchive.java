@@ -0,0 +1,537 @@
+package dao;
+
+import model.Issue;
+import util.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar Archive of Returned Issues
+ *
+ * Returned issues are written into immutable segment files, one per archiving
+ * run. A segment holds chunks of a fixed number of rows, and each chunk stores
+ * every column as its own deflate-compressed block:
+ * <ul>
+ *   <li>id: sorted, delta-encoded varints</li>
+ *   <li>book_id, user_id: varints</li>
+ *   <li>issue_date: zigzag delta of the epoch day from the previous row</li>
+ *   <li>return_date: days after issue_date</li>
+ *   <li>status: varint code into the segment's status dictionary</li>
+ * </ul>
+ * A footer at the end of the segment lists every block's offset and length
+ * with the column's min/max in the chunk (dates as epoch days). A scan reads
+ * only the footer, skips chunks whose stats cannot match, and inflates only
+ * the requested columns of the chunks it keeps.
+ *
+ * Segment layout: "IAR1", column blocks, footer, footer offset (8 bytes).
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class IssueArchive {
+
+    /**
+     * Archived columns, in the order they are stored
+     */
+    public enum Column {
+        ID, BOOK_ID, USER_ID, ISSUE_DATE, RETURN_DATE, STATUS
+    }
+
+    /**
+     * Decides from a chunk's min/max stats whether it can hold matching rows
+     */
+    public interface ChunkFilter {
+        boolean mightMatch(ChunkStats stats);
+    }
+
+    /**
+     * Receives the decoded columns of each chunk a scan keeps
+     */
+    public interface ChunkVisitor {
+        void visit(Chunk chunk);
+    }
+
+    private static final int MAGIC = 0x49415231; // "IAR1"
+    private static final String SUFFIX = ".iar";
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final Column[] COLUMNS = Column.values();
+
+    private final Path directory;
+    private final int chunkRows;
+    private final Map<Path, Footer> footers = new ConcurrentHashMap<>();
+
+    /**
+     * Opens (or creates) an archive directory
+     *
+     * @param directory Directory holding the segment files
+     * @param chunkRows Maximum rows per chunk
+     */
+    public IssueArchive(Path directory, int chunkRows) {
+        this.directory = directory;
+        this.chunkRows = Math.max(1, chunkRows);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes returned issues into a new segment
+     *
+     * @param issues Returned issues (return date set); they are sorted by ID
+     * @param statusOf Status to store for each issue
+     * @return The new segment file, or null if there was nothing to write
+     * @throws IOException If the segment cannot be written; no partial segment is left behind
+     */
+    public Path writeSegment(List<Issue> issues, Function<Issue, String> statusOf) throws IOException {
+        if (issues.isEmpty()) {
+            return null;
+        }
+        List<Issue> sorted = new ArrayList<>(issues);
+        sorted.sort(Comparator.comparingInt(Issue::getId));
+        Files.createDirectories(directory);
+        String name = "issues-" + LocalDateTime.now().format(FILE_STAMP) + "-" + sorted.get(0).getId() + "-"
+                + sorted.get(sorted.size() - 1).getId() + SUFFIX;
+        Path target = directory.resolve(name);
+        Path partial = directory.resolve(name + ".part");
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        List<ChunkStats> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int from = 0; from < sorted.size(); from += chunkRows) {
+                    List<Issue> rows = sorted.subList(from, Math.min(sorted.size(), from + chunkRows));
+                    ChunkStats stats = new ChunkStats(rows.size());
+                    long[][] values = columnValues(rows, statusOf, dictionary);
+                    for (Column column : COLUMNS) {
+                        byte[] block = compress(encode(column, values), deflater);
+                        stats.offsets[column.ordinal()] = channel.position();
+                        stats.lengths[column.ordinal()] = block.length;
+                        stats.min[column.ordinal()] = min(values[column.ordinal()]);
+                        stats.max[column.ordinal()] = max(values[column.ordinal()]);
+                        out.write(block);
+                    }
+                    chunks.add(stats);
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long footerOffset = channel.position();
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            data = new DataOutputStream(footer);
+            data.writeInt(dictionary.size());
+            for (String status : dictionary.keySet()) {
+                data.writeUTF(status);
+            }
+            data.writeInt(chunks.size());
+            for (ChunkStats stats : chunks) {
+                data.writeInt(stats.rows);
+                for (Column column : COLUMNS) {
+                    int c = column.ordinal();
+                    data.writeLong(stats.offsets[c]);
+                    data.writeInt(stats.lengths[c]);
+                    data.writeLong(stats.min[c]);
+                    data.writeLong(stats.max[c]);
+                }
+            }
+            data.writeLong(footerOffset);
+            out.write(footer.toByteArray());
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Logger.log("Archived " + sorted.size() + " issues into " + target.getFileName() + " (" + chunks.size()
+                + " chunks, " + Files.size(target) + " bytes)");
+        return target;
+    }
+
+    /**
+     * Scans the archive
+     *
+     * @param columns Columns to decode; RETURN_DATE also decodes ISSUE_DATE, which it is stored against
+     * @param filter Chunk filter on min/max stats, or null to keep every chunk
+     * @param visitor Receives each kept chunk
+     * @return Number of rows in the chunks visited
+     * @throws IOException If a segment cannot be read
+     */
+    public long scan(Set<Column> columns, ChunkFilter filter, ChunkVisitor visitor) throws IOException {
+        EnumSet<Column> needed = columns.isEmpty() ? EnumSet.noneOf(Column.class) : EnumSet.copyOf(columns);
+        if (needed.contains(Column.RETURN_DATE)) {
+            needed.add(Column.ISSUE_DATE);
+        }
+        long rows = 0;
+        Inflater inflater = new Inflater();
+        try {
+            for (Path segment : segments()) {
+                Footer footer = footer(segment);
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    for (ChunkStats stats : footer.chunks) {
+                        if (filter != null && !filter.mightMatch(stats)) {
+                            continue;
+                        }
+                        Chunk chunk = new Chunk(stats, footer.dictionary);
+                        for (Column column : needed) {
+                            byte[] block = read(channel, stats.offsets[column.ordinal()],
+                                    stats.lengths[column.ordinal()]);
+                            chunk.values[column.ordinal()] = decode(column, inflate(block, inflater), stats.rows,
+                                    chunk.values[Column.ISSUE_DATE.ordinal()]);
+                        }
+                        visitor.visit(chunk);
+                        rows += stats.rows;
+                    }
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return rows;
+    }
+
+    /**
+     * Finds which IDs in a range are already archived
+     *
+     * @param minId Lowest ID of interest
+     * @param maxId Highest ID of interest
+     * @return Archived IDs within the range
+     * @throws IOException If a segment cannot be read
+     */
+    public Set<Integer> archivedIds(int minId, int maxId) throws IOException {
+        Set<Integer> ids = new HashSet<>();
+        scan(EnumSet.of(Column.ID),
+                stats -> stats.getMax(Column.ID) >= minId && stats.getMin(Column.ID) <= maxId,
+                chunk -> {
+                    for (long id : chunk.get(Column.ID)) {
+                        if (id >= minId && id <= maxId) {
+                            ids.add((int) id);
+                        }
+                    }
+                });
+        return ids;
+    }
+
+    /**
+     * Min/max stats and block locations of one chunk
+     */
+    public static class ChunkStats {
+        private final int rows;
+        private final long[] offsets = new long[COLUMNS.length];
+        private final int[] lengths = new int[COLUMNS.length];
+        private final long[] min = new long[COLUMNS.length];
+        private final long[] max = new long[COLUMNS.length];
+
+        ChunkStats(int rows) {
+            this.rows = rows;
+        }
+
+        public int getRows() { return rows; }
+        public long getMin(Column column) { return min[column.ordinal()]; }
+        public long getMax(Column column) { return max[column.ordinal()]; }
+    }
+
+    /**
+     * Decoded columns of one chunk; dates are epoch days
+     */
+    public static class Chunk {
+        private final ChunkStats stats;
+        private final List<String> dictionary;
+        private final long[][] values = new long[COLUMNS.length][];
+
+        Chunk(ChunkStats stats, List<String> dictionary) {
+            this.stats = stats;
+            this.dictionary = dictionary;
+        }
+
+        public int getRows() {
+            return stats.rows;
+        }
+
+        /**
+         * @param column A column requested in the scan
+         * @return Its values, one per row
+         * @throws IllegalStateException If the column was not requested
+         */
+        public long[] get(Column column) {
+            long[] columnValues = values[column.ordinal()];
+            if (columnValues == null) {
+                throw new IllegalStateException(column + " was not requested in this scan");
+            }
+            return columnValues;
+        }
+
+        public String status(long code) {
+            return dictionary.get((int) code);
+        }
+
+        public LocalDate date(long epochDay) {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+    }
+
+    private static class Footer {
+        final List<String> dictionary;
+        final List<ChunkStats> chunks;
+
+        Footer(List<String> dictionary, List<ChunkStats> chunks) {
+            this.dictionary = dictionary;
+            this.chunks = chunks;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    // Segments never change once written, so their footers are read once
+    private Footer footer(Path segment) throws IOException {
+        Footer cached = footers.get(segment);
+        if (cached != null) {
+            return cached;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(4);
+            ByteBuffer tail = ByteBuffer.allocate(8);
+            readFully(channel, header, 0);
+            readFully(channel, tail, size - 8);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not an issue archive segment: " + segment);
+            }
+            long footerOffset = tail.getLong(0);
+            byte[] bytes = read(channel, footerOffset, (int) (size - 8 - footerOffset));
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+            List<String> dictionary = new ArrayList<>();
+            for (int i = data.readInt(); i > 0; i--) {
+                dictionary.add(data.readUTF());
+            }
+            List<ChunkStats> chunks = new ArrayList<>();
+            for (int i = data.readInt(); i > 0; i--) {
+                ChunkStats stats = new ChunkStats(data.readInt());
+                for (Column column : COLUMNS) {
+                    int c = column.ordinal();
+                    stats.offsets[c] = data.readLong();
+                    stats.lengths[c] = data.readInt();
+                    stats.min[c] = data.readLong();
+                    stats.max[c] = data.readLong();
+                }
+                chunks.add(stats);
+            }
+            Footer footer = new Footer(dictionary, chunks);
+            footers.put(segment, footer);
+            return footer;
+        }
+    }
+
+    private static long[][] columnValues(List<Issue> rows, Function<Issue, String> statusOf,
+                                         Map<String, Integer> dictionary) {
+        long[][] values = new long[COLUMNS.length][rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Issue issue = rows.get(i);
+            values[Column.ID.ordinal()][i] = issue.getId();
+            values[Column.BOOK_ID.ordinal()][i] = issue.getBookId();
+            values[Column.USER_ID.ordinal()][i] = issue.getUserId();
+            values[Column.ISSUE_DATE.ordinal()][i] = issue.getIssueDate().toEpochDay();
+            values[Column.RETURN_DATE.ordinal()][i] = issue.getReturnDate().toEpochDay();
+            String status = statusOf.apply(issue);
+            Integer code = dictionary.get(status);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put(status, code);
+            }
+            values[Column.STATUS.ordinal()][i] = code;
+        }
+        return values;
+    }
+
+    private static byte[] encode(Column column, long[][] values) {
+        long[] own = values[column.ordinal()];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(own.length * 2);
+        long previous = 0;
+        for (int i = 0; i < own.length; i++) {
+            switch (column) {
+                case ID:
+                    writeVarint(out, own[i] - previous);
+                    previous = own[i];
+                    break;
+                case ISSUE_DATE:
+                    writeVarint(out, zigzag(own[i] - previous));
+                    previous = own[i];
+                    break;
+                case RETURN_DATE:
+                    writeVarint(out, zigzag(own[i] - values[Column.ISSUE_DATE.ordinal()][i]));
+                    break;
+                default:
+                    writeVarint(out, own[i]);
+                    break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] decode(Column column, byte[] bytes, int rows, long[] issueDates) throws IOException {
+        long[] values = new long[rows];
+        int[] position = {0};
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long raw = readVarint(bytes, position);
+            switch (column) {
+                case ID:
+                    previous += raw;
+                    values[i] = previous;
+                    break;
+                case ISSUE_DATE:
+                    previous += unzigzag(raw);
+                    values[i] = previous;
+                    break;
+                case RETURN_DATE:
+                    values[i] = issueDates[i] + unzigzag(raw);
+                    break;
+                default:
+                    values[i] = raw;
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static byte[] compress(byte[] raw, Deflater deflater) throws IOException {
+        deflater.reset();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater)) {
+            deflating.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] block, Inflater inflater) throws IOException {
+        inflater.reset();
+        inflater.setInput(block);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(block.length * 3);
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated archive block");
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, offset);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IOException("Truncated archive column");
+            }
+            int b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in archive column");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long min(long[] values) {
+        long min = Long.MAX_VALUE;
+        for (long value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static long max(long[] values) {
+        long max = Long.MIN_VALUE;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
@@ -3,9 +3,14 @@ package dao;
 import model.Book;
 import util.SupabaseConnection;
 import util.JsonUtils;
+import util.IdAllocator;
 import util.Logger;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Supabase Book Data Access Object
@@ -19,6 +24,8 @@ import java.util.List;
  */
 public class SupabaseBookDao {
     
+    private final BookSearchIndex searchIndex = BookSearchIndex.getInstance();
+    
     /**
      * Adds a new book to the database
      * 
@@ -27,15 +34,20 @@ public class SupabaseBookDao {
      */
     public boolean addBook(Book book) {
         try {
-            String jsonData = JsonUtils.createJson(
-                "title", book.getTitle(),
-                "author", book.getAuthor(),
-                "isbn", book.getIsbn(),
-                "issued", String.valueOf(book.isIssued())
-            );
+            if (book.getId() == 0) {
+                book.setId(IdAllocator.forTable("books").nextId());
+            }
+            String jsonData = toInsertJson(book, book.getId() > 0);
             
             String response = SupabaseConnection.executePost("books", jsonData);
             if (response != null) {
+                // Learn the server-assigned ID so the book can be indexed
+                String created = JsonUtils.getFirstElement(response);
+                String idStr = created != null ? JsonUtils.extractValue(created, "id") : null;
+                if (idStr != null) {
+                    book.setId(Integer.parseInt(idStr));
+                    searchIndex.put(book);
+                }
                 Logger.log("Book added successfully: " + book.getTitle());
                 return true;
             } else {
@@ -48,6 +60,55 @@ public class SupabaseBookDao {
         }
     }
     
+    /**
+     * Adds many books with one request
+     * 
+     * PostgREST inserts a JSON array in a single statement, so either every
+     * book is added or none is. Server-assigned IDs are copied back in order.
+     * 
+     * @param books The books to add
+     * @return Number of books added (0 if the request failed)
+     */
+    public int addBooks(List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return 0;
+        }
+        try {
+            // Every object in one insert needs the same keys, so IDs are sent only if all books have one
+            boolean withIds = true;
+            for (Book book : books) {
+                if (book.getId() == 0) {
+                    book.setId(IdAllocator.forTable("books").nextId());
+                }
+                withIds &= book.getId() > 0;
+            }
+            StringBuilder jsonData = new StringBuilder("[");
+            for (int i = 0; i < books.size(); i++) {
+                if (i > 0) jsonData.append(",");
+                jsonData.append(toInsertJson(books.get(i), withIds));
+            }
+            
+            String response = SupabaseConnection.executePost("books", jsonData.append("]").toString());
+            if (response == null) {
+                Logger.log("Failed to add " + books.size() + " books");
+                return 0;
+            }
+            String[] created = splitJsonArray(response);
+            for (int i = 0; i < created.length && i < books.size(); i++) {
+                String idStr = JsonUtils.extractValue(created[i], "id");
+                if (idStr != null) {
+                    books.get(i).setId(Integer.parseInt(idStr));
+                    searchIndex.put(books.get(i));
+                }
+            }
+            Logger.log("Books added in bulk: " + created.length);
+            return created.length;
+        } catch (Exception e) {
+            Logger.log("Error adding books: " + e.getMessage());
+            return 0;
+        }
+    }
+    
     /**
      * Gets a book by ID
      * 
@@ -117,12 +178,86 @@ public class SupabaseBookDao {
                     }
                 }
             }
+            
+            // A full, successful read doubles as the search index snapshot
+            if (response != null) {
+                searchIndex.load(books);
+            }
         } catch (Exception e) {
             Logger.log("Error getting all books: " + e.getMessage());
         }
         return books;
     }
     
+    /**
+     * Gets one page of book ISBNs, ordered by ID
+     * 
+     * @param offset Number of rows to skip
+     * @param limit Maximum number of rows to return
+     * @return List of ISBNs, or null if the request failed
+     */
+    public List<String> getIsbnPage(int offset, int limit) {
+        try {
+            String queryParams = "select=isbn&order=id&limit=" + limit + "&offset=" + offset;
+            String response = SupabaseConnection.executeGet("books", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<String> isbns = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String bookJson : splitJsonArray(content)) {
+                    String isbn = JsonUtils.extractValue(bookJson, "isbn");
+                    if (isbn != null) {
+                        isbns.add(isbn);
+                    }
+                }
+            }
+            return isbns;
+        } catch (Exception e) {
+            Logger.log("Error getting book ISBN page: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the next page of books after the given ID, ordered by ID
+     * 
+     * Paging by ID rather than offset keeps each request cheap however deep
+     * into the table it reads, so callers can stream the whole table.
+     * 
+     * @param afterId Only books with a greater ID are returned (0 for the first page)
+     * @param limit Maximum number of books to return
+     * @return List of books, or null if the request failed
+     */
+    public List<Book> getBooksAfter(int afterId, int limit) {
+        try {
+            String queryParams = "select=*&id=gt." + afterId + "&order=id&limit=" + limit;
+            String response = SupabaseConnection.executeGet("books", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<Book> books = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String json : splitJsonArray(content)) {
+                    if (json != null && !json.trim().isEmpty()) {
+                        Book item = parseBookFromJson(json);
+                        if (item != null) {
+                            books.add(item);
+                        }
+                    }
+                }
+            }
+            return books;
+        } catch (Exception e) {
+            Logger.log("Error getting book page: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Gets available books (not issued)
      * 
@@ -200,6 +335,7 @@ public class SupabaseBookDao {
             String response = SupabaseConnection.executePatch("books", jsonData, filter);
             
             if (response != null) {
+                searchIndex.put(book);
                 Logger.log("Book updated successfully: " + book.getTitle());
                 return true;
             } else {
@@ -224,6 +360,7 @@ public class SupabaseBookDao {
             boolean success = SupabaseConnection.executeDelete("books", filter);
             
             if (success) {
+                searchIndex.remove(id);
                 Logger.log("Book deleted successfully: ID " + id);
                 return true;
             } else {
@@ -239,27 +376,33 @@ public class SupabaseBookDao {
     /**
      * Searches books by title, author, or ISBN
      * 
+     * Uses a single PostgREST or=() filter instead of one request per column.
+     * BookService answers from BookSearchIndex when it is loaded; this is the
+     * server-side fallback.
+     * 
      * @param searchTerm The search term
      * @return List of matching books
      */
     public List<Book> searchBooks(String searchTerm) {
         List<Book> books = new ArrayList<>();
         try {
-            // Search by title (case insensitive)
-            String titleQuery = "select=*&title=ilike.*" + searchTerm + "*";
-            String titleResponse = SupabaseConnection.executeGet("books", titleQuery);
-            addBooksFromResponse(books, titleResponse);
-            
-            // Search by author (case insensitive)
-            String authorQuery = "select=*&author=ilike.*" + searchTerm + "*";
-            String authorResponse = SupabaseConnection.executeGet("books", authorQuery);
-            addBooksFromResponse(books, authorResponse);
-            
-            // Search by ISBN (exact match)
-            String isbnQuery = "select=*&isbn=eq." + searchTerm;
-            String isbnResponse = SupabaseConnection.executeGet("books", isbnQuery);
-            addBooksFromResponse(books, isbnResponse);
+            // Double-quote the term so commas and parentheses can't break the filter
+            String escaped = searchTerm.replace("\\", "\\\\").replace("\"", "\\\"");
+            String filter = "(title.ilike.\"*" + escaped + "*\",author.ilike.\"*" + escaped + "*\",isbn.eq.\"" + escaped + "\")";
+            String queryParams = "select=*&or=" + URLEncoder.encode(filter, StandardCharsets.UTF_8.name()) + "&order=id";
+            String response = SupabaseConnection.executeGet("books", queryParams);
             
+            if (response != null && !response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                Map<Integer, Book> unique = new LinkedHashMap<>();
+                for (String bookJson : splitJsonArray(content)) {
+                    Book book = parseBookFromJson(bookJson);
+                    if (book != null) {
+                        unique.putIfAbsent(book.getId(), book);
+                    }
+                }
+                books.addAll(unique.values());
+            }
         } catch (Exception e) {
             Logger.log("Error searching books: " + e.getMessage());
         }
@@ -280,6 +423,7 @@ public class SupabaseBookDao {
             String response = SupabaseConnection.executePatch("books", jsonData, filter);
             
             if (response != null) {
+                searchIndex.updateStatus(bookId, issued);
                 Logger.log("Book status updated: ID " + bookId + " issued=" + issued);
                 return true;
             } else {
@@ -292,6 +436,39 @@ public class SupabaseBookDao {
         }
     }
     
+    /**
+     * Sets the issue status only if it currently has the expected value
+     * 
+     * The condition is part of the PATCH filter, so the check and the write
+     * happen in one statement on the server; of two desks racing for the
+     * same copy, exactly one sees true.
+     * 
+     * @param bookId The book ID
+     * @param expected The status the book must have now
+     * @param issued The new status
+     * @return true if the book was updated, false if it is missing or did not have the expected status,
+     *         or null if the request failed
+     */
+    public Boolean compareAndSetIssued(int bookId, boolean expected, boolean issued) {
+        try {
+            String jsonData = JsonUtils.createJson("issued", String.valueOf(issued));
+            String filter = "id=eq." + bookId + "&issued=eq." + expected;
+            String response = SupabaseConnection.executePatch("books", jsonData, filter);
+            if (response == null) {
+                return null;
+            }
+            if (response.trim().equals("[]")) {
+                return false;
+            }
+            searchIndex.updateStatus(bookId, issued);
+            Logger.log("Book status updated: ID " + bookId + " issued=" + issued);
+            return true;
+        } catch (Exception e) {
+            Logger.log("Error updating book status: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Parses a Book object from JSON string
      * 
@@ -322,41 +499,20 @@ public class SupabaseBookDao {
     }
     
     /**
-     * Adds books from a JSON response to the list
+     * Builds the insert body for a book
      * 
-     * @param books List to add books to
-     * @param response JSON response string
+     * @param book The book
+     * @param withId Whether to send the client-assigned ID
+     * @return JSON object string
      */
-    private void addBooksFromResponse(List<Book> books, String response) {
-        if (response != null && !response.equals("[]")) {
-            String content = response.substring(1, response.length() - 1);
-            String[] bookJsons = splitJsonArray(content);
-            
-            for (String bookJson : bookJsons) {
-                if (bookJson != null && !bookJson.trim().isEmpty()) {
-                    Book book = parseBookFromJson(bookJson);
-                    if (book != null && !containsBook(books, book.getId())) {
-                        books.add(book);
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * Checks if a book list contains a book with the given ID
-     * 
-     * @param books List of books
-     * @param bookId ID to check for
-     * @return true if found, false otherwise
-     */
-    private boolean containsBook(List<Book> books, int bookId) {
-        for (Book book : books) {
-            if (book.getId() == bookId) {
-                return true;
-            }
-        }
-        return false;
+    private String toInsertJson(Book book, boolean withId) {
+        String json = JsonUtils.createJson(
+            "title", book.getTitle(),
+            "author", book.getAuthor(),
+            "isbn", book.getIsbn(),
+            "issued", String.valueOf(book.isIssued())
+        );
+        return withId ? "{\"id\":" + book.getId() + "," + json.substring(1) : json;
     }
     
     /**
@@ -3,9 +3,12 @@ package dao;
 import model.Issue;
 import util.SupabaseConnection;
 import util.JsonUtils;
+import util.IdAllocator;
 import util.Logger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -29,15 +32,26 @@ public class SupabaseIssueDao {
      */
     public boolean addIssue(Issue issue) {
         try {
+            if (issue.getId() == 0) {
+                issue.setId(IdAllocator.forTable("issues").nextId());
+            }
             String jsonData = JsonUtils.createJson(
                 "book_id", String.valueOf(issue.getBookId()),
                 "user_id", String.valueOf(issue.getUserId()),
                 "issue_date", issue.getIssueDate().toString(),
                 "return_date", issue.getReturnDate() != null ? issue.getReturnDate().toString() : null
             );
+            if (issue.getId() > 0) {
+                jsonData = "{\"id\":" + issue.getId() + "," + jsonData.substring(1);
+            }
             
             String response = SupabaseConnection.executePost("issues", jsonData);
             if (response != null) {
+                String created = JsonUtils.getFirstElement(response);
+                String idStr = created != null ? JsonUtils.extractValue(created, "id") : null;
+                if (idStr != null) {
+                    issue.setId(Integer.parseInt(idStr));
+                }
                 Logger.log("Issue added successfully: Book ID " + issue.getBookId() + ", User ID " + issue.getUserId());
                 return true;
             } else {
@@ -102,6 +116,40 @@ public class SupabaseIssueDao {
         return issues;
     }
     
+    /**
+     * Gets the next page of issues after the given ID, ordered by ID
+     * 
+     * @param afterId Only issues with a greater ID are returned (0 for the first page)
+     * @param limit Maximum number of issues to return
+     * @return List of issues, or null if the request failed
+     */
+    public List<Issue> getIssuesAfter(int afterId, int limit) {
+        try {
+            String queryParams = "select=*&id=gt." + afterId + "&order=id&limit=" + limit;
+            String response = SupabaseConnection.executeGet("issues", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<Issue> issues = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String json : splitJsonArray(content)) {
+                    if (json != null && !json.trim().isEmpty()) {
+                        Issue item = parseIssueFromJson(json);
+                        if (item != null) {
+                            issues.add(item);
+                        }
+                    }
+                }
+            }
+            return issues;
+        } catch (Exception e) {
+            Logger.log("Error getting issue page: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Gets issues for a specific user
      * 
@@ -164,6 +212,43 @@ public class SupabaseIssueDao {
         return issues;
     }
     
+    /**
+     * Checks whether a user currently has a book issued
+     * 
+     * @param bookId The book ID
+     * @param userId The user ID
+     * @return true or false, or null if the request failed
+     */
+    public Boolean hasActiveIssue(int bookId, int userId) {
+        return hasActiveIssue(bookId, userId, 0);
+    }
+    
+    /**
+     * Checks whether a user has a book issued, ignoring one issue
+     * 
+     * Used when the new issue is inserted alongside the check, so the check
+     * does not count the row being added.
+     * 
+     * @param bookId The book ID
+     * @param userId The user ID
+     * @param excludeIssueId Issue ID to ignore (0 for none)
+     * @return true or false, or null if the request failed
+     */
+    public Boolean hasActiveIssue(int bookId, int userId, int excludeIssueId) {
+        try {
+            String queryParams = "select=id&book_id=eq." + bookId + "&user_id=eq." + userId
+                + "&return_date=is.null&limit=1" + (excludeIssueId > 0 ? "&id=neq." + excludeIssueId : "");
+            String response = SupabaseConnection.executeGet("issues", queryParams);
+            if (response == null) {
+                return null;
+            }
+            return !response.trim().equals("[]");
+        } catch (Exception e) {
+            Logger.log("Error checking active issue: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Gets active issues (not returned)
      * 
@@ -224,6 +309,86 @@ public class SupabaseIssueDao {
         return issues;
     }
     
+    /**
+     * Gets the next page of issues returned before a date, ordered by ID
+     * 
+     * @param cutoff Only issues returned before this date are included
+     * @param afterId Only issues with a greater ID are returned (0 for the first page)
+     * @param limit Maximum number of issues to return
+     * @return List of issues, or null if the request failed
+     */
+    public List<Issue> getIssuesReturnedBefore(LocalDate cutoff, int afterId, int limit) {
+        try {
+            String queryParams = "select=*&return_date=lt." + cutoff + "&id=gt." + afterId
+                + "&order=id&limit=" + limit;
+            String response = SupabaseConnection.executeGet("issues", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<Issue> issues = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String issueJson : splitJsonArray(content)) {
+                    if (issueJson != null && !issueJson.trim().isEmpty()) {
+                        Issue issue = parseIssueFromJson(issueJson);
+                        if (issue != null) {
+                            issues.add(issue);
+                        }
+                    }
+                }
+            }
+            return issues;
+        } catch (Exception e) {
+            Logger.log("Error getting returned issue page: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Counts issues per book with the issue_counts_by_book database function
+     * (config/supabase_issue_counts.sql), so only one row per book is sent
+     * 
+     * @return Issue count by book ID, or null if the call failed
+     */
+    public Map<Integer, Integer> getIssueCountsByBook() {
+        return getIssueCounts("issue_counts_by_book");
+    }
+    
+    /**
+     * Counts issues per user with the issue_counts_by_user database function
+     * 
+     * @return Issue count by user ID, or null if the call failed
+     */
+    public Map<Integer, Integer> getIssueCountsByUser() {
+        return getIssueCounts("issue_counts_by_user");
+    }
+    
+    private Map<Integer, Integer> getIssueCounts(String function) {
+        try {
+            String response = SupabaseConnection.executeRpc(function, "{}");
+            if (response == null) {
+                return null;
+            }
+            
+            Map<Integer, Integer> counts = new HashMap<>();
+            if (!response.trim().equals("[]")) {
+                String content = response.trim().substring(1, response.trim().length() - 1);
+                for (String row : splitJsonArray(content)) {
+                    String id = JsonUtils.extractValue(row, "id");
+                    String count = JsonUtils.extractValue(row, "issue_count");
+                    if (id != null && count != null) {
+                        counts.put(Integer.parseInt(id), Integer.parseInt(count));
+                    }
+                }
+            }
+            return counts;
+        } catch (Exception e) {
+            Logger.log("Error getting issue counts: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Updates an existing issue
      * 
@@ -279,6 +444,39 @@ public class SupabaseIssueDao {
         }
     }
     
+    /**
+     * Deletes several issues in one request
+     * 
+     * @param ids The issue IDs to delete
+     * @return true if successful, false otherwise
+     */
+    public boolean deleteIssues(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        try {
+            StringBuilder filter = new StringBuilder("id=in.(");
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    filter.append(',');
+                }
+                filter.append(ids.get(i));
+            }
+            filter.append(')');
+            
+            if (SupabaseConnection.executeDelete("issues", filter.toString())) {
+                Logger.log("Issues deleted successfully: " + ids.size() + " rows");
+                return true;
+            } else {
+                Logger.log("Failed to delete " + ids.size() + " issues");
+                return false;
+            }
+        } catch (Exception e) {
+            Logger.log("Error deleting issues: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Returns a book (sets return date)
      * 
@@ -305,6 +503,42 @@ public class SupabaseIssueDao {
         }
     }
     
+    /**
+     * Sets the return date only if the issue is still open
+     * 
+     * @param issueId The issue ID
+     * @param returnDate The return date
+     * @return The closed issue in a one-element list, an empty list if the issue is missing or
+     *         already returned, or null if the request failed
+     */
+    public List<Issue> closeIssue(int issueId, LocalDate returnDate) {
+        try {
+            String jsonData = JsonUtils.createJson("return_date", returnDate.toString());
+            String filter = "id=eq." + issueId + "&return_date=is.null";
+            String response = SupabaseConnection.executePatch("issues", jsonData, filter);
+            if (response == null) {
+                return null;
+            }
+            
+            List<Issue> closed = new ArrayList<>();
+            if (!response.trim().equals("[]")) {
+                String content = response.trim();
+                content = content.substring(1, content.length() - 1);
+                for (String issueJson : splitJsonArray(content)) {
+                    Issue issue = parseIssueFromJson(issueJson);
+                    if (issue != null) {
+                        closed.add(issue);
+                    }
+                }
+                Logger.log("Book returned successfully: Issue ID " + issueId + " on " + returnDate);
+            }
+            return closed;
+        } catch (Exception e) {
+            Logger.log("Error returning book: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Gets issues for a specific date range
      * 
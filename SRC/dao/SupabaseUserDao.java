@@ -3,9 +3,14 @@ package dao;
 import model.User;
 import util.SupabaseConnection;
 import util.JsonUtils;
+import util.IdAllocator;
 import util.Logger;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Supabase User Data Access Object
@@ -19,6 +24,8 @@ import java.util.List;
  */
 public class SupabaseUserDao {
     
+    private final UserSearchIndex searchIndex = UserSearchIndex.getInstance();
+    
     /**
      * Adds a new user to the database
      * 
@@ -27,15 +34,20 @@ public class SupabaseUserDao {
      */
     public boolean addUser(User user) {
         try {
-            String jsonData = JsonUtils.createJson(
-                "name", user.getName(),
-                "email", user.getEmail(),
-                "password", user.getPassword(),
-                "role", user.getRole()
-            );
+            if (user.getId() == 0) {
+                user.setId(IdAllocator.forTable("users").nextId());
+            }
+            String jsonData = toInsertJson(user, user.getId() > 0);
             
             String response = SupabaseConnection.executePost("users", jsonData);
             if (response != null) {
+                // Learn the server-assigned ID so the user can be indexed
+                String created = JsonUtils.getFirstElement(response);
+                String idStr = created != null ? JsonUtils.extractValue(created, "id") : null;
+                if (idStr != null) {
+                    user.setId(Integer.parseInt(idStr));
+                    searchIndex.put(user);
+                }
                 Logger.log("User added successfully: " + user.getEmail());
                 return true;
             } else {
@@ -48,6 +60,55 @@ public class SupabaseUserDao {
         }
     }
     
+    /**
+     * Adds many users with one request
+     * 
+     * PostgREST inserts a JSON array in a single statement, so either every
+     * user is added or none is. Server-assigned IDs are copied back in order.
+     * 
+     * @param users The users to add
+     * @return Number of users added (0 if the request failed)
+     */
+    public int addUsers(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            return 0;
+        }
+        try {
+            // Every object in one insert needs the same keys, so IDs are sent only if all users have one
+            boolean withIds = true;
+            for (User user : users) {
+                if (user.getId() == 0) {
+                    user.setId(IdAllocator.forTable("users").nextId());
+                }
+                withIds &= user.getId() > 0;
+            }
+            StringBuilder jsonData = new StringBuilder("[");
+            for (int i = 0; i < users.size(); i++) {
+                if (i > 0) jsonData.append(",");
+                jsonData.append(toInsertJson(users.get(i), withIds));
+            }
+            
+            String response = SupabaseConnection.executePost("users", jsonData.append("]").toString());
+            if (response == null) {
+                Logger.log("Failed to add " + users.size() + " users");
+                return 0;
+            }
+            String[] created = splitJsonArray(response);
+            for (int i = 0; i < created.length && i < users.size(); i++) {
+                String idStr = JsonUtils.extractValue(created[i], "id");
+                if (idStr != null) {
+                    users.get(i).setId(Integer.parseInt(idStr));
+                    searchIndex.put(users.get(i));
+                }
+            }
+            Logger.log("Users added in bulk: " + created.length);
+            return created.length;
+        } catch (Exception e) {
+            Logger.log("Error adding users: " + e.getMessage());
+            return 0;
+        }
+    }
+    
     /**
      * Gets a user by email address
      * 
@@ -118,12 +179,83 @@ public class SupabaseUserDao {
                     }
                 }
             }
+            
+            // A full, successful read doubles as the search index snapshot
+            if (response != null) {
+                searchIndex.load(users);
+            }
         } catch (Exception e) {
             Logger.log("Error getting all users: " + e.getMessage());
         }
         return users;
     }
     
+    /**
+     * Gets one page of user emails, ordered by ID
+     * 
+     * @param offset Number of rows to skip
+     * @param limit Maximum number of rows to return
+     * @return List of emails, or null if the request failed
+     */
+    public List<String> getEmailPage(int offset, int limit) {
+        try {
+            String queryParams = "select=email&order=id&limit=" + limit + "&offset=" + offset;
+            String response = SupabaseConnection.executeGet("users", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<String> emails = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String userJson : splitJsonArray(content)) {
+                    String email = JsonUtils.extractValue(userJson, "email");
+                    if (email != null) {
+                        emails.add(email);
+                    }
+                }
+            }
+            return emails;
+        } catch (Exception e) {
+            Logger.log("Error getting user email page: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the next page of users after the given ID, ordered by ID
+     * 
+     * @param afterId Only users with a greater ID are returned (0 for the first page)
+     * @param limit Maximum number of users to return
+     * @return List of users, or null if the request failed
+     */
+    public List<User> getUsersAfter(int afterId, int limit) {
+        try {
+            String queryParams = "select=*&id=gt." + afterId + "&order=id&limit=" + limit;
+            String response = SupabaseConnection.executeGet("users", queryParams);
+            if (response == null) {
+                return null;
+            }
+            
+            List<User> users = new ArrayList<>();
+            if (!response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                for (String json : splitJsonArray(content)) {
+                    if (json != null && !json.trim().isEmpty()) {
+                        User item = parseUserFromJson(json);
+                        if (item != null) {
+                            users.add(item);
+                        }
+                    }
+                }
+            }
+            return users;
+        } catch (Exception e) {
+            Logger.log("Error getting user page: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Updates an existing user
      * 
@@ -143,6 +275,7 @@ public class SupabaseUserDao {
             String response = SupabaseConnection.executePatch("users", jsonData, filter);
             
             if (response != null) {
+                searchIndex.put(user);
                 Logger.log("User updated successfully: " + user.getEmail());
                 return true;
             } else {
@@ -167,6 +300,7 @@ public class SupabaseUserDao {
             boolean success = SupabaseConnection.executeDelete("users", filter);
             
             if (success) {
+                searchIndex.remove(id);
                 Logger.log("User deleted successfully: ID " + id);
                 return true;
             } else {
@@ -182,27 +316,33 @@ public class SupabaseUserDao {
     /**
      * Searches users by name, email, or role
      * 
+     * Uses a single PostgREST or=() filter instead of one request per column.
+     * UserService answers from UserSearchIndex when it is loaded; this is the
+     * server-side fallback.
+     * 
      * @param searchTerm The search term
      * @return List of matching users
      */
     public List<User> searchUsers(String searchTerm) {
         List<User> users = new ArrayList<>();
         try {
-            // Search by name (case insensitive)
-            String nameQuery = "select=*&name=ilike.*" + searchTerm + "*";
-            String nameResponse = SupabaseConnection.executeGet("users", nameQuery);
-            addUsersFromResponse(users, nameResponse);
-            
-            // Search by email (case insensitive)
-            String emailQuery = "select=*&email=ilike.*" + searchTerm + "*";
-            String emailResponse = SupabaseConnection.executeGet("users", emailQuery);
-            addUsersFromResponse(users, emailResponse);
-            
-            // Search by role (exact match)
-            String roleQuery = "select=*&role=eq." + searchTerm;
-            String roleResponse = SupabaseConnection.executeGet("users", roleQuery);
-            addUsersFromResponse(users, roleResponse);
+            // Double-quote the term so commas and parentheses can't break the filter
+            String escaped = searchTerm.replace("\\", "\\\\").replace("\"", "\\\"");
+            String filter = "(name.ilike.\"*" + escaped + "*\",email.ilike.\"*" + escaped + "*\",role.eq.\"" + escaped + "\")";
+            String queryParams = "select=*&or=" + URLEncoder.encode(filter, StandardCharsets.UTF_8.name()) + "&order=id";
+            String response = SupabaseConnection.executeGet("users", queryParams);
             
+            if (response != null && !response.equals("[]")) {
+                String content = response.substring(1, response.length() - 1);
+                Map<Integer, User> unique = new LinkedHashMap<>();
+                for (String userJson : splitJsonArray(content)) {
+                    User user = parseUserFromJson(userJson);
+                    if (user != null) {
+                        unique.putIfAbsent(user.getId(), user);
+                    }
+                }
+                users.addAll(unique.values());
+            }
         } catch (Exception e) {
             Logger.log("Error searching users: " + e.getMessage());
         }
@@ -234,41 +374,20 @@ public class SupabaseUserDao {
     }
     
     /**
-     * Adds users from a JSON response to the list
+     * Builds the insert body for a user
      * 
-     * @param users List to add users to
-     * @param response JSON response string
+     * @param user The user
+     * @param withId Whether to send the client-assigned ID
+     * @return JSON object string
      */
-    private void addUsersFromResponse(List<User> users, String response) {
-        if (response != null && !response.equals("[]")) {
-            String content = response.substring(1, response.length() - 1);
-            String[] userJsons = splitJsonArray(content);
-            
-            for (String userJson : userJsons) {
-                if (userJson != null && !userJson.trim().isEmpty()) {
-                    User user = parseUserFromJson(userJson);
-                    if (user != null && !containsUser(users, user.getId())) {
-                        users.add(user);
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * Checks if a user list contains a user with the given ID
-     * 
-     * @param users List of users
-     * @param userId ID to check for
-     * @return true if found, false otherwise
-     */
-    private boolean containsUser(List<User> users, int userId) {
-        for (User user : users) {
-            if (user.getId() == userId) {
-                return true;
-            }
-        }
-        return false;
+    private String toInsertJson(User user, boolean withId) {
+        String json = JsonUtils.createJson(
+            "name", user.getName(),
+            "email", user.getEmail(),
+            "password", user.getPassword(),
+            "role", user.getRole()
+        );
+        return withId ? "{\"id\":" + user.getId() + "," + json.substring(1) : json;
     }
     
     /**
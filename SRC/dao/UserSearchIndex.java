@@ -0,0 +1,166 @@
+package dao;
+
+import model.User;
+import util.InvertedIndex;
+import util.Logger;
+import util.Page;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Client-side User Search Index
+ *
+ * This class answers patron searches on name, email and role locally. Word
+ * prefix matches come from an inverted index and rank first; substring matches
+ * anywhere in the text follow, ordered by ID. The last result list is kept
+ * so paging through it does not search again.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class UserSearchIndex {
+
+    private static final UserSearchIndex INSTANCE = new UserSearchIndex();
+
+    // Field weights: name matches rank above email, email above role
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final Map<Integer, User> users = new ConcurrentSkipListMap<>(); // ordered by ID
+    private final Map<Integer, String> searchText = new ConcurrentSkipListMap<>(); // ordered by ID
+    private volatile boolean loaded = false;
+    private volatile long version = 0;
+
+    private String lastQuery;
+    private long lastVersion = -1;
+    private List<Integer> lastResult = Collections.emptyList();
+
+    private UserSearchIndex() {
+    }
+
+    /**
+     * Gets the shared index instance
+     *
+     * @return The user search index
+     */
+    public static UserSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if the index has been built from a user snapshot
+     *
+     * @return true if searches can be answered locally
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Rebuilds the index from a full user snapshot
+     *
+     * @param snapshot All users
+     */
+    public synchronized void load(List<User> snapshot) {
+        index.clear();
+        users.clear();
+        searchText.clear();
+        for (User user : snapshot) {
+            indexUser(user);
+        }
+        loaded = true;
+        version++;
+        Logger.log("User search index built with " + users.size() + " users");
+    }
+
+    /**
+     * Adds or re-indexes a user after a write
+     *
+     * @param user The user that was saved
+     */
+    public synchronized void put(User user) {
+        if (loaded && user != null && user.getId() > 0) {
+            indexUser(user);
+            version++;
+        }
+    }
+
+    /**
+     * Removes a deleted user from the index
+     *
+     * @param userId The deleted user's ID
+     */
+    public synchronized void remove(int userId) {
+        index.remove(userId);
+        users.remove(userId);
+        searchText.remove(userId);
+        version++;
+    }
+
+    /**
+     * Searches users by name, email and role, returning one page of matches.
+     * Only the users on the requested page are looked up.
+     *
+     * @param query Text to look for (case-insensitive); empty returns every user by ID
+     * @param pageNumber Zero-based page number
+     * @param pageSize Users per page
+     * @return Matching users: word-prefix matches by relevance, then substring matches by ID
+     */
+    public Page<User> search(String query, int pageNumber, int pageSize) {
+        Page<Integer> ids = Page.of(searchIds(query == null ? "" : query.trim().toLowerCase()), pageNumber, pageSize);
+        List<User> results = new ArrayList<>(ids.getItems().size());
+        for (Integer id : ids.getItems()) {
+            User user = users.get(id);
+            if (user != null) {
+                results.add(user);
+            }
+        }
+        return new Page<>(results, ids.getPageNumber(), ids.getPageSize(), ids.getTotalCount());
+    }
+
+    /**
+     * Gets the number of indexed users
+     *
+     * @return User count
+     */
+    public int size() {
+        return users.size();
+    }
+
+    private synchronized List<Integer> searchIds(String query) {
+        if (query.equals(lastQuery) && lastVersion == version) {
+            return lastResult;
+        }
+
+        List<Integer> result;
+        if (query.isEmpty()) {
+            result = new ArrayList<>(users.keySet());
+        } else {
+            result = index.search(query, true);
+            Set<Integer> prefixHits = new HashSet<>(result);
+            result = new ArrayList<>(result);
+            for (Map.Entry<Integer, String> entry : searchText.entrySet()) {
+                if (entry.getValue().contains(query) && !prefixHits.contains(entry.getKey())) {
+                    result.add(entry.getKey());
+                }
+            }
+        }
+
+        lastQuery = query;
+        lastVersion = version;
+        lastResult = result;
+        return result;
+    }
+
+    private void indexUser(User user) {
+        users.put(user.getId(), user);
+        index.index(user.getId(), new String[] {user.getName(), user.getEmail(), user.getRole()}, FIELD_WEIGHTS);
+        searchText.put(user.getId(), (user.getName() + "\u0001" + user.getEmail() + "\u0001" + user.getRole()).toLowerCase());
+    }
+}
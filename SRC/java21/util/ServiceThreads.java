@@ -0,0 +1,32 @@
+package util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual Thread Support for ServiceExecutor (Java 21 version)
+ *
+ * Packed under META-INF/versions/21 of the multi-release jar, so Java 21+
+ * runtimes load this class instead of the Java 11 one. Every service call
+ * gets its own virtual thread, and thousands of calls can wait on Supabase
+ * at once without holding a platform thread each.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+final class ServiceThreads {
+
+    private ServiceThreads() {
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task
+     *
+     * @param name Thread name prefix
+     * @return The executor
+     */
+    static ExecutorService newVirtualExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+}
@@ -0,0 +1,332 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Durable key-value store made of a snapshot file and an append-only log.
+ * Values are grouped into named collections. Every put or remove is appended
+ * to the log, and forced to disk when sync is on, before the call returns.
+ * Once the log grows past the compaction threshold, the whole state is
+ * written to a new snapshot and the log starts over, so startup reads one
+ * snapshot plus a short tail however long the history is.
+ * Each record carries a CRC32; a torn record at the end of the log, left by
+ * a crash mid-write, is dropped on recovery.
+ */
+public class AppendOnlyStore {
+    private static final int MAGIC = 0x4C494253; // "LIBS"
+    private static final int FORMAT_VERSION = 1;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final String SNAPSHOT_FILE = "state.snapshot";
+    private static final String LOG_FILE = "state.log";
+
+    private final Path directory;
+    private final long compactThreshold;
+    private final boolean sync;
+    private final Logger logger = Logger.getInstance();
+    private final Map<String, Map<String, byte[]>> state = new LinkedHashMap<>();
+    private FileChannel log;
+    private long logSize;
+
+    /**
+     * Opens the store, loading the snapshot and replaying the log.
+     *
+     * @param directory the directory holding the snapshot and log
+     * @param compactThreshold log size in bytes that triggers a new snapshot
+     * @param sync whether every record is forced to disk before returning
+     * @throws DatabaseException if the files cannot be read or created
+     */
+    public AppendOnlyStore(Path directory, long compactThreshold, boolean sync) throws DatabaseException {
+        this.directory = directory;
+        this.compactThreshold = compactThreshold;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            loadSnapshot();
+            replayLog();
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to open state store in " + directory, e);
+        }
+        logger.logInfo("State store opened: " + directory + " (" + countEntries() + " entries, log " + logSize + " bytes)");
+    }
+
+    /**
+     * Gets every value of a collection in insertion order.
+     *
+     * @param collection the collection name
+     * @return a copy of the collection's keys and encoded values
+     */
+    public synchronized Map<String, byte[]> getAll(String collection) {
+        Map<String, byte[]> values = state.get(collection);
+        return values != null ? new LinkedHashMap<>(values) : new LinkedHashMap<>();
+    }
+
+    /**
+     * Checks whether the store holds nothing, i.e. this is a first start.
+     *
+     * @return true if no collection has entries
+     */
+    public synchronized boolean isEmpty() {
+        return countEntries() == 0;
+    }
+
+    /**
+     * Stores a value, replacing any previous one under the key.
+     *
+     * @param collection the collection name
+     * @param key the key within the collection
+     * @param value the encoded value
+     * @throws DatabaseException if the log cannot be written
+     */
+    public synchronized void put(String collection, String key, byte[] value) throws DatabaseException {
+        append(OP_PUT, collection, key, value);
+        state.computeIfAbsent(collection, name -> new LinkedHashMap<>()).put(key, value);
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param collection the collection name
+     * @param key the key within the collection
+     * @throws DatabaseException if the log cannot be written
+     */
+    public synchronized void remove(String collection, String key) throws DatabaseException {
+        Map<String, byte[]> values = state.get(collection);
+        if (values == null || !values.containsKey(key)) {
+            return;
+        }
+        append(OP_REMOVE, collection, key, null);
+        values.remove(key);
+        compactIfNeeded();
+    }
+
+    /**
+     * Writes the current state to a new snapshot and empties the log.
+     * The snapshot is written to a temporary file and renamed into place,
+     * so a crash leaves either the old or the new snapshot.
+     *
+     * @throws DatabaseException if the snapshot cannot be written
+     */
+    public synchronized void compact() throws DatabaseException {
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(8);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                writeFully(channel, header);
+                for (Map.Entry<String, Map<String, byte[]>> collection : state.entrySet()) {
+                    for (Map.Entry<String, byte[]> entry : collection.getValue().entrySet()) {
+                        writeFully(channel, encodeRecord(OP_PUT, collection.getKey(), entry.getKey(), entry.getValue()));
+                    }
+                }
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Replaying the old log over the new snapshot is harmless, so a crash here loses nothing
+            log.truncate(0);
+            log.force(true);
+            logSize = 0;
+            logger.logInfo("State store compacted: " + countEntries() + " entries");
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to write state snapshot", e);
+        }
+    }
+
+    /**
+     * Compacts the log and closes the store.
+     */
+    public synchronized void close() {
+        if (log == null) {
+            return;
+        }
+        try {
+            if (logSize > 0) {
+                compact();
+            }
+        } catch (DatabaseException e) {
+            logger.logError("Failed to compact state store on close", e);
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.logError("Failed to close state log", e);
+        }
+        log = null;
+    }
+
+    private void append(byte op, String collection, String key, byte[] value) throws DatabaseException {
+        if (log == null) {
+            throw new DatabaseException("State store is closed");
+        }
+        try {
+            ByteBuffer record = encodeRecord(op, collection, key, value);
+            int length = record.remaining();
+            writeFully(log, record);
+            if (sync) {
+                log.force(false);
+            }
+            logSize += length;
+        } catch (IOException e) {
+            try {
+                // Cut off a partly written record so later appends stay readable
+                log.truncate(logSize);
+                log.position(logSize);
+            } catch (IOException truncateError) {
+                logger.logError("Failed to cut partial record from state log", truncateError);
+            }
+            throw new DatabaseException("Failed to append to state log", e);
+        }
+    }
+
+    private void compactIfNeeded() throws DatabaseException {
+        if (logSize >= compactThreshold) {
+            compact();
+        }
+    }
+
+    // Record layout: payload length, CRC32 of payload, payload (op, collection, key[, value length, value])
+    private static ByteBuffer encodeRecord(byte op, String collection, String key, byte[] value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (value != null ? value.length : 0));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        out.writeUTF(collection);
+        out.writeUTF(key);
+        if (op == OP_PUT) {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void loadSnapshot() throws IOException, DatabaseException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new DatabaseException("Unrecognized state snapshot: " + snapshot);
+            }
+            while (readRecord(in) != null) {
+                // applied by readRecord
+            }
+        } catch (CorruptRecordException e) {
+            throw new DatabaseException("State snapshot is corrupt: " + snapshot, e);
+        }
+    }
+
+    private void replayLog() throws IOException {
+        Path logPath = directory.resolve(LOG_FILE);
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            Integer length;
+            while ((length = readRecord(in)) != null) {
+                validBytes += 8 + length;
+            }
+        } catch (CorruptRecordException e) {
+            logger.logWarning("Dropping torn state log tail after " + validBytes + " bytes: " + e.getMessage());
+        }
+        if (validBytes < log.size()) {
+            log.truncate(validBytes);
+        }
+        log.position(validBytes);
+        logSize = validBytes;
+    }
+
+    /**
+     * Reads and applies one record.
+     *
+     * @return the payload length, or null at a clean end of input
+     */
+    private Integer readRecord(DataInputStream in) throws IOException, CorruptRecordException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            int checksum = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                throw new CorruptRecordException("bad record length " + length);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                throw new CorruptRecordException("checksum mismatch");
+            }
+            apply(payload);
+            return length;
+        } catch (EOFException e) {
+            throw new CorruptRecordException("truncated record");
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String collection = in.readUTF();
+        String key = in.readUTF();
+        if (op == OP_PUT) {
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            state.computeIfAbsent(collection, name -> new LinkedHashMap<>()).put(key, value);
+        } else if (op == OP_REMOVE) {
+            Map<String, byte[]> values = state.get(collection);
+            if (values != null) {
+                values.remove(key);
+            }
+        }
+    }
+
+    private int countEntries() {
+        int count = 0;
+        for (Map<String, byte[]> values : state.values()) {
+            count += values.size();
+        }
+        return count;
+    }
+
+    private static class CorruptRecordException extends Exception {
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
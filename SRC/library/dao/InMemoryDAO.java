@@ -0,0 +1,60 @@
+package library.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * BaseDAO over a concurrent map, keyed by the entity's ID.
+ * Nothing survives the process; used for tests, benchmarks and demos.
+ */
+public class InMemoryDAO<T> implements BaseDAO<T> {
+    private final Map<String, T> entities = new ConcurrentHashMap<>();
+    private final Function<T, String> idOf;
+
+    /**
+     * Creates an empty DAO.
+     *
+     * @param idOf gets an entity's ID as a string
+     */
+    public InMemoryDAO(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    @Override
+    public boolean save(T entity) {
+        return entities.putIfAbsent(idOf.apply(entity), entity) == null;
+    }
+
+    @Override
+    public boolean update(T entity) {
+        return entities.replace(idOf.apply(entity), entity) != null;
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return id != null && entities.remove(id) != null;
+    }
+
+    @Override
+    public T findById(String id) {
+        return id != null ? entities.get(id) : null;
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(entities.values());
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return id != null && entities.containsKey(id);
+    }
+
+    @Override
+    public int count() {
+        return entities.size();
+    }
+}
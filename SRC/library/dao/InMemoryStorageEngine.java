@@ -0,0 +1,46 @@
+package library.dao;
+
+import library.model.Book;
+import library.model.Category;
+import library.model.Loan;
+import library.model.User;
+
+/**
+ * Storage engine keeping everything in process memory.
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+    private final InMemoryDAO<Book> books = new InMemoryDAO<>(Book::getId);
+    private final InMemoryDAO<User> users = new InMemoryDAO<>(User::getId);
+    private final InMemoryDAO<Loan> loans = new InMemoryDAO<>(Loan::getId);
+    private final InMemoryDAO<Category> categories = new InMemoryDAO<>(category -> String.valueOf(category.getId()));
+
+    @Override
+    public String getName() {
+        return StorageEngines.MEMORY;
+    }
+
+    @Override
+    public BaseDAO<Book> books() {
+        return books;
+    }
+
+    @Override
+    public BaseDAO<User> users() {
+        return users;
+    }
+
+    @Override
+    public BaseDAO<Loan> loans() {
+        return loans;
+    }
+
+    @Override
+    public BaseDAO<Category> categories() {
+        return categories;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,101 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * HashMap that records put, remove and clear in an {@link AppendOnlyStore}.
+ * Entities changed in place must be re-recorded with {@link #update(Object)}.
+ * Changes made through views (keySet, values, entrySet) or the compute/merge
+ * methods are not recorded. A failed write is logged and the in-memory
+ * change is kept.
+ */
+public class JournaledMap<K, V> extends HashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient AppendOnlyStore store;
+    private final String collection;
+    private final transient Function<V, byte[]> encoder;
+
+    /**
+     * Creates an empty map recording into one store collection.
+     *
+     * @param store the backing store
+     * @param collection the collection name in the store
+     * @param encoder encodes a value for storage
+     */
+    public JournaledMap(AppendOnlyStore store, String collection, Function<V, byte[]> encoder) {
+        this.store = store;
+        this.collection = collection;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Adds an entry that was read back from the store, without recording it.
+     *
+     * @param key the key
+     * @param value the restored value
+     */
+    public void restore(K key, V value) {
+        super.put(key, value);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = super.put(key, value);
+        record(key, value);
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        boolean present = containsKey(key);
+        V previous = super.remove(key);
+        if (present) {
+            try {
+                store.remove(collection, String.valueOf(key));
+            } catch (DatabaseException e) {
+                Logger.getInstance().logError("Failed to record removal from " + collection + ": " + key, e);
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (Object key : keySet().toArray()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Records the current state of an entry after it was changed in place.
+     *
+     * @param key the key of the changed entry
+     */
+    public void update(K key) {
+        V value = get(key);
+        if (value != null) {
+            record(key, value);
+        }
+    }
+
+    private void record(K key, V value) {
+        try {
+            store.put(collection, String.valueOf(key), encoder.apply(value));
+        } catch (DatabaseException e) {
+            Logger.getInstance().logError("Failed to record change in " + collection + ": " + key, e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package library.dao;
+
+import library.model.Book;
+import library.model.BorrowRequest;
+import library.model.Category;
+import library.model.Loan;
+import library.model.LoanStatus;
+import library.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Binary encoding of the library entities kept in an {@link AppendOnlyStore}.
+ * Only stored fields are written; links between entities (a book's active
+ * loans, a user's loan history) are rebuilt from the loans after loading.
+ * A book refers to its category by ID, so categories must be decoded first.
+ * Every record starts with a format version byte; a record from a newer
+ * version is rejected rather than misread.
+ */
+public final class LibraryStateCodec {
+    public static final String BOOKS = "books";
+    public static final String USERS = "users";
+    public static final String LOANS = "loans";
+    public static final String CATEGORIES = "categories";
+    public static final String BORROW_REQUESTS = "borrowRequests";
+
+    // Bump when a record layout changes, and keep reading the older layouts in decode
+    static final int FORMAT_VERSION = 1;
+
+    private LibraryStateCodec() {
+    }
+
+    public static byte[] encodeBook(Book book) {
+        return encode(out -> {
+            out.writeUTF(book.getId());
+            writeString(out, book.getTitle());
+            writeString(out, book.getAuthor());
+            writeString(out, book.getIsbn());
+            out.writeInt(book.getPublicationYear());
+            out.writeInt(book.getTotalCopies());
+            out.writeInt(book.getAvailableCopies());
+            out.writeInt(book.getCategory() != null ? book.getCategory().getId() : -1);
+            out.writeInt(book.getReservationCount());
+            for (String userId : book.getReservedByUsers()) {
+                out.writeUTF(userId);
+            }
+        });
+    }
+
+    public static Book decodeBook(byte[] data, Map<Integer, Category> categories) {
+        return decode(data, in -> {
+            Book book = new Book(in.readUTF(), readString(in), readString(in), readString(in), in.readInt(),
+                    in.readInt(), in.readInt());
+            int categoryId = in.readInt();
+            if (categoryId >= 0) {
+                book.setCategory(categories.get(categoryId));
+            }
+            int reservations = in.readInt();
+            for (int i = 0; i < reservations; i++) {
+                book.addReservation(in.readUTF());
+            }
+            return book;
+        });
+    }
+
+    public static byte[] encodeUser(User user) {
+        return encode(out -> {
+            out.writeUTF(user.getId());
+            writeString(out, user.getName());
+            writeString(out, user.getEmail());
+            writeString(out, user.getPhone());
+            out.writeBoolean(user.isActive());
+        });
+    }
+
+    public static User decodeUser(byte[] data) {
+        return decode(data, in -> {
+            User user = new User(in.readUTF(), readString(in), readString(in), readString(in));
+            user.setActive(in.readBoolean());
+            return user;
+        });
+    }
+
+    public static byte[] encodeLoan(Loan loan) {
+        return encode(out -> {
+            out.writeUTF(loan.getId());
+            out.writeUTF(loan.getUserId());
+            out.writeUTF(loan.getBookId());
+            writeDateTime(out, loan.getLoanDate());
+            writeDateTime(out, loan.getDueDate());
+            writeDateTime(out, loan.getReturnDate());
+            out.writeUTF(loan.getStatus().name());
+            out.writeDouble(loan.getFineAmount());
+            writeString(out, loan.getNotes());
+        });
+    }
+
+    public static Loan decodeLoan(byte[] data) {
+        return decode(data, in -> {
+            Loan loan = new Loan(in.readUTF(), in.readUTF(), in.readUTF(), readDateTime(in), readDateTime(in),
+                    readDateTime(in), LoanStatus.valueOf(in.readUTF()), in.readDouble());
+            loan.setNotes(readString(in));
+            return loan;
+        });
+    }
+
+    public static byte[] encodeCategory(Category category) {
+        return encode(out -> {
+            out.writeInt(category.getId());
+            writeString(out, category.getName());
+            writeString(out, category.getDescription());
+        });
+    }
+
+    public static Category decodeCategory(byte[] data) {
+        return decode(data, in -> new Category(in.readInt(), readString(in), readString(in)));
+    }
+
+    public static byte[] encodeBorrowRequest(BorrowRequest request) {
+        return encode(out -> {
+            out.writeUTF(request.getRequestId());
+            writeString(out, request.getUsername());
+            writeString(out, request.getBookId());
+            writeString(out, request.getRequestDate() != null ? request.getRequestDate().toString() : null);
+            writeString(out, request.getReturnDate() != null ? request.getReturnDate().toString() : null);
+            out.writeUTF(request.getStatus().name());
+        });
+    }
+
+    public static BorrowRequest decodeBorrowRequest(byte[] data) {
+        return decode(data, in -> {
+            String requestId = in.readUTF();
+            String username = readString(in);
+            String bookId = readString(in);
+            String requestDate = readString(in);
+            String returnDate = readString(in);
+            BorrowRequest request = new BorrowRequest(requestId, username, bookId,
+                    returnDate != null ? LocalDate.parse(returnDate) : null);
+            if (requestDate != null) {
+                request.setRequestDate(LocalDate.parse(requestDate));
+            }
+            request.setStatus(BorrowRequest.RequestStatus.valueOf(in.readUTF()));
+            return request;
+        });
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T decode(byte[] data, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported saved state format version " + version);
+            }
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeString(out, value != null ? value.toString() : null);
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+}
@@ -0,0 +1,335 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.LoanEvent;
+import library.util.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of loan lifecycle events in memory-mapped segment files.
+ * Every event is a fixed 128-byte record, so appending is a copy into the
+ * mapped page cache with no system call; the data survives a crash of the
+ * application and reaches disk when the OS flushes or the segment is forced
+ * on rollover, {@link #flush()} or {@link #close()}. A segment holds a fixed
+ * number of records and is named after its first sequence number; when it
+ * is full the next one is created. Each record has a CRC32, and reading
+ * stops at the first empty or torn slot.
+ */
+public class LoanEventJournal {
+    static final int RECORD_SIZE = 128;
+    private static final int ID_FIELD_SIZE = 28;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final String SEGMENT_PREFIX = "loan-events-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final Logger logger = Logger.getInstance();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    /**
+     * Opens the journal, continuing after the last valid record.
+     *
+     * @param directory the directory holding the segment files
+     * @param recordsPerSegment records per segment file
+     * @throws DatabaseException if the segments cannot be opened
+     */
+    public LoanEventJournal(Path directory, int recordsPerSegment) throws DatabaseException {
+        this.directory = directory;
+        this.recordsPerSegment = Math.max(1, recordsPerSegment);
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments(directory);
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                long start = segments.get(segments.size() - 1);
+                openSegment(start);
+                int slot = 0;
+                while (slot < this.recordsPerSegment && readRecord(segment, slot) != null) {
+                    slot++;
+                }
+                segment.position(slot * RECORD_SIZE);
+                nextSequence = start + slot;
+            }
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to open loan event journal in " + directory, e);
+        }
+        logger.logInfo("Loan event journal opened at sequence " + nextSequence);
+    }
+
+    /**
+     * Appends an event.
+     *
+     * @param event the event; its sequence number is ignored
+     * @return the sequence number assigned to the event
+     * @throws DatabaseException if a new segment cannot be created
+     */
+    public synchronized long append(LoanEvent event) throws DatabaseException {
+        if (segment == null) {
+            throw new DatabaseException("Loan event journal is closed");
+        }
+        if (!segment.hasRemaining()) {
+            rollOver();
+        }
+        long sequence = nextSequence++;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(sequence);
+        record.putLong(toMillis(event.getTimestamp()));
+        record.putLong(event.getDueDate() != null ? toMillis(event.getDueDate()) : NO_DATE);
+        record.putDouble(event.getFineAmount());
+        record.putInt(event.getType().ordinal());
+        putId(record, event.getLoanId());
+        putId(record, event.getUserId());
+        putId(record, event.getBookId());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt(CRC_OFFSET, (int) crc.getValue());
+        segment.put(record.array());
+        return sequence;
+    }
+
+    /**
+     * Gets the sequence number the next event will get.
+     *
+     * @return the next sequence number
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Opens a reader positioned at a sequence number.
+     *
+     * @param fromSequence the first sequence number to return
+     * @return a reader; it sees events appended after it was opened
+     */
+    public Reader openReader(long fromSequence) {
+        return new Reader(directory, recordsPerSegment, Math.max(1, fromSequence));
+    }
+
+    /**
+     * Forces appended events to disk.
+     */
+    public synchronized void flush() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Forces appended events to disk and closes the current segment.
+     */
+    public synchronized void close() {
+        if (segment == null) {
+            return;
+        }
+        segment.force();
+        segment = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.logError("Failed to close loan event journal", e);
+        }
+    }
+
+    /**
+     * Sequential reader over the journal segments.
+     */
+    public static class Reader {
+        private final Path directory;
+        private final int recordsPerSegment;
+        private long nextSequence;
+        private long segmentStart = -1;
+        private MappedByteBuffer segment;
+
+        Reader(Path directory, int recordsPerSegment, long fromSequence) {
+            this.directory = directory;
+            this.recordsPerSegment = recordsPerSegment;
+            this.nextSequence = fromSequence;
+        }
+
+        /**
+         * Reads the next event.
+         *
+         * @return the next event, or null if the reader has caught up with the writer
+         * @throws DatabaseException if a segment cannot be read
+         */
+        public LoanEvent next() throws DatabaseException {
+            try {
+                if (segment == null || nextSequence >= segmentStart + recordsPerSegment) {
+                    if (!mapSegmentFor(nextSequence)) {
+                        return null;
+                    }
+                }
+                LoanEvent event = readRecord(segment, (int) (nextSequence - segmentStart));
+                if (event == null || event.getSequence() != nextSequence) {
+                    return null;
+                }
+                nextSequence++;
+                return event;
+            } catch (IOException e) {
+                throw new DatabaseException("Failed to read loan event journal", e);
+            }
+        }
+
+        /**
+         * Reads up to a number of events.
+         *
+         * @param max the most events to return
+         * @return the events read, possibly none
+         * @throws DatabaseException if a segment cannot be read
+         */
+        public List<LoanEvent> next(int max) throws DatabaseException {
+            List<LoanEvent> events = new ArrayList<>();
+            LoanEvent event;
+            while (events.size() < max && (event = next()) != null) {
+                events.add(event);
+            }
+            return events;
+        }
+
+        /**
+         * Gets the sequence number of the event the next call returns.
+         *
+         * @return the reader position
+         */
+        public long getPosition() {
+            return nextSequence;
+        }
+
+        private boolean mapSegmentFor(long sequence) throws IOException {
+            long start = ((sequence - 1) / recordsPerSegment) * recordsPerSegment + 1;
+            Path file = segmentPath(directory, start);
+            if (!Files.exists(file)) {
+                // Older journals may have used another segment size; fall back to the file listing
+                start = -1;
+                for (long candidate : listSegments(directory)) {
+                    if (candidate <= sequence) {
+                        start = candidate;
+                    }
+                }
+                if (start < 0 || sequence >= start + recordsPerSegment) {
+                    return false;
+                }
+                file = segmentPath(directory, start);
+            }
+            try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                segment = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, (long) recordsPerSegment * RECORD_SIZE);
+            }
+            segmentStart = start;
+            return true;
+        }
+    }
+
+    private void rollOver() throws DatabaseException {
+        segment.force();
+        try {
+            channel.close();
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to roll over loan event journal", e);
+        }
+    }
+
+    private void openSegment(long startSequence) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, startSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        nextSequence = startSequence;
+    }
+
+    private static Path segmentPath(Path directory, long startSequence) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, startSequence, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    starts.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment
+                }
+            }
+        }
+        Collections.sort(starts);
+        return starts;
+    }
+
+    // Returns null for an empty slot or a record whose checksum does not match
+    private static LoanEvent readRecord(ByteBuffer buffer, int slot) {
+        int offset = slot * RECORD_SIZE;
+        long sequence = buffer.getLong(offset);
+        if (sequence == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[RECORD_SIZE];
+        for (int i = 0; i < RECORD_SIZE; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, CRC_OFFSET);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        if (record.getInt(CRC_OFFSET) != (int) crc.getValue()) {
+            return null;
+        }
+        record.position(8);
+        LocalDateTime timestamp = fromMillis(record.getLong());
+        long due = record.getLong();
+        double fine = record.getDouble();
+        LoanEvent.Type type = LoanEvent.Type.fromCode(record.getInt());
+        String loanId = getId(record);
+        String userId = getId(record);
+        String bookId = getId(record);
+        return new LoanEvent(sequence, timestamp, type, loanId, userId, bookId,
+                due != NO_DATE ? fromMillis(due) : null, fine);
+    }
+
+    // An ID field is a length byte followed by up to 27 UTF-8 bytes
+    private static void putId(ByteBuffer record, String id) {
+        byte[] bytes = id != null ? id.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = Math.min(bytes.length, ID_FIELD_SIZE - 1);
+        int start = record.position();
+        record.put((byte) length);
+        record.put(bytes, 0, length);
+        record.position(start + ID_FIELD_SIZE);
+    }
+
+    private static String getId(ByteBuffer record) {
+        int start = record.position();
+        int length = record.get() & 0xFF;
+        String id = new String(record.array(), start + 1, length, StandardCharsets.UTF_8);
+        record.position(start + ID_FIELD_SIZE);
+        return id;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,138 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.LoanEvent;
+import library.util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies loan events from the journal into the loan_history table.
+ * Runs in the background and inserts events in batches, one transaction per
+ * batch; the last copied sequence number is kept in system_config under
+ * loan_history_sequence, in the same transaction, so every event is copied
+ * exactly once across restarts. loan_history references loans, so this is
+ * meant for the SQLite backend where the loans themselves are stored.
+ */
+public class LoanHistoryMirror {
+    private static final String CHECKPOINT_KEY = "loan_history_sequence";
+    private static final String INSERT_HISTORY =
+            "INSERT INTO loan_history (loan_id, action, action_date, notes) VALUES (?, ?, ?, ?)";
+    private static final String SAVE_CHECKPOINT =
+            "INSERT OR REPLACE INTO system_config (config_key, config_value, description) "
+            + "VALUES ('" + CHECKPOINT_KEY + "', ?, 'Last loan event copied into loan_history')";
+
+    private final LoanEventJournal journal;
+    private final SQLiteDatabase database;
+    private final int batchSize;
+    private final Logger logger = Logger.getInstance();
+    private ScheduledExecutorService scheduler;
+    private LoanEventJournal.Reader reader;
+    private long mirroredSequence;
+
+    /**
+     * Creates a mirror, resuming after the last copied event.
+     *
+     * @param journal the journal to read
+     * @param database the database holding loan_history
+     * @param batchSize the most events inserted per transaction
+     * @throws DatabaseException if the checkpoint cannot be read
+     */
+    public LoanHistoryMirror(LoanEventJournal journal, SQLiteDatabase database, int batchSize) throws DatabaseException {
+        this.journal = journal;
+        this.database = database;
+        this.batchSize = Math.max(1, batchSize);
+        List<String> saved = database.query("SELECT config_value FROM system_config WHERE config_key = ?",
+                rs -> rs.getString(1), CHECKPOINT_KEY);
+        this.mirroredSequence = parseSequence(saved.isEmpty() ? null : saved.get(0));
+        this.reader = journal.openReader(mirroredSequence + 1);
+    }
+
+    /**
+     * Copies pending events every interval until {@link #stop()}.
+     *
+     * @param intervalSeconds seconds between runs
+     */
+    public synchronized void start(int intervalSeconds) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loan-history-mirror");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                mirrorPending();
+            } catch (DatabaseException e) {
+                logger.logError("Failed to copy loan events into loan_history", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Copies every event not yet in loan_history.
+     *
+     * @return the number of events copied
+     * @throws DatabaseException if a batch fails; it is retried on the next run
+     */
+    public synchronized int mirrorPending() throws DatabaseException {
+        int copied = 0;
+        List<LoanEvent> events;
+        while (!(events = reader.next(batchSize)).isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(events.size());
+            for (LoanEvent event : events) {
+                rows.add(new Object[] {event.getLoanId(), event.getType().name(),
+                        SQLiteDatabase.formatTimestamp(event.getTimestamp()), describe(event)});
+            }
+            long last = events.get(events.size() - 1).getSequence();
+            try {
+                database.inTransaction(() -> {
+                    database.batch(INSERT_HISTORY, rows);
+                    database.update(SAVE_CHECKPOINT, String.valueOf(last));
+                    return null;
+                });
+            } catch (DatabaseException e) {
+                reader = journal.openReader(mirroredSequence + 1);
+                throw e;
+            }
+            mirroredSequence = last;
+            copied += events.size();
+        }
+        return copied;
+    }
+
+    /**
+     * Stops the background runs after copying what is pending.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        try {
+            mirrorPending();
+        } catch (DatabaseException e) {
+            logger.logError("Failed to copy loan events into loan_history on stop", e);
+        }
+    }
+
+    private static String describe(LoanEvent event) {
+        return String.format("user=%s book=%s due=%s fine=%.2f seq=%d", event.getUserId(), event.getBookId(),
+                event.getDueDate() != null ? SQLiteDatabase.formatTimestamp(event.getDueDate()) : "-",
+                event.getFineAmount(), event.getSequence());
+    }
+
+    private static long parseSequence(String value) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
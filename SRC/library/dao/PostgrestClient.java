@@ -0,0 +1,122 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Small client for the Supabase REST (PostgREST) API.
+ * Non-2xx responses and I/O failures become DatabaseExceptions.
+ */
+public class PostgrestClient {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String restUrl;
+    private final String apiKey;
+
+    /**
+     * Creates a client.
+     *
+     * @param projectUrl the Supabase project URL
+     * @param apiKey the API key sent as apikey and bearer token
+     * @throws DatabaseException if the URL or key is missing
+     */
+    public PostgrestClient(String projectUrl, String apiKey) throws DatabaseException {
+        if (projectUrl == null || projectUrl.trim().isEmpty() || apiKey == null || apiKey.trim().isEmpty()) {
+            throw new DatabaseException("Supabase URL and key must be configured (supabase.url, supabase.key)");
+        }
+        String base = projectUrl.trim();
+        this.restUrl = (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + "/rest/v1/";
+        this.apiKey = apiKey.trim();
+    }
+
+    public String get(String table, String query) throws DatabaseException {
+        return send(builder(table, query).GET(), table).body();
+    }
+
+    public String post(String table, String json) throws DatabaseException {
+        return send(builder(table, null).header("Prefer", "return=representation")
+                .POST(HttpRequest.BodyPublishers.ofString(json)), table).body();
+    }
+
+    public String patch(String table, String query, String json) throws DatabaseException {
+        return send(builder(table, query).header("Prefer", "return=representation")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json)), table).body();
+    }
+
+    public String delete(String table, String query) throws DatabaseException {
+        return send(builder(table, query).header("Prefer", "return=representation").DELETE(), table).body();
+    }
+
+    /**
+     * Counts matching rows without transferring them.
+     *
+     * @param table the table
+     * @param query filter parameters, or null for all rows
+     * @return the row count
+     * @throws DatabaseException if the request fails
+     */
+    public int count(String table, String query) throws DatabaseException {
+        String filter = "select=id" + (query != null && !query.isEmpty() ? "&" + query : "");
+        HttpResponse<String> response = send(builder(table, filter)
+                .header("Prefer", "count=exact").header("Range", "0-0").GET(), table);
+        // Content-Range: 0-0/123 (or */0 when empty)
+        String range = response.headers().firstValue("Content-Range").orElse("");
+        int slash = range.lastIndexOf('/');
+        try {
+            return slash >= 0 ? Integer.parseInt(range.substring(slash + 1)) : 0;
+        } catch (NumberFormatException e) {
+            throw new DatabaseException("Unexpected Content-Range from " + table + ": " + range);
+        }
+    }
+
+    /**
+     * Encodes a value for use in a filter such as id=eq.value.
+     *
+     * @param value the raw value
+     * @return the URL-encoded value
+     */
+    public static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder builder(String table, String query) {
+        String url = restUrl + table + (query != null && !query.isEmpty() ? "?" + query : "");
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("apikey", apiKey)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String table) throws DatabaseException {
+        try {
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new DatabaseException("Supabase request on " + table + " failed: "
+                        + response.statusCode() + " - " + response.body());
+            }
+            return response;
+        } catch (IOException e) {
+            throw new DatabaseException("Supabase request on " + table + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted during Supabase request on " + table, e);
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.ConfigManager;
+import library.util.Logger;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background backups of the SQLite database as compressed page archives.
+ * Each run takes a consistent copy with SQLite's online backup API on its
+ * own connection, a few pages per step at the rate set by
+ * backup.throttle.kbps. The connection holds one read transaction for the
+ * whole copy, so in WAL mode checkouts keep writing meanwhile and the copy
+ * never restarts; the WAL cannot be checkpointed past that snapshot until
+ * the copy ends. The copy
+ * is then read page by page at the same rate and compared with the page
+ * hashes of the previous backup: a full archive holds every page, an
+ * incremental one only the pages that changed. Every backup.full.every runs
+ * a new full archive starts a fresh chain. Chains whose newest archive is
+ * older than backup.retention.days are deleted as a whole, so no retained
+ * incremental loses its base. The time of the last backup is kept in
+ * system_config under last_backup.
+ */
+public class SQLiteBackupManager {
+    private static final int MAGIC = 0x4C42414B; // "LBAK"
+    private static final int FORMAT_VERSION = 1;
+    private static final byte FULL = 0;
+    private static final byte INCREMENTAL = 1;
+    private static final String ARCHIVE_PREFIX = "library-";
+    private static final String ARCHIVE_SUFFIX = ".bak.gz";
+    private static final String MANIFEST_FILE = "backup.manifest";
+    private static final int SNAPSHOT_STEP_PAGES = 64;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final SQLiteDatabase database;
+    private final Path directory;
+    private final int retentionDays;
+    private final int fullEvery;
+    private final long bytesPerSecond;
+    private final Logger logger = Logger.getInstance();
+    // Guards scheduler only, so stop() never waits for the monitor a running backup holds
+    private final Object schedulerLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a backup manager using backup.directory, backup.retention.days,
+     * backup.full.every and backup.throttle.kbps.
+     *
+     * @param database the database to back up
+     */
+    public SQLiteBackupManager(SQLiteDatabase database) {
+        ConfigManager config = ConfigManager.getInstance();
+        this.database = database;
+        this.directory = Paths.get(config.getBackupDirectory());
+        this.retentionDays = config.getBackupRetentionDays();
+        this.fullEvery = Math.max(1, config.getIntProperty("backup.full.every", 7));
+        this.bytesPerSecond = Math.max(64, config.getIntProperty("backup.throttle.kbps", 4096)) * 1024L;
+    }
+
+    /**
+     * Backs up every interval, starting soon if the last backup is older than one interval.
+     *
+     * @param intervalHours hours between backups
+     */
+    public void start(int intervalHours) {
+        synchronized (schedulerLock) {
+            if (scheduler != null) {
+                return;
+            }
+            long intervalMinutes = Math.max(1, intervalHours) * 60L;
+            long initialDelay = intervalMinutes;
+            LocalDateTime last = getLastBackup();
+            if (last == null || last.plusMinutes(intervalMinutes).isBefore(LocalDateTime.now())) {
+                initialDelay = 1;
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "library-backup");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    backup();
+                } catch (DatabaseException e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        logger.logInfo("Scheduled backup abandoned");
+                    } else {
+                        logger.logError("Scheduled backup failed", e);
+                    }
+                }
+            }, initialDelay, intervalMinutes, TimeUnit.MINUTES);
+            logger.logInfo("Automatic backups every " + intervalHours + "h into " + directory);
+        }
+    }
+
+    /**
+     * Stops scheduled backups without waiting; a backup in progress is
+     * interrupted and abandoned. The rest of its snapshot copy runs
+     * unthrottled, and no archive is written.
+     */
+    public void stop() {
+        synchronized (schedulerLock) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+    }
+
+    /**
+     * Takes a backup now: full if there is no usable previous one or the
+     * chain is long enough, otherwise incremental. Then prunes old chains.
+     *
+     * @return the archive written
+     * @throws DatabaseException if the snapshot or archive cannot be written
+     */
+    public synchronized Path backup() throws DatabaseException {
+        String url = database.getUrl();
+        if (url.contains(":memory:") || url.contains("mode=memory")) {
+            throw new DatabaseException("An in-memory database cannot be backed up");
+        }
+        long started = System.currentTimeMillis();
+        Path snapshot = directory.resolve("snapshot.tmp");
+        try {
+            Files.createDirectories(directory);
+            checkInterrupted();
+            takeSnapshot(url, snapshot);
+            checkInterrupted();
+            Manifest previous = Manifest.read(directory.resolve(MANIFEST_FILE));
+            LocalDateTime now = LocalDateTime.now();
+            boolean full = previous == null || previous.chainLength >= fullEvery
+                    || !Files.exists(directory.resolve(previous.archive));
+            String name = ARCHIVE_PREFIX + now.format(NAME_FORMAT) + (full ? "-full" : "-incr") + ARCHIVE_SUFFIX;
+            Manifest written = writeArchive(snapshot, directory.resolve(name), full ? null : previous);
+            checkInterrupted();
+            written.archive = name;
+            written.chainLength = full ? 1 : previous.chainLength + 1;
+            written.write(directory.resolve(MANIFEST_FILE));
+            database.update("UPDATE system_config SET config_value = ?, updated_at = CURRENT_TIMESTAMP "
+                    + "WHERE config_key = 'last_backup'", SQLiteDatabase.formatTimestamp(now));
+            logger.logInfo(String.format("Backup %s: %d of %d pages in %d ms", name, written.changedPages,
+                    written.hashes.length, System.currentTimeMillis() - started));
+            prune();
+            return directory.resolve(name);
+        } catch (IOException | SQLException e) {
+            throw new DatabaseException("Backup failed", e);
+        } finally {
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException e) {
+                logger.logWarning("Failed to delete backup snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds a database file from an archive and the archives it builds on.
+     *
+     * @param archive the archive to restore
+     * @param target the database file to write; must not be open
+     * @throws DatabaseException if an archive in the chain is missing or damaged
+     */
+    public static void restore(Path archive, Path target) throws DatabaseException {
+        Deque<Path> chain = new ArrayDeque<>();
+        try {
+            Path current = archive;
+            while (current != null) {
+                chain.push(current);
+                String parent = readHeader(current).parent;
+                current = parent.isEmpty() ? null : archive.resolveSibling(parent);
+            }
+            Path temp = target.resolveSibling(target.getFileName() + ".restore");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long size = 0;
+                for (Path part : chain) {
+                    try (DataInputStream in = openArchive(part)) {
+                        Header header = Header.read(in);
+                        byte[] page = new byte[header.pageSize];
+                        int pageNumber;
+                        while ((pageNumber = in.readInt()) >= 0) {
+                            in.readFully(page);
+                            ByteBuffer buffer = ByteBuffer.wrap(page);
+                            long position = (long) pageNumber * header.pageSize;
+                            while (buffer.hasRemaining()) {
+                                position += out.write(buffer, position);
+                            }
+                        }
+                        size = (long) header.pageCount * header.pageSize;
+                    }
+                }
+                out.truncate(size);
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to restore " + archive, e);
+        }
+    }
+
+    /**
+     * Gets the time of the last successful backup.
+     *
+     * @return the time, or null if none is recorded
+     */
+    public LocalDateTime getLastBackup() {
+        try {
+            List<String> values = database.query("SELECT config_value FROM system_config WHERE config_key = 'last_backup'",
+                    rs -> rs.getString(1));
+            return values.isEmpty() ? null : SQLiteDatabase.parseTimestamp(values.get(0));
+        } catch (DatabaseException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // The online backup API copies a consistent image without holding writers off in WAL mode
+    private void takeSnapshot(String url, Path snapshot) throws SQLException, IOException {
+        Files.deleteIfExists(snapshot);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            connection.setAutoCommit(false);
+            int pageSize;
+            // Reading starts the transaction that pins the snapshot for every backup step
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("PRAGMA page_size")) {
+                pageSize = rs.getInt(1);
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+            }
+            long copyStart = System.nanoTime();
+            int rc = connection.unwrap(SQLiteConnection.class).getDatabase().backup("main",
+                    snapshot.toAbsolutePath().toString(), (remaining, pageCount) -> {
+                        try {
+                            throttle(copyStart, (long) (pageCount - remaining) * pageSize);
+                        } catch (IOException e) {
+                            // Interrupted: the backup API cannot be cancelled, so the rest copies
+                            // unthrottled and the flag is checked once it returns
+                        }
+                    }, 100, 10, SNAPSHOT_STEP_PAGES);
+            connection.rollback();
+            checkInterrupted();
+            if (rc != SQLiteErrorCode.SQLITE_OK.code) {
+                throw new SQLException("Snapshot failed with SQLite error " + rc);
+            }
+        }
+    }
+
+    private Manifest writeArchive(Path snapshot, Path archive, Manifest previous) throws IOException {
+        Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        MessageDigest digest = sha1();
+        Manifest manifest;
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ);
+             FileOutputStream file = new FileOutputStream(temp.toFile());
+             GZIPOutputStream gzip = new GZIPOutputStream(file, 64 * 1024);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip))) {
+            int pageSize = readPageSize(in);
+            int pageCount = (int) (in.size() / pageSize);
+            manifest = new Manifest(pageSize, pageCount);
+            new Header(previous == null ? FULL : INCREMENTAL, pageSize, pageCount,
+                    previous == null ? "" : previous.archive).write(out);
+            ByteBuffer page = ByteBuffer.allocate(pageSize);
+            long readStart = System.nanoTime();
+            for (int number = 0; number < pageCount; number++) {
+                checkInterrupted();
+                page.clear();
+                while (page.hasRemaining() && in.read(page, (long) number * pageSize + page.position()) > 0) {
+                    // read the whole page
+                }
+                byte[] hash = digest.digest(page.array());
+                manifest.hashes[number] = hash;
+                boolean changed = previous == null || previous.pageSize != pageSize
+                        || number >= previous.hashes.length || !Arrays.equals(previous.hashes[number], hash);
+                if (changed) {
+                    out.writeInt(number);
+                    out.write(page.array());
+                    manifest.changedPages++;
+                }
+                throttle(readStart, (long) (number + 1) * pageSize);
+            }
+            out.writeInt(-1);
+            out.flush();
+            // Write the gzip trailer and get every byte to disk before the archive takes its final name
+            gzip.finish();
+            file.getChannel().force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Moved only once the file is closed, which Windows requires
+        try {
+            Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return manifest;
+    }
+
+    private static void checkInterrupted() throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IOException("Backup interrupted");
+        }
+    }
+
+    // Sleeps whenever reading runs ahead of backup.throttle.kbps
+    private void throttle(long readStart, long bytesRead) throws IOException {
+        long ahead = bytesRead * 1_000_000_000L / bytesPerSecond - (System.nanoTime() - readStart);
+        if (ahead > 1_000_000L) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Backup interrupted");
+            }
+        }
+    }
+
+    private void prune() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        try {
+            List<Path> archives = listArchives(directory);
+            List<List<Path>> chains = new ArrayList<>();
+            for (Path archive : archives) {
+                if (archive.getFileName().toString().endsWith("-full" + ARCHIVE_SUFFIX) || chains.isEmpty()) {
+                    chains.add(new ArrayList<>());
+                }
+                chains.get(chains.size() - 1).add(archive);
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            // The newest chain is what the next incremental builds on, so it always stays
+            for (int i = 0; i < chains.size() - 1; i++) {
+                List<Path> chain = chains.get(i);
+                if (archiveTime(chain.get(chain.size() - 1)).isBefore(cutoff)) {
+                    for (Path archive : chain) {
+                        Files.deleteIfExists(archive);
+                    }
+                    logger.logInfo("Pruned backup chain starting " + chain.get(0).getFileName());
+                }
+            }
+        } catch (IOException e) {
+            logger.logWarning("Failed to prune old backups: " + e.getMessage());
+        }
+    }
+
+    // Archive names sort by time
+    private static List<Path> listArchives(Path directory) throws IOException {
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, ARCHIVE_PREFIX + "*" + ARCHIVE_SUFFIX)) {
+            for (Path file : files) {
+                archives.add(file);
+            }
+        }
+        archives.sort(null);
+        return archives;
+    }
+
+    private static LocalDateTime archiveTime(Path archive) {
+        String name = archive.getFileName().toString();
+        return LocalDateTime.parse(name.substring(ARCHIVE_PREFIX.length(), ARCHIVE_PREFIX.length() + 15), NAME_FORMAT);
+    }
+
+    // The page size is a big-endian short at offset 16 of the database header; 1 means 65536
+    private static int readPageSize(FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2);
+        in.read(header, 16);
+        int size = header.getShort(0) & 0xFFFF;
+        return size == 1 ? 65536 : Math.max(512, size);
+    }
+
+    private static Header readHeader(Path archive) throws IOException {
+        try (DataInputStream in = openArchive(archive)) {
+            return Header.read(in);
+        }
+    }
+
+    private static DataInputStream openArchive(Path archive) throws IOException {
+        InputStream in = new GZIPInputStream(Files.newInputStream(archive), 64 * 1024);
+        return new DataInputStream(new BufferedInputStream(in));
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Header {
+        final byte type;
+        final int pageSize;
+        final int pageCount;
+        final String parent;
+
+        Header(byte type, int pageSize, int pageCount, String parent) {
+            this.type = type;
+            this.pageSize = pageSize;
+            this.pageCount = pageCount;
+            this.parent = parent;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeByte(type);
+            out.writeInt(pageSize);
+            out.writeInt(pageCount);
+            out.writeUTF(parent);
+        }
+
+        static Header read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a library backup archive");
+            }
+            return new Header(in.readByte(), in.readInt(), in.readInt(), in.readUTF());
+        }
+    }
+
+    /**
+     * Page hashes of the last backup, the base for the next incremental.
+     */
+    private static class Manifest {
+        final int pageSize;
+        final byte[][] hashes;
+        String archive;
+        int chainLength;
+        int changedPages;
+
+        Manifest(int pageSize, int pageCount) {
+            this.pageSize = pageSize;
+            this.hashes = new byte[pageCount][];
+        }
+
+        void write(Path file) throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(archive);
+                out.writeInt(chainLength);
+                out.writeInt(pageSize);
+                out.writeInt(hashes.length);
+                for (byte[] hash : hashes) {
+                    out.write(hash);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // A missing or unreadable manifest just means the next backup is full
+        static Manifest read(Path file) {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    return null;
+                }
+                String archive = in.readUTF();
+                int chainLength = in.readInt();
+                Manifest manifest = new Manifest(in.readInt(), in.readInt());
+                manifest.archive = archive;
+                manifest.chainLength = chainLength;
+                for (int i = 0; i < manifest.hashes.length; i++) {
+                    manifest.hashes[i] = new byte[20];
+                    in.readFully(manifest.hashes[i]);
+                }
+                return manifest;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.Book;
+import library.model.Category;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite-backed data access for books.
+ * Books are read together with their category in one joined query.
+ * Full-text searches go through the books_fts table, which the schema
+ * triggers keep in step with books and category names.
+ */
+public class SQLiteBookDAO implements BaseDAO<Book> {
+    private static final String SELECT =
+            "SELECT b.id, b.title, b.author, b.isbn, b.publication_year, b.total_copies, b.available_copies, "
+            + "b.category_id, c.name AS category_name, c.description AS category_description "
+            + "FROM books b LEFT JOIN categories c ON c.id = b.category_id";
+    private static final String INSERT = "INSERT INTO books (id, title, author, isbn, category_id, publication_year, "
+            + "total_copies, available_copies) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE books SET title = ?, author = ?, isbn = ?, category_id = ?, "
+            + "publication_year = ?, total_copies = ?, available_copies = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM books WHERE id = ?";
+
+    // bm25 weights per books_fts column: book_id, title, author, isbn, category
+    private static final String SEARCH =
+            "SELECT b.id, b.title, b.author, b.isbn, b.publication_year, b.total_copies, b.available_copies, "
+            + "b.category_id, c.name AS category_name, c.description AS category_description, "
+            + "snippet(books_fts, -1, ?, ?, '...', 12) AS snippet, "
+            + "bm25(books_fts, 0.0, 10.0, 5.0, 1.0, 2.0) AS score "
+            + "FROM books_fts JOIN books b ON b.rowid = books_fts.rowid "
+            + "LEFT JOIN categories c ON c.id = b.category_id "
+            + "WHERE books_fts MATCH ? ORDER BY score LIMIT ? OFFSET ?";
+    private static final String COUNT_MATCHES = "SELECT COUNT(*) FROM books_fts WHERE books_fts MATCH ?";
+
+    public static final String HIGHLIGHT_START = "<b>";
+    public static final String HIGHLIGHT_END = "</b>";
+
+    /**
+     * A full-text hit: the book, a highlighted snippet and its bm25 score.
+     */
+    public static class Match {
+        private final Book book;
+        private final String snippet;
+        private final double score;
+
+        Match(Book book, String snippet, double score) {
+            this.book = book;
+            this.snippet = snippet;
+            this.score = score;
+        }
+
+        public Book getBook() {
+            return book;
+        }
+
+        /** @return matched text with terms wrapped in HIGHLIGHT_START/HIGHLIGHT_END */
+        public String getSnippet() {
+            return snippet;
+        }
+
+        /** @return bm25 score; lower is more relevant */
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private final SQLiteDatabase database;
+
+    public SQLiteBookDAO() throws DatabaseException {
+        this(SQLiteDatabase.getInstance());
+    }
+
+    public SQLiteBookDAO(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(Book book) throws DatabaseException {
+        return database.update(INSERT, insertParameters(book)) == 1;
+    }
+
+    @Override
+    public boolean update(Book book) throws DatabaseException {
+        return database.update(UPDATE, updateParameters(book)) == 1;
+    }
+
+    @Override
+    public boolean delete(String id) throws DatabaseException {
+        return database.update(DELETE, id) == 1;
+    }
+
+    @Override
+    public int saveAll(List<Book> books) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (books != null) {
+            for (Book book : books) {
+                rows.add(insertParameters(book));
+            }
+        }
+        return database.batch(INSERT, rows);
+    }
+
+    @Override
+    public int updateAll(List<Book> books) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (books != null) {
+            for (Book book : books) {
+                rows.add(updateParameters(book));
+            }
+        }
+        return database.batch(UPDATE, rows);
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) throws DatabaseException {
+        return database.batch(DELETE, SQLiteDatabase.idRows(ids));
+    }
+
+    @Override
+    public Book findById(String id) throws DatabaseException {
+        List<Book> rows = database.query(SELECT + " WHERE b.id = ?", SQLiteBookDAO::mapBook, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<Book> findAll() throws DatabaseException {
+        return database.query(SELECT + " ORDER BY b.title", SQLiteBookDAO::mapBook);
+    }
+
+    @Override
+    public boolean exists(String id) throws DatabaseException {
+        return !database.query("SELECT 1 FROM books WHERE id = ?", rs -> rs.getInt(1), id).isEmpty();
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        return database.query("SELECT COUNT(*) FROM books", rs -> rs.getInt(1)).get(0);
+    }
+
+    /**
+     * Runs a ranked full-text search.
+     *
+     * @param matchQuery an FTS5 query, see {@link #toMatchQuery(String, String)}
+     * @param limit maximum hits
+     * @param offset hits to skip
+     * @return hits, most relevant first
+     * @throws DatabaseException if the query fails
+     */
+    public List<Match> search(String matchQuery, int limit, int offset) throws DatabaseException {
+        return database.query(SEARCH, rs -> new Match(mapBook(rs), rs.getString("snippet"), rs.getDouble("score")),
+                HIGHLIGHT_START, HIGHLIGHT_END, matchQuery, limit, offset);
+    }
+
+    /**
+     * Counts full-text hits without loading them.
+     *
+     * @param matchQuery an FTS5 query
+     * @return number of matching books
+     * @throws DatabaseException if the query fails
+     */
+    public int countMatches(String matchQuery) throws DatabaseException {
+        return database.query(COUNT_MATCHES, rs -> rs.getInt(1), matchQuery).get(0);
+    }
+
+    /**
+     * Turns user text into an FTS5 query. Every word must match as a prefix;
+     * quoting each word keeps FTS5 operators and punctuation in user input
+     * from being parsed as query syntax.
+     *
+     * @param column the books_fts column to restrict to, or null for all
+     * @param text the user's search text
+     * @return the query, or null if the text has no searchable words
+     */
+    public static String toMatchQuery(String column, String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(" AND ");
+            }
+            if (column != null) {
+                query.append(column).append(" : ");
+            }
+            query.append('"').append(word).append("\"*");
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    @Override
+    public void beginTransaction() throws DatabaseException {
+        database.beginTransaction();
+    }
+
+    @Override
+    public void commitTransaction() throws DatabaseException {
+        database.commitTransaction();
+    }
+
+    @Override
+    public void rollbackTransaction() throws DatabaseException {
+        database.rollbackTransaction();
+    }
+
+    static Book mapBook(ResultSet rs) throws SQLException {
+        Book book = new Book(rs.getString("id"), rs.getString("title"), rs.getString("author"),
+                rs.getString("isbn"), rs.getInt("publication_year"),
+                rs.getInt("total_copies"), rs.getInt("available_copies"));
+        int categoryId = rs.getInt("category_id");
+        if (!rs.wasNull()) {
+            book.setCategory(new Category(categoryId, rs.getString("category_name"), rs.getString("category_description")));
+        }
+        return book;
+    }
+
+    private static Object[] insertParameters(Book book) {
+        return new Object[] {book.getId(), book.getTitle(), book.getAuthor(), emptyToNull(book.getIsbn()),
+                categoryId(book), book.getPublicationYear(), book.getTotalCopies(), book.getAvailableCopies()};
+    }
+
+    private static Object[] updateParameters(Book book) {
+        return new Object[] {book.getTitle(), book.getAuthor(), emptyToNull(book.getIsbn()), categoryId(book),
+                book.getPublicationYear(), book.getTotalCopies(), book.getAvailableCopies(), book.getId()};
+    }
+
+    private static Integer categoryId(Book book) {
+        return book.getCategory() != null ? book.getCategory().getId() : null;
+    }
+
+    // isbn is UNIQUE, so books without one must store NULL rather than ""
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+}
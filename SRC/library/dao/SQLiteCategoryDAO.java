@@ -0,0 +1,153 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite-backed data access for categories.
+ * Category IDs are integers in the schema; the String IDs of BaseDAO are
+ * parsed, and a non-numeric ID simply matches nothing.
+ */
+public class SQLiteCategoryDAO implements BaseDAO<Category> {
+    private static final String COLUMNS = "id, name, description";
+
+    private final SQLiteDatabase database;
+
+    public SQLiteCategoryDAO() throws DatabaseException {
+        this(SQLiteDatabase.getInstance());
+    }
+
+    public SQLiteCategoryDAO(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Inserts a category. An ID of 0 lets SQLite assign one, which is then
+     * set on the category.
+     */
+    @Override
+    public boolean save(Category category) throws DatabaseException {
+        if (category.getId() > 0) {
+            return database.update("INSERT INTO categories (id, name, description) VALUES (?, ?, ?)",
+                    category.getId(), category.getName(), category.getDescription()) == 1;
+        }
+        boolean saved = database.update("INSERT INTO categories (name, description) VALUES (?, ?)",
+                category.getName(), category.getDescription()) == 1;
+        if (saved) {
+            List<Integer> ids = database.query("SELECT id FROM categories WHERE name = ?",
+                    rs -> rs.getInt(1), category.getName());
+            if (!ids.isEmpty()) {
+                category.setId(ids.get(0));
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean update(Category category) throws DatabaseException {
+        return database.update("UPDATE categories SET name = ?, description = ? WHERE id = ?",
+                category.getName(), category.getDescription(), category.getId()) == 1;
+    }
+
+    @Override
+    public boolean delete(String id) throws DatabaseException {
+        Integer categoryId = parseId(id);
+        return categoryId != null && database.update("DELETE FROM categories WHERE id = ?", categoryId) == 1;
+    }
+
+    @Override
+    public Category findById(String id) throws DatabaseException {
+        Integer categoryId = parseId(id);
+        if (categoryId == null) {
+            return null;
+        }
+        List<Category> rows = database.query("SELECT " + COLUMNS + " FROM categories WHERE id = ?",
+                SQLiteCategoryDAO::mapCategory, categoryId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<Category> findAll() throws DatabaseException {
+        return database.query("SELECT " + COLUMNS + " FROM categories ORDER BY name", SQLiteCategoryDAO::mapCategory);
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        return database.query("SELECT COUNT(*) FROM categories", rs -> rs.getInt(1)).get(0);
+    }
+
+    /**
+     * Saves categories one by one, since generated IDs must be read back,
+     * but inside a single transaction.
+     */
+    @Override
+    public int saveAll(List<Category> categories) throws DatabaseException {
+        if (categories == null || categories.isEmpty()) {
+            return 0;
+        }
+        return database.inTransaction(() -> {
+            int saved = 0;
+            for (Category category : categories) {
+                if (save(category)) {
+                    saved++;
+                }
+            }
+            return saved;
+        });
+    }
+
+    @Override
+    public int updateAll(List<Category> categories) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (categories != null) {
+            for (Category category : categories) {
+                rows.add(new Object[] {category.getName(), category.getDescription(), category.getId()});
+            }
+        }
+        return database.batch("UPDATE categories SET name = ?, description = ? WHERE id = ?", rows);
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids) {
+                Integer categoryId = parseId(id);
+                if (categoryId != null) {
+                    rows.add(new Object[] {categoryId});
+                }
+            }
+        }
+        return database.batch("DELETE FROM categories WHERE id = ?", rows);
+    }
+
+    @Override
+    public void beginTransaction() throws DatabaseException {
+        database.beginTransaction();
+    }
+
+    @Override
+    public void commitTransaction() throws DatabaseException {
+        database.commitTransaction();
+    }
+
+    @Override
+    public void rollbackTransaction() throws DatabaseException {
+        database.rollbackTransaction();
+    }
+
+    static Category mapCategory(java.sql.ResultSet rs) throws java.sql.SQLException {
+        return new Category(rs.getInt("id"), rs.getString("name"), rs.getString("description"));
+    }
+
+    private static Integer parseId(String id) {
+        try {
+            return Integer.valueOf(id.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            return null;
+        }
+    }
+}
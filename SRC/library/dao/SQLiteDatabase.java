@@ -0,0 +1,603 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.ConfigManager;
+import library.util.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared connection to the local SQLite database.
+ * Opens the file named by database.url, applies the performance pragmas
+ * (WAL journal, relaxed synchronous, memory-mapped I/O, larger page cache),
+ * bootstraps the schema from database-schema.sql, and caches one
+ * PreparedStatement per SQL string so repeated DAO calls skip re-parsing.
+ * Queries outside a transaction run on a pool of read-only connections,
+ * which WAL mode lets proceed alongside a writer. Single updates go through
+ * one writer thread that group-commits whatever has queued up.
+ * Transactions are bound to the thread that begins them and run on the
+ * writer connection; other writers wait until that thread commits or rolls back.
+ */
+public class SQLiteDatabase {
+    private static final String SCHEMA_RESOURCE = "database-schema.sql";
+    private static final String[] SCHEMA_FILES = {"resources/database-schema.sql", "SRC/resources/database-schema.sql"};
+
+    // Same text format as CURRENT_TIMESTAMP, so stored values sort and compare in SQL
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static SQLiteDatabase instance;
+
+    private final String url;
+    private final Logger logger;
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+    private final int batchSize;
+    private Connection connection;
+    private SQLiteReaderPool readerPool;
+    private SQLiteWriteQueue writeQueue;
+    private volatile Thread transactionOwner;
+    private int transactionDepth;
+    private boolean rollbackOnly;
+
+    /**
+     * Maps the current row of a result set to an object.
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Work run inside a transaction.
+     */
+    public interface TransactionWork<T> {
+        T run() throws DatabaseException;
+    }
+
+    private SQLiteDatabase(String url) {
+        this.url = url;
+        this.logger = Logger.getInstance();
+        this.batchSize = Math.max(1, ConfigManager.getInstance().getIntProperty("database.batch.size", 1000));
+    }
+
+    /**
+     * Gets the database configured by database.url, opening it on first use.
+     *
+     * @return the shared database
+     * @throws DatabaseException if the database cannot be opened or bootstrapped
+     */
+    public static synchronized SQLiteDatabase getInstance() throws DatabaseException {
+        if (instance == null) {
+            SQLiteDatabase database = new SQLiteDatabase(ConfigManager.getInstance().getDatabaseUrl());
+            database.open();
+            instance = database;
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a query with cached statement and bound parameters. Outside a
+     * transaction the query runs on a pooled read-only connection, so it
+     * never waits for writers; inside one it runs on the writer connection
+     * and sees the transaction's own changes.
+     *
+     * @param sql the SQL with ? placeholders
+     * @param mapper maps each row
+     * @param parameters values for the placeholders
+     * @return the mapped rows
+     * @throws DatabaseException if the query fails
+     */
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... parameters) throws DatabaseException {
+        if (readerPool != null && !isInTransaction()) {
+            return readerPool.query(sql, mapper, parameters);
+        }
+        return queryDirect(sql, mapper, parameters);
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE with cached statement and bound parameters.
+     * Outside a transaction the change is handed to the writer thread, which
+     * commits it together with any other changes queued at the same time;
+     * the call returns once the change is committed.
+     *
+     * @param sql the SQL with ? placeholders
+     * @param parameters values for the placeholders
+     * @return the number of rows changed
+     * @throws DatabaseException if the statement fails
+     */
+    public int update(String sql, Object... parameters) throws DatabaseException {
+        if (writeQueue != null && !isInTransaction()) {
+            return writeQueue.submit(sql, parameters);
+        }
+        return updateDirect(sql, parameters);
+    }
+
+    synchronized <T> List<T> queryDirect(String sql, RowMapper<T> mapper, Object... parameters) throws DatabaseException {
+        awaitTurn();
+        try {
+            return readRows(prepare(sql, parameters), mapper);
+        } catch (SQLException e) {
+            throw new DatabaseException("Query failed: " + sql, e);
+        }
+    }
+
+    // Runs one change of a group commit; a failure undoes only this change
+    synchronized int updateInSavepoint(String sql, Object... parameters) throws DatabaseException {
+        awaitTurn();
+        Savepoint savepoint = null;
+        try {
+            savepoint = connection.setSavepoint();
+            int changed = prepare(sql, parameters).executeUpdate();
+            connection.releaseSavepoint(savepoint);
+            return changed;
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException rollbackError) {
+                    logger.logWarning("Failed to roll back to savepoint: " + rollbackError.getMessage());
+                }
+            }
+            throw new DatabaseException("Update failed: " + sql, e);
+        }
+    }
+
+    private synchronized int executeBatch(String sql, List<Object[]> rows) throws DatabaseException {
+        try {
+            PreparedStatement statement = prepare(sql);
+            int changed = 0;
+            int pending = 0;
+            for (Object[] row : rows) {
+                bind(statement, row);
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    changed += countChanges(statement.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                changed += countChanges(statement.executeBatch());
+            }
+            return changed;
+        } catch (SQLException e) {
+            clearBatch(sql);
+            throw new DatabaseException("Batch failed: " + sql, e);
+        }
+    }
+
+    synchronized int updateDirect(String sql, Object... parameters) throws DatabaseException {
+        awaitTurn();
+        try {
+            return prepare(sql, parameters).executeUpdate();
+        } catch (SQLException e) {
+            throw new DatabaseException("Update failed: " + sql, e);
+        }
+    }
+
+    /**
+     * Runs one statement for many rows with JDBC batching, all inside a single
+     * transaction. Rows are sent in chunks of database.batch.size so memory
+     * stays bounded on large loads. Any failure rolls back every row.
+     *
+     * @param sql the SQL with ? placeholders
+     * @param rows placeholder values, one array per row
+     * @return the number of rows changed
+     * @throws DatabaseException if any row fails
+     */
+    public int batch(String sql, List<Object[]> rows) throws DatabaseException {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        return inTransaction(() -> executeBatch(sql, rows));
+    }
+
+    /**
+     * Begins a transaction on the calling thread. Calls nest: only the
+     * outermost commit writes to disk.
+     *
+     * @throws DatabaseException if the transaction cannot be started
+     */
+    public synchronized void beginTransaction() throws DatabaseException {
+        awaitTurn();
+        if (transactionDepth == 0) {
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to begin transaction", e);
+            }
+            transactionOwner = Thread.currentThread();
+            rollbackOnly = false;
+        }
+        transactionDepth++;
+    }
+
+    /**
+     * Commits the calling thread's transaction once the outermost level
+     * commits. If an inner level rolled back, the whole transaction is
+     * rolled back instead.
+     *
+     * @throws DatabaseException if there is no transaction or the commit fails
+     */
+    public synchronized void commitTransaction() throws DatabaseException {
+        checkOwner();
+        if (--transactionDepth > 0) {
+            return;
+        }
+        try {
+            if (rollbackOnly) {
+                connection.rollback();
+                throw new DatabaseException("Transaction was rolled back by a nested call");
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new DatabaseException("Failed to commit transaction", e);
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Rolls back the calling thread's transaction. A nested rollback marks
+     * the transaction so the outermost commit rolls back too.
+     *
+     * @throws DatabaseException if there is no transaction or the rollback fails
+     */
+    public synchronized void rollbackTransaction() throws DatabaseException {
+        checkOwner();
+        if (--transactionDepth > 0) {
+            rollbackOnly = true;
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to roll back transaction", e);
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Runs work inside a transaction, committing on success and rolling
+     * back if it throws.
+     *
+     * @param work the work to run
+     * @return the work's result
+     * @throws DatabaseException if the work or the commit fails
+     */
+    public <T> T inTransaction(TransactionWork<T> work) throws DatabaseException {
+        beginTransaction();
+        T result;
+        try {
+            result = work.run();
+        } catch (DatabaseException | RuntimeException e) {
+            rollbackTransaction();
+            throw e;
+        }
+        commitTransaction();
+        return result;
+    }
+
+    /**
+     * Checks whether the calling thread has an open transaction.
+     *
+     * @return true inside beginTransaction/commitTransaction
+     */
+    public boolean isInTransaction() {
+        return transactionOwner == Thread.currentThread();
+    }
+
+    /**
+     * Stops the writer thread after it commits queued changes, then closes
+     * cached statements and all connections.
+     */
+    public void close() {
+        if (writeQueue != null) {
+            writeQueue.close();
+            writeQueue = null;
+        }
+        if (readerPool != null) {
+            readerPool.close();
+            readerPool = null;
+        }
+        closeWriter();
+    }
+
+    private synchronized void closeWriter() {
+        for (PreparedStatement statement : statementCache.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.logWarning("Failed to close statement: " + e.getMessage());
+            }
+        }
+        statementCache.clear();
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            logger.logError("Failed to close database connection", e);
+        }
+        connection = null;
+        synchronized (SQLiteDatabase.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the JDBC URL of this database.
+     *
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    static String formatTimestamp(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.format(TIMESTAMP_FORMAT) : null;
+    }
+
+    static LocalDateTime parseTimestamp(String value) {
+        return value != null && !value.isEmpty() ? LocalDateTime.parse(value.replace(' ', 'T')) : null;
+    }
+
+    static List<Object[]> idRows(List<String> ids) {
+        List<Object[]> rows = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids) {
+                rows.add(new Object[] {id});
+            }
+        }
+        return rows;
+    }
+
+    synchronized Connection getConnection() {
+        return connection;
+    }
+
+    private PreparedStatement prepare(String sql, Object... parameters) throws SQLException {
+        PreparedStatement statement = statementCache.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statementCache.put(sql, statement);
+        }
+        bind(statement, parameters);
+        return statement;
+    }
+
+    static <T> List<T> readRows(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(mapper.map(resultSet));
+            }
+        }
+        return rows;
+    }
+
+    static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+        statement.clearParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    private static int countChanges(int[] results) {
+        int changed = 0;
+        for (int result : results) {
+            if (result > 0) {
+                changed += result;
+            } else if (result == Statement.SUCCESS_NO_INFO) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private void clearBatch(String sql) {
+        try {
+            PreparedStatement statement = statementCache.get(sql);
+            if (statement != null) {
+                statement.clearBatch();
+            }
+        } catch (SQLException e) {
+            logger.logWarning("Failed to clear batch: " + e.getMessage());
+        }
+    }
+
+    // Waits while another thread holds a transaction on the shared connection
+    private void awaitTurn() throws DatabaseException {
+        while (transactionOwner != null && transactionOwner != Thread.currentThread()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DatabaseException("Interrupted while waiting for a transaction to finish", e);
+            }
+        }
+    }
+
+    private void checkOwner() throws DatabaseException {
+        if (transactionOwner != Thread.currentThread() || transactionDepth == 0) {
+            throw new DatabaseException("No transaction active on this thread");
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.logWarning("Rollback failed: " + e.getMessage());
+        }
+    }
+
+    private void endTransaction() {
+        transactionDepth = 0;
+        transactionOwner = null;
+        rollbackOnly = false;
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.logError("Failed to restore auto-commit", e);
+        }
+        notifyAll();
+    }
+
+    private void open() throws DatabaseException {
+        try {
+            createParentDirectory();
+            String driver = ConfigManager.getInstance().getDatabaseDriver();
+            if (driver != null) {
+                Class.forName(driver);
+            }
+            connection = DriverManager.getConnection(url);
+            applyPragmas();
+            bootstrapSchema();
+            startReadersAndWriter();
+            logger.logInfo("SQLite database opened: " + url);
+        } catch (ClassNotFoundException e) {
+            throw new DatabaseException("SQLite driver not found", e);
+        } catch (SQLException | IOException e) {
+            throw new DatabaseException("Failed to open database: " + url, e);
+        }
+    }
+
+    private void applyPragmas() throws SQLException {
+        ConfigManager config = ConfigManager.getInstance();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=" + config.getProperty("database.journal.mode", "WAL"));
+            // NORMAL is durable in WAL mode except for the last commits on power loss
+            statement.execute("PRAGMA synchronous=" + config.getProperty("database.synchronous", "NORMAL"));
+            statement.execute("PRAGMA foreign_keys=ON");
+        }
+        applyConnectionPragmas(connection);
+    }
+
+    /**
+     * Applies the per-connection cache and I/O pragmas shared by the writer
+     * and the pooled readers.
+     */
+    static void applyConnectionPragmas(Connection target) throws SQLException {
+        ConfigManager config = ConfigManager.getInstance();
+        try (Statement statement = target.createStatement()) {
+            statement.execute("PRAGMA mmap_size=" + config.getProperty("database.mmap.size", "268435456"));
+            // Negative values are KiB: 64 MB of page cache
+            statement.execute("PRAGMA cache_size=" + config.getProperty("database.cache.size", "-65536"));
+            statement.execute("PRAGMA temp_store=MEMORY");
+            statement.execute("PRAGMA busy_timeout=" + config.getProperty("database.busy.timeout", "5000"));
+        }
+    }
+
+    // An in-memory database is private to one connection, so it gets neither readers nor a writer thread
+    private void startReadersAndWriter() throws SQLException {
+        if (url.contains(":memory:") || url.contains("mode=memory")) {
+            return;
+        }
+        ConfigManager config = ConfigManager.getInstance();
+        int readers = config.getIntProperty("database.read.pool.size", 4);
+        if (readers > 0) {
+            readerPool = new SQLiteReaderPool(url, readers);
+        }
+        if (config.getBooleanProperty("database.group.commit.enabled", true)) {
+            writeQueue = new SQLiteWriteQueue(this, config.getIntProperty("database.group.commit.max", 256));
+        }
+    }
+
+    private void bootstrapSchema() throws SQLException, IOException {
+        try (Reader reader = openSchema()) {
+            if (reader == null) {
+                logger.logWarning("Schema file " + SCHEMA_RESOURCE + " not found; assuming tables exist");
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : splitStatements(new BufferedReader(reader))) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private Reader openSchema() throws IOException {
+        InputStream resource = getClass().getClassLoader().getResourceAsStream(SCHEMA_RESOURCE);
+        if (resource != null) {
+            return new InputStreamReader(resource, StandardCharsets.UTF_8);
+        }
+        for (String file : SCHEMA_FILES) {
+            Path path = Paths.get(file);
+            if (Files.exists(path)) {
+                return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits a SQL script into statements. Semicolons inside a
+     * CREATE TRIGGER ... BEGIN ... END block do not end the statement.
+     */
+    static List<String> splitStatements(BufferedReader reader) throws IOException {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inTrigger = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            String upper = trimmed.toUpperCase();
+            if (upper.startsWith("CREATE TRIGGER")) {
+                inTrigger = true;
+            }
+            if (trimmed.endsWith(";") && (!inTrigger || upper.equals("END;"))) {
+                statements.add(current.toString().trim());
+                current.setLength(0);
+                inTrigger = false;
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private void createParentDirectory() throws IOException {
+        String prefix = "jdbc:sqlite:";
+        if (!url.startsWith(prefix)) {
+            return;
+        }
+        String file = url.substring(prefix.length());
+        if (file.isEmpty() || file.startsWith(":memory:") || file.startsWith("file:")) {
+            return;
+        }
+        Path parent = Paths.get(file).toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+}
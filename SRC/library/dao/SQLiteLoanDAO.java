@@ -0,0 +1,158 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.Loan;
+import library.model.LoanStatus;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite-backed data access for loans.
+ * The schema triggers keep books.available_copies in step: inserting an
+ * ACTIVE loan takes a copy and moving a loan from ACTIVE to RETURNED gives
+ * it back. Callers that also save the book should do so after the loan.
+ */
+public class SQLiteLoanDAO implements BaseDAO<Loan> {
+    private static final String SELECT =
+            "SELECT id, user_id, book_id, loan_date, due_date, return_date, status, fine_amount, notes FROM loans";
+    private static final String INSERT = "INSERT INTO loans (id, user_id, book_id, loan_date, due_date, return_date, "
+            + "status, fine_amount, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE loans SET due_date = ?, return_date = ?, status = ?, fine_amount = ?, "
+            + "notes = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM loans WHERE id = ?";
+
+    private final SQLiteDatabase database;
+
+    public SQLiteLoanDAO() throws DatabaseException {
+        this(SQLiteDatabase.getInstance());
+    }
+
+    public SQLiteLoanDAO(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(Loan loan) throws DatabaseException {
+        return database.update(INSERT, insertParameters(loan)) == 1;
+    }
+
+    @Override
+    public boolean update(Loan loan) throws DatabaseException {
+        return database.update(UPDATE, updateParameters(loan)) == 1;
+    }
+
+    @Override
+    public boolean delete(String id) throws DatabaseException {
+        return database.update(DELETE, id) == 1;
+    }
+
+    @Override
+    public int saveAll(List<Loan> loans) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (loans != null) {
+            for (Loan loan : loans) {
+                rows.add(insertParameters(loan));
+            }
+        }
+        return database.batch(INSERT, rows);
+    }
+
+    @Override
+    public int updateAll(List<Loan> loans) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (loans != null) {
+            for (Loan loan : loans) {
+                rows.add(updateParameters(loan));
+            }
+        }
+        return database.batch(UPDATE, rows);
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) throws DatabaseException {
+        return database.batch(DELETE, SQLiteDatabase.idRows(ids));
+    }
+
+    @Override
+    public Loan findById(String id) throws DatabaseException {
+        List<Loan> rows = database.query(SELECT + " WHERE id = ?", SQLiteLoanDAO::mapLoan, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<Loan> findAll() throws DatabaseException {
+        return database.query(SELECT + " ORDER BY loan_date DESC", SQLiteLoanDAO::mapLoan);
+    }
+
+    /**
+     * Finds the loans of one user, newest first.
+     *
+     * @param userId the borrower
+     * @return the user's loans
+     * @throws DatabaseException if the query fails
+     */
+    public List<Loan> findByUserId(String userId) throws DatabaseException {
+        return database.query(SELECT + " WHERE user_id = ? ORDER BY loan_date DESC", SQLiteLoanDAO::mapLoan, userId);
+    }
+
+    /**
+     * Finds the loans that are currently out, using the status index.
+     *
+     * @return active and overdue loans
+     * @throws DatabaseException if the query fails
+     */
+    public List<Loan> findActive() throws DatabaseException {
+        return database.query(SELECT + " WHERE status IN ('ACTIVE', 'OVERDUE') ORDER BY due_date", SQLiteLoanDAO::mapLoan);
+    }
+
+    @Override
+    public boolean exists(String id) throws DatabaseException {
+        return !database.query("SELECT 1 FROM loans WHERE id = ?", rs -> rs.getInt(1), id).isEmpty();
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        return database.query("SELECT COUNT(*) FROM loans", rs -> rs.getInt(1)).get(0);
+    }
+
+    @Override
+    public void beginTransaction() throws DatabaseException {
+        database.beginTransaction();
+    }
+
+    @Override
+    public void commitTransaction() throws DatabaseException {
+        database.commitTransaction();
+    }
+
+    @Override
+    public void rollbackTransaction() throws DatabaseException {
+        database.rollbackTransaction();
+    }
+
+    static Loan mapLoan(ResultSet rs) throws SQLException {
+        Loan loan = new Loan(rs.getString("id"), rs.getString("user_id"), rs.getString("book_id"),
+                SQLiteDatabase.parseTimestamp(rs.getString("loan_date")),
+                SQLiteDatabase.parseTimestamp(rs.getString("due_date")),
+                SQLiteDatabase.parseTimestamp(rs.getString("return_date")),
+                LoanStatus.valueOf(rs.getString("status")), rs.getDouble("fine_amount"));
+        loan.setNotes(rs.getString("notes"));
+        return loan;
+    }
+
+    private static Object[] insertParameters(Loan loan) {
+        return new Object[] {loan.getId(), loan.getUserId(), loan.getBookId(),
+                SQLiteDatabase.formatTimestamp(loan.getLoanDate()), SQLiteDatabase.formatTimestamp(loan.getDueDate()),
+                SQLiteDatabase.formatTimestamp(loan.getReturnDate()), loan.getStatus().name(),
+                loan.getFineAmount(), loan.getNotes()};
+    }
+
+    private static Object[] updateParameters(Loan loan) {
+        return new Object[] {SQLiteDatabase.formatTimestamp(loan.getDueDate()),
+                SQLiteDatabase.formatTimestamp(loan.getReturnDate()), loan.getStatus().name(),
+                loan.getFineAmount(), loan.getNotes(), loan.getId()};
+    }
+}
@@ -0,0 +1,118 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.Logger;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed pool of read-only SQLite connections.
+ * In WAL mode each reader sees the last committed state and never waits
+ * for the writer, so searches and reports run alongside checkouts. Every
+ * connection keeps its own prepared-statement cache.
+ */
+class SQLiteReaderPool {
+    private final BlockingQueue<Reader> idle;
+    private final List<Reader> all = new ArrayList<>();
+    private final Logger logger = Logger.getInstance();
+
+    private static class Reader {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        Reader(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(String sql, Object[] parameters) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            SQLiteDatabase.bind(statement, parameters);
+            return statement;
+        }
+    }
+
+    /**
+     * Opens the reader connections.
+     *
+     * @param url the database URL
+     * @param size number of connections
+     * @throws SQLException if a connection cannot be opened
+     */
+    SQLiteReaderPool(String url, int size) throws SQLException {
+        idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA query_only=ON");
+                }
+                SQLiteDatabase.applyConnectionPragmas(connection);
+                Reader reader = new Reader(connection);
+                all.add(reader);
+                idle.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+        logger.logInfo("SQLite reader pool opened with " + size + " connections");
+    }
+
+    /**
+     * Runs a query on an idle reader, waiting for one if all are busy.
+     *
+     * @param sql the SQL with ? placeholders
+     * @param mapper maps each row
+     * @param parameters values for the placeholders
+     * @return the mapped rows
+     * @throws DatabaseException if the query fails or the wait is interrupted
+     */
+    <T> List<T> query(String sql, SQLiteDatabase.RowMapper<T> mapper, Object... parameters) throws DatabaseException {
+        Reader reader;
+        try {
+            reader = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while waiting for a reader connection", e);
+        }
+        try {
+            return SQLiteDatabase.readRows(reader.prepare(sql, parameters), mapper);
+        } catch (SQLException e) {
+            throw new DatabaseException("Query failed: " + sql, e);
+        } finally {
+            idle.offer(reader);
+        }
+    }
+
+    /**
+     * Closes every reader connection.
+     */
+    void close() {
+        for (Reader reader : all) {
+            try {
+                for (PreparedStatement statement : reader.statements.values()) {
+                    statement.close();
+                }
+                reader.connection.close();
+            } catch (SQLException e) {
+                logger.logWarning("Failed to close reader connection: " + e.getMessage());
+            }
+        }
+        all.clear();
+        idle.clear();
+    }
+}
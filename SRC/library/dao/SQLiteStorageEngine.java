@@ -0,0 +1,96 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.Book;
+import library.model.Category;
+import library.model.Loan;
+import library.model.User;
+import library.util.ConfigManager;
+import library.util.Logger;
+
+/**
+ * Storage engine backed by the local SQLite database.
+ */
+public class SQLiteStorageEngine implements StorageEngine {
+    private final SQLiteDatabase database;
+    private final SQLiteBookDAO books;
+    private final SQLiteUserDAO users;
+    private final SQLiteLoanDAO loans;
+    private final SQLiteCategoryDAO categories;
+    private LoanHistoryMirror historyMirror;
+    private SQLiteBackupManager backupManager;
+
+    public SQLiteStorageEngine(SQLiteDatabase database) {
+        this.database = database;
+        this.books = new SQLiteBookDAO(database);
+        this.users = new SQLiteUserDAO(database);
+        this.loans = new SQLiteLoanDAO(database);
+        this.categories = new SQLiteCategoryDAO(database);
+    }
+
+    @Override
+    public String getName() {
+        return StorageEngines.SQLITE;
+    }
+
+    @Override
+    public SQLiteBookDAO books() {
+        return books;
+    }
+
+    @Override
+    public SQLiteUserDAO users() {
+        return users;
+    }
+
+    @Override
+    public SQLiteLoanDAO loans() {
+        return loans;
+    }
+
+    @Override
+    public SQLiteCategoryDAO categories() {
+        return categories;
+    }
+
+    /**
+     * Starts copying loan events from the journal into loan_history.
+     *
+     * @param journal the loan event journal
+     * @param intervalSeconds seconds between copies
+     * @throws DatabaseException if the mirror checkpoint cannot be read
+     */
+    public synchronized void startLoanHistoryMirror(LoanEventJournal journal, int intervalSeconds) throws DatabaseException {
+        if (historyMirror == null) {
+            historyMirror = new LoanHistoryMirror(journal, database, 500);
+            historyMirror.start(intervalSeconds);
+        }
+    }
+
+    /**
+     * Starts background backups every backup.interval.hours (default 24).
+     *
+     * @return the backup manager, also usable for backups on demand
+     */
+    public synchronized SQLiteBackupManager startAutomaticBackups() {
+        if (backupManager == null) {
+            backupManager = new SQLiteBackupManager(database);
+            backupManager.start(ConfigManager.getInstance().getIntProperty("backup.interval.hours", 24));
+        }
+        return backupManager;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (backupManager != null) {
+            backupManager.stop();
+            backupManager = null;
+        }
+        if (historyMirror != null) {
+            historyMirror.stop();
+            historyMirror = null;
+        }
+        database.close();
+        Logger.getInstance().logInfo("SQLite storage engine closed");
+    }
+}
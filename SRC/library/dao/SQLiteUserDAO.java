@@ -0,0 +1,123 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite-backed data access for library members.
+ * Only rows with the MEMBER role are read back as users.
+ */
+public class SQLiteUserDAO implements BaseDAO<User> {
+    private static final String SELECT = "SELECT id, name, email, phone, is_active FROM users";
+    private static final String INSERT = "INSERT INTO users (id, name, email, phone, role, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE users SET name = ?, email = ?, phone = ?, is_active = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM users WHERE id = ?";
+
+    private final SQLiteDatabase database;
+
+    public SQLiteUserDAO() throws DatabaseException {
+        this(SQLiteDatabase.getInstance());
+    }
+
+    public SQLiteUserDAO(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(User user) throws DatabaseException {
+        return database.update(INSERT, insertParameters(user)) == 1;
+    }
+
+    @Override
+    public boolean update(User user) throws DatabaseException {
+        return database.update(UPDATE, updateParameters(user)) == 1;
+    }
+
+    @Override
+    public boolean delete(String id) throws DatabaseException {
+        return database.update(DELETE, id) == 1;
+    }
+
+    @Override
+    public int saveAll(List<User> users) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (users != null) {
+            for (User user : users) {
+                rows.add(insertParameters(user));
+            }
+        }
+        return database.batch(INSERT, rows);
+    }
+
+    @Override
+    public int updateAll(List<User> users) throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>();
+        if (users != null) {
+            for (User user : users) {
+                rows.add(updateParameters(user));
+            }
+        }
+        return database.batch(UPDATE, rows);
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) throws DatabaseException {
+        return database.batch(DELETE, SQLiteDatabase.idRows(ids));
+    }
+
+    @Override
+    public User findById(String id) throws DatabaseException {
+        List<User> rows = database.query(SELECT + " WHERE id = ? AND role = 'MEMBER'", SQLiteUserDAO::mapUser, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<User> findAll() throws DatabaseException {
+        return database.query(SELECT + " WHERE role = 'MEMBER' ORDER BY name", SQLiteUserDAO::mapUser);
+    }
+
+    @Override
+    public boolean exists(String id) throws DatabaseException {
+        return !database.query("SELECT 1 FROM users WHERE id = ? AND role = 'MEMBER'", rs -> rs.getInt(1), id).isEmpty();
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        return database.query("SELECT COUNT(*) FROM users WHERE role = 'MEMBER'", rs -> rs.getInt(1)).get(0);
+    }
+
+    @Override
+    public void beginTransaction() throws DatabaseException {
+        database.beginTransaction();
+    }
+
+    @Override
+    public void commitTransaction() throws DatabaseException {
+        database.commitTransaction();
+    }
+
+    @Override
+    public void rollbackTransaction() throws DatabaseException {
+        database.rollbackTransaction();
+    }
+
+    static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User(rs.getString("id"), rs.getString("name"), rs.getString("email"), rs.getString("phone"));
+        user.setActive(rs.getInt("is_active") != 0);
+        return user;
+    }
+
+    private static Object[] insertParameters(User user) {
+        return new Object[] {user.getId(), user.getName(), user.getEmail(), user.getPhone(), user.getRole(),
+                user.isActive() ? 1 : 0};
+    }
+
+    private static Object[] updateParameters(User user) {
+        return new Object[] {user.getName(), user.getEmail(), user.getPhone(), user.isActive() ? 1 : 0, user.getId()};
+    }
+}
@@ -0,0 +1,164 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single writer thread for SQLite changes.
+ * Callers queue a change and wait for it to commit. The writer takes
+ * everything that is queued at that moment and commits it in one
+ * transaction, so under load many checkouts share one commit. Each change
+ * runs inside its own savepoint: a failing change is rolled back and
+ * reported to its caller alone, while the rest of the group commits.
+ */
+class SQLiteWriteQueue {
+    private static final Mutation SHUTDOWN = new Mutation(null, null);
+
+    private final SQLiteDatabase database;
+    private final int maxGroupSize;
+    private final LinkedBlockingQueue<Mutation> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Logger logger = Logger.getInstance();
+    private volatile boolean closed;
+
+    private static class Mutation {
+        private final String sql;
+        private final Object[] parameters;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Mutation(String sql, Object[] parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param database the database whose writer connection is used
+     * @param maxGroupSize most changes committed together
+     */
+    SQLiteWriteQueue(SQLiteDatabase database, int maxGroupSize) {
+        this.database = database;
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+        this.writer = new Thread(this::run, "sqlite-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a change and waits until it is committed.
+     *
+     * @param sql the SQL with ? placeholders
+     * @param parameters values for the placeholders
+     * @return the number of rows changed
+     * @throws DatabaseException if the change or its commit fails
+     */
+    int submit(String sql, Object[] parameters) throws DatabaseException {
+        if (closed) {
+            throw new DatabaseException("Database is closed");
+        }
+        Mutation mutation = new Mutation(sql, parameters);
+        queue.add(mutation);
+        if (closed && !writer.isAlive()) {
+            failRemaining();
+        }
+        try {
+            return mutation.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while waiting for commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DatabaseException) {
+                throw (DatabaseException) cause;
+            }
+            throw new DatabaseException("Update failed: " + sql, cause);
+        }
+    }
+
+    /**
+     * Commits what is already queued, then stops the writer thread.
+     */
+    void close() {
+        closed = true;
+        queue.add(SHUTDOWN);
+        try {
+            writer.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining();
+    }
+
+    private void run() {
+        List<Mutation> group = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(group, maxGroupSize - 1);
+            running = !group.remove(SHUTDOWN);
+            if (!group.isEmpty()) {
+                commit(group);
+            }
+            group.clear();
+        }
+        failRemaining();
+    }
+
+    private void commit(List<Mutation> group) {
+        if (group.size() == 1) {
+            Mutation mutation = group.get(0);
+            try {
+                mutation.result.complete(database.updateDirect(mutation.sql, mutation.parameters));
+            } catch (DatabaseException | RuntimeException e) {
+                mutation.result.completeExceptionally(e);
+            }
+            return;
+        }
+        List<Integer> changes = new ArrayList<>(group.size());
+        try {
+            database.inTransaction(() -> {
+                for (Mutation mutation : group) {
+                    try {
+                        changes.add(database.updateInSavepoint(mutation.sql, mutation.parameters));
+                    } catch (DatabaseException e) {
+                        changes.add(null);
+                        mutation.result.completeExceptionally(e);
+                    }
+                }
+                return null;
+            });
+        } catch (DatabaseException | RuntimeException e) {
+            logger.logError("Group commit of " + group.size() + " changes failed", e);
+            for (Mutation mutation : group) {
+                mutation.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            if (changes.get(i) != null) {
+                group.get(i).result.complete(changes.get(i));
+            }
+        }
+    }
+
+    private void failRemaining() {
+        Mutation mutation;
+        while ((mutation = queue.poll()) != null) {
+            if (mutation != SHUTDOWN) {
+                mutation.result.completeExceptionally(new DatabaseException("Database is closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package library.dao;
+
+import library.model.Book;
+import library.model.Category;
+import library.model.Loan;
+import library.model.User;
+
+/**
+ * A storage backend for the library entities.
+ * Every engine exposes the same BaseDAO views, so services and benchmarks
+ * run unchanged on any of them. Engines are chosen by the storage.engine
+ * setting, see {@link StorageEngines#fromConfig()}.
+ */
+public interface StorageEngine {
+
+    /**
+     * Gets the engine name used in storage.engine.
+     *
+     * @return the engine name
+     */
+    String getName();
+
+    BaseDAO<Book> books();
+
+    BaseDAO<User> users();
+
+    BaseDAO<Loan> loans();
+
+    BaseDAO<Category> categories();
+
+    /**
+     * Releases connections and threads held by the engine.
+     */
+    void close();
+}
@@ -0,0 +1,52 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.ConfigManager;
+
+/**
+ * Creates storage engines by name.
+ */
+public final class StorageEngines {
+    public static final String MEMORY = "memory";
+    public static final String SQLITE = "sqlite";
+    public static final String SUPABASE = "supabase";
+
+    private StorageEngines() {
+    }
+
+    /**
+     * Creates the engine named by storage.engine (default memory).
+     *
+     * @return the configured engine
+     * @throws DatabaseException if the engine cannot be opened
+     */
+    public static StorageEngine fromConfig() throws DatabaseException {
+        return create(ConfigManager.getInstance().getStorageEngine());
+    }
+
+    /**
+     * Creates an engine by name.
+     *
+     * @param name memory, sqlite or supabase
+     * @return the engine
+     * @throws DatabaseException if the name is unknown or the engine cannot be opened
+     */
+    public static StorageEngine create(String name) throws DatabaseException {
+        String engine = name != null ? name.trim().toLowerCase() : MEMORY;
+        switch (engine) {
+            case MEMORY:
+                return new InMemoryStorageEngine();
+            case SQLITE:
+                SQLiteStorageEngine sqlite = new SQLiteStorageEngine(SQLiteDatabase.getInstance());
+                if (ConfigManager.getInstance().isAutoBackupEnabled()) {
+                    sqlite.startAutomaticBackups();
+                }
+                return sqlite;
+            case SUPABASE:
+                ConfigManager config = ConfigManager.getInstance();
+                return new SupabaseStorageEngine(config.getSupabaseUrl(), config.getSupabaseKey());
+            default:
+                throw new DatabaseException("Unknown storage engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.FlatJson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * BaseDAO over one Supabase table through the REST API.
+ * Rows are converted with the given mapping functions; bulk saves are sent
+ * as JSON arrays and bulk deletes as id=in.(...) filters, so they take one
+ * request per chunk instead of one per entity. Reads are paged, so results
+ * are never cut short by the server's max-rows limit.
+ */
+public class SupabaseDAO<T> implements BaseDAO<T> {
+    private static final int BULK_CHUNK = 500;
+    private static final int DELETE_CHUNK = 100;
+    private static final int PAGE_SIZE = 1000;
+
+    private final PostgrestClient client;
+    private final String table;
+    private final String order;
+    private final Function<T, String> idOf;
+    private final UnaryOperator<String> rowId;
+    private final Function<T, Map<String, Object>> toRow;
+    private final Function<Map<String, String>, T> fromRow;
+
+    /**
+     * Creates a DAO for a table.
+     *
+     * @param client the REST client
+     * @param table the table name
+     * @param order the order clause for findAll, e.g. title.asc
+     * @param idOf gets an entity's ID as a string
+     * @param rowId maps an entity ID to the table's id value, or null if it has none
+     * @param toRow converts an entity to its columns
+     * @param fromRow converts a returned row to an entity
+     */
+    public SupabaseDAO(PostgrestClient client, String table, String order, Function<T, String> idOf,
+                       UnaryOperator<String> rowId, Function<T, Map<String, Object>> toRow,
+                       Function<Map<String, String>, T> fromRow) {
+        this.client = client;
+        this.table = table;
+        this.order = order;
+        this.idOf = idOf;
+        this.rowId = rowId;
+        this.toRow = toRow;
+        this.fromRow = fromRow;
+    }
+
+    @Override
+    public boolean save(T entity) throws DatabaseException {
+        return !FlatJson.parseArray(client.post(table, FlatJson.object(insertRow(entity)))).isEmpty();
+    }
+
+    /**
+     * Gets the columns sent when an entity is first inserted; by default the same as for updates.
+     *
+     * @param entity the new entity
+     * @return column values
+     */
+    protected Map<String, Object> insertRow(T entity) {
+        return toRow.apply(entity);
+    }
+
+    @Override
+    public boolean update(T entity) throws DatabaseException {
+        String filter = idFilter(idOf.apply(entity));
+        if (filter == null) {
+            return false;
+        }
+        String body = client.patch(table, filter, FlatJson.object(toRow.apply(entity)));
+        return !FlatJson.parseArray(body).isEmpty();
+    }
+
+    @Override
+    public boolean delete(String id) throws DatabaseException {
+        String filter = idFilter(id);
+        return filter != null && !FlatJson.parseArray(client.delete(table, filter)).isEmpty();
+    }
+
+    @Override
+    public T findById(String id) throws DatabaseException {
+        String filter = idFilter(id);
+        if (filter == null) {
+            return null;
+        }
+        List<Map<String, String>> rows = FlatJson.parseArray(client.get(table, "select=*&" + filter + "&limit=1"));
+        return rows.isEmpty() ? null : fromRow.apply(rows.get(0));
+    }
+
+    @Override
+    public List<T> findAll() throws DatabaseException {
+        return find(null);
+    }
+
+    /**
+     * Finds the entities matching PostgREST filter parameters.
+     *
+     * @param filter filter parameters such as status=eq.ACTIVE, or null for all
+     * @return the matching entities in the DAO's order
+     * @throws DatabaseException if the request fails
+     */
+    public List<T> find(String filter) throws DatabaseException {
+        StringBuilder query = new StringBuilder("select=*");
+        if (filter != null && !filter.isEmpty()) {
+            query.append('&').append(filter);
+        }
+        // id breaks ties so pages do not overlap or skip rows
+        query.append("&order=").append(order != null ? order + ",id.asc" : "id.asc");
+        List<T> entities = new ArrayList<>();
+        // The server may return fewer rows than asked for (max-rows), so only an empty page ends the scan
+        while (true) {
+            List<Map<String, String>> rows = FlatJson.parseArray(client.get(table,
+                    query + "&limit=" + PAGE_SIZE + "&offset=" + entities.size()));
+            if (rows.isEmpty()) {
+                return entities;
+            }
+            for (Map<String, String> row : rows) {
+                entities.add(fromRow.apply(row));
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String id) throws DatabaseException {
+        String filter = idFilter(id);
+        return filter != null && client.count(table, filter) > 0;
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        return client.count(table, null);
+    }
+
+    @Override
+    public int saveAll(List<T> entities) throws DatabaseException {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        int saved = 0;
+        for (int start = 0; start < entities.size(); start += BULK_CHUNK) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (T entity : entities.subList(start, Math.min(entities.size(), start + BULK_CHUNK))) {
+                rows.add(insertRow(entity));
+            }
+            saved += FlatJson.parseArray(client.post(table, FlatJson.array(rows))).size();
+        }
+        return saved;
+    }
+
+    @Override
+    public int deleteAll(List<String> ids) throws DatabaseException {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += DELETE_CHUNK) {
+            StringBuilder filter = new StringBuilder("id=in.(");
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + DELETE_CHUNK));
+            int values = 0;
+            for (String id : chunk) {
+                String value = id != null ? rowId.apply(id) : null;
+                if (value != null) {
+                    filter.append(values++ > 0 ? "," : "").append(quote(value));
+                }
+            }
+            if (values > 0) {
+                deleted += FlatJson.parseArray(client.delete(table, filter.append(')').toString())).size();
+            }
+        }
+        return deleted;
+    }
+
+    private String idFilter(String id) {
+        String value = id != null ? rowId.apply(id) : null;
+        return value != null ? "id=eq." + PostgrestClient.encode(value) : null;
+    }
+
+    // Values in an in.(...) list are double-quoted so commas and parentheses in IDs are literal
+    private static String quote(String id) {
+        return PostgrestClient.encode("\"" + id.replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+    }
+}
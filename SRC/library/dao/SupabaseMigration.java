@@ -0,0 +1,559 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.util.ConfigManager;
+import library.util.FlatJson;
+import library.util.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Copies the Supabase app's books, users and issues into the SQLite schema.
+ * A reader thread fetches pages by ascending ID and hands them over a
+ * bounded queue to the calling thread, which writes each page in one
+ * batched transaction; fetching the next page overlaps with writing the
+ * current one, and the queue bound keeps memory flat however large the
+ * tables are. The last copied ID, row count and checksum of every table are
+ * saved in system_config in the same transaction as the page, so an
+ * interrupted run resumes where it stopped and a later run copies only rows
+ * added since. A later run also re-checks the copied loans that are still
+ * open and picks up their returns; other edits to rows already copied
+ * (titles, names, quantities) are only picked up by a reset run.
+ * Book availability is not copied: the loan triggers adjust it one loan at a
+ * time and would count a loan twice, or push a re-applied return above the
+ * total, so they are dropped while loans are written and the available
+ * count of every book touched is recomputed from its active loans.
+ * Once all tables are written the row count and checksum of the copied rows
+ * are read back from SQLite and compared with what was sent.
+ * Supabase IDs are integers, so copied rows are the ones with an all-digit
+ * ID; the GUI's own IDs (B001, U001, L001) never match.
+ * Can be run from the command line with the supabase.url and supabase.key
+ * settings; pass reset to start over.
+ */
+public class SupabaseMigration {
+    private static final String CHECKPOINT_PREFIX = "migration.";
+    private static final String SAVE_CHECKPOINT =
+            "INSERT OR REPLACE INTO system_config (config_key, config_value, description) VALUES (?, ?, ?)";
+    private static final String[] AVAILABILITY_TRIGGERS =
+            {"update_book_availability_on_loan", "update_book_availability_on_return"};
+    private static final String RECOUNT_AVAILABLE = "UPDATE books SET available_copies = MAX(0, total_copies - "
+            + "(SELECT COUNT(*) FROM loans WHERE loans.book_id = books.id AND loans.status = 'ACTIVE')) WHERE id = ?";
+    private static final int RESYNC_CHUNK = 100;
+
+    /**
+     * Receives progress after every written page.
+     */
+    public interface ProgressListener {
+        void onProgress(String table, long rowsCopied, long sourceRows);
+    }
+
+    private final PostgrestClient client;
+    private final SQLiteDatabase database;
+    private final int pageSize;
+    private final int queueCapacity;
+    private final int loanDays;
+    private final Logger logger = Logger.getInstance();
+    private ProgressListener listener;
+
+    /**
+     * Creates a migration with page size and queue capacity from
+     * migration.page.size and migration.queue.capacity.
+     *
+     * @param client the Supabase REST client
+     * @param database the target database
+     */
+    public SupabaseMigration(PostgrestClient client, SQLiteDatabase database) {
+        ConfigManager config = ConfigManager.getInstance();
+        this.client = client;
+        this.database = database;
+        this.pageSize = Math.max(1, config.getIntProperty("migration.page.size", 500));
+        this.queueCapacity = Math.max(1, config.getIntProperty("migration.queue.capacity", 8));
+        this.loanDays = config.getMaxLoanDays();
+        this.listener = (table, copied, total) -> logger.logInfo(
+                String.format("Migrating %s: %d/%d rows", table, copied, total));
+    }
+
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Copies users, books and issues, in that order so loans find their
+     * user and book, then verifies every table.
+     *
+     * @return one result per table
+     * @throws DatabaseException if reading or writing fails; completed pages stay committed
+     */
+    public List<TableResult> run() throws DatabaseException {
+        List<Pass> passes = new ArrayList<>();
+        ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "supabase-migration-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (TableSpec spec : tables()) {
+                passes.add(copy(spec, reader));
+            }
+        } finally {
+            reader.shutdownNow();
+        }
+        // Only now, after the loans pass, are the books final
+        List<TableResult> results = new ArrayList<>();
+        for (Pass pass : passes) {
+            TableResult result = verify(pass);
+            logger.logInfo("Migration check: " + result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Forgets the checkpoints, so the next run copies everything again.
+     *
+     * @throws DatabaseException if the checkpoints cannot be removed
+     */
+    public void reset() throws DatabaseException {
+        database.update("DELETE FROM system_config WHERE config_key LIKE ?", CHECKPOINT_PREFIX + "%");
+    }
+
+    /**
+     * Outcome of copying one table.
+     */
+    public static class TableResult {
+        private final String table;
+        private final long rowsCopied;
+        private final long sourceRows;
+        private final long targetRows;
+        private final long sourceChecksum;
+        private final long targetChecksum;
+
+        TableResult(String table, long rowsCopied, long sourceRows, long targetRows,
+                    long sourceChecksum, long targetChecksum) {
+            this.table = table;
+            this.rowsCopied = rowsCopied;
+            this.sourceRows = sourceRows;
+            this.targetRows = targetRows;
+            this.sourceChecksum = sourceChecksum;
+            this.targetChecksum = targetChecksum;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Gets the rows copied by this run, not counting earlier runs.
+         *
+         * @return rows copied now
+         */
+        public long getRowsCopied() {
+            return rowsCopied;
+        }
+
+        public long getSourceRows() {
+            return sourceRows;
+        }
+
+        public long getTargetRows() {
+            return targetRows;
+        }
+
+        /**
+         * Checks that SQLite holds every source row, unchanged.
+         *
+         * @return true if the counts and checksums match
+         */
+        public boolean isVerified() {
+            return sourceRows == targetRows && sourceChecksum == targetChecksum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: copied %d, source %d, target %d, checksum %016x/%016x %s", table, rowsCopied,
+                    sourceRows, targetRows, sourceChecksum, targetChecksum, isVerified() ? "OK" : "MISMATCH");
+        }
+    }
+
+    public static void main(String[] args) {
+        Logger logger = Logger.getInstance();
+        try {
+            ConfigManager config = ConfigManager.getInstance();
+            SupabaseMigration migration = new SupabaseMigration(
+                    new PostgrestClient(config.getSupabaseUrl(), config.getSupabaseKey()), SQLiteDatabase.getInstance());
+            migration.setProgressListener((table, copied, total) ->
+                    System.out.printf("%-6s %d/%d%n", table, copied, total));
+            if (args.length > 0 && args[0].equals("reset")) {
+                migration.reset();
+            }
+            boolean verified = true;
+            for (TableResult result : migration.run()) {
+                System.out.println(result);
+                verified &= result.isVerified();
+            }
+            SQLiteDatabase.getInstance().close();
+            System.exit(verified ? 0 : 2);
+        } catch (DatabaseException e) {
+            logger.logError("Supabase migration failed", e);
+            System.err.println("Migration failed: " + e.getMessage() + " (rerun to resume)");
+            System.exit(1);
+        }
+    }
+
+    private Pass copy(TableSpec spec, ExecutorService reader) throws DatabaseException {
+        Checkpoint checkpoint = loadCheckpoint(spec.target);
+        long sourceRows = client.count(spec.source, null);
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        long startId = checkpoint.lastId;
+        Future<?> fetching = reader.submit(() -> fetch(spec.source, startId, queue));
+        long copied = 0;
+        try {
+            Batch batch;
+            while ((batch = queue.take()).rows != null) {
+                write(spec, batch, Collections.emptyMap(), checkpoint);
+                copied += batch.rows.size();
+                listener.onProgress(spec.target, checkpoint.rows, sourceRows);
+            }
+            if (batch.error != null) {
+                throw batch.error;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Migration of " + spec.source + " interrupted", e);
+        } finally {
+            fetching.cancel(true);
+        }
+        if (spec.resyncOpenRows != null && startId > 0) {
+            resync(spec, checkpoint);
+        }
+        return new Pass(spec, checkpoint, sourceRows, copied);
+    }
+
+    // Rows copied by an earlier run can change at the source (a loan is returned); re-reads the open ones
+    private void resync(TableSpec spec, Checkpoint checkpoint) throws DatabaseException {
+        Map<String, Long> open = new LinkedHashMap<>();
+        for (String[] values : database.query("SELECT " + spec.verifyColumns + " FROM " + spec.verifyFrom
+                + " WHERE " + spec.verifyWhere + " AND " + spec.resyncOpenRows, rs -> columns(rs, spec.columnCount))) {
+            open.put(values[0], rowChecksum(values));
+        }
+        List<String> ids = new ArrayList<>(open.keySet());
+        int changed = 0;
+        for (int start = 0; start < ids.size(); start += RESYNC_CHUNK) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + RESYNC_CHUNK));
+            List<Map<String, String>> rows = FlatJson.parseArray(client.get(spec.source,
+                    "select=*&id=in.(" + String.join(",", chunk) + ")&" + spec.resyncChangedRows));
+            if (rows.isEmpty()) {
+                continue;
+            }
+            Map<String, Long> replaced = new HashMap<>();
+            for (Map<String, String> row : rows) {
+                Long old = open.get(row.get("id"));
+                if (old != null) {
+                    replaced.put(row.get("id"), old);
+                }
+            }
+            write(spec, new Batch(rows, checkpoint.lastId, null), replaced, checkpoint);
+            changed += rows.size();
+        }
+        if (changed > 0) {
+            logger.logInfo("Migration updated " + changed + " " + spec.target + " changed since the last run");
+        }
+    }
+
+    private TableResult verify(Pass pass) throws DatabaseException {
+        TableSpec spec = pass.spec;
+        List<Long> target = database.query(
+                "SELECT " + spec.verifyColumns + " FROM " + spec.verifyFrom + " WHERE " + spec.verifyWhere,
+                rs -> rowChecksum(columns(rs, spec.columnCount)));
+        long targetChecksum = 0;
+        for (long rowChecksum : target) {
+            targetChecksum += rowChecksum;
+        }
+        return new TableResult(spec.target, pass.copied, pass.sourceRows, target.size(),
+                pass.checkpoint.checksum, targetChecksum);
+    }
+
+    private static String[] columns(ResultSet rs, int count) throws SQLException {
+        String[] values = new String[count];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getString(i + 1);
+        }
+        return values;
+    }
+
+    // Runs on the reader thread; always ends with a batch whose rows are null
+    private void fetch(String table, long afterId, BlockingQueue<Batch> queue) {
+        Batch end = new Batch(null, afterId, null);
+        try {
+            long lastId = afterId;
+            while (true) {
+                List<Map<String, String>> rows = FlatJson.parseArray(client.get(table,
+                        "select=*&id=gt." + lastId + "&order=id.asc&limit=" + pageSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                lastId = Long.parseLong(rows.get(rows.size() - 1).get("id"));
+                queue.put(new Batch(rows, lastId, null));
+                if (rows.size() < pageSize) {
+                    break;
+                }
+            }
+        } catch (DatabaseException e) {
+            end = new Batch(null, afterId, e);
+        } catch (RuntimeException e) {
+            end = new Batch(null, afterId, new DatabaseException("Unreadable page from " + table, e));
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            queue.put(end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes one page and its checkpoint in one transaction.
+     *
+     * @param replaced checksums of the already copied rows this page overwrites, by ID
+     */
+    private void write(TableSpec spec, Batch batch, Map<String, Long> replaced, Checkpoint checkpoint)
+            throws DatabaseException {
+        List<Object[]> rows = new ArrayList<>(batch.rows.size());
+        long checksum = checkpoint.checksum;
+        for (long old : replaced.values()) {
+            checksum -= old;
+        }
+        Set<String> categories = new LinkedHashSet<>();
+        Set<Object> bookIds = new LinkedHashSet<>();
+        for (Map<String, String> source : batch.rows) {
+            Object[] row;
+            try {
+                row = spec.mapper.apply(source);
+            } catch (RuntimeException e) {
+                throw new DatabaseException("Cannot convert " + spec.source + " row " + source.get("id"), e);
+            }
+            rows.add(row);
+            String[] values = new String[row.length];
+            for (int i = 0; i < row.length; i++) {
+                values[i] = row[i] != null ? row[i].toString() : null;
+            }
+            checksum += rowChecksum(values);
+            if (spec.categoryColumn >= 0 && row[spec.categoryColumn] != null) {
+                categories.add((String) row[spec.categoryColumn]);
+            }
+            if (spec.bookColumn >= 0) {
+                bookIds.add(row[spec.bookColumn]);
+            }
+        }
+        long rowCount = checkpoint.rows + rows.size() - replaced.size();
+        long newChecksum = checksum;
+        database.inTransaction(() -> {
+            if (!categories.isEmpty()) {
+                List<Object[]> names = new ArrayList<>();
+                for (String name : categories) {
+                    names.add(new Object[] {name});
+                }
+                database.batch("INSERT OR IGNORE INTO categories (name) VALUES (?)", names);
+            }
+            if (spec.bookColumn >= 0) {
+                writeWithoutAvailabilityTriggers(spec.upsert, rows);
+                List<Object[]> ids = new ArrayList<>();
+                for (Object id : bookIds) {
+                    ids.add(new Object[] {id});
+                }
+                database.batch(RECOUNT_AVAILABLE, ids);
+            } else {
+                database.batch(spec.upsert, rows);
+            }
+            database.update(SAVE_CHECKPOINT, CHECKPOINT_PREFIX + spec.target,
+                    batch.lastId + "," + rowCount + "," + newChecksum,
+                    "Supabase migration: last ID, rows, checksum");
+            return null;
+        });
+        checkpoint.lastId = batch.lastId;
+        checkpoint.rows = rowCount;
+        checkpoint.checksum = newChecksum;
+    }
+
+    // Must run inside a transaction, so the triggers are back before anyone else writes
+    private void writeWithoutAvailabilityTriggers(String sql, List<Object[]> rows) throws DatabaseException {
+        List<String> definitions = new ArrayList<>();
+        for (String name : AVAILABILITY_TRIGGERS) {
+            definitions.addAll(database.query("SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = ?",
+                    rs -> rs.getString(1), name));
+            database.update("DROP TRIGGER IF EXISTS " + name);
+        }
+        database.batch(sql, rows);
+        for (String definition : definitions) {
+            database.update(definition);
+        }
+    }
+
+    private Checkpoint loadCheckpoint(String table) throws DatabaseException {
+        List<String> saved = database.query("SELECT config_value FROM system_config WHERE config_key = ?",
+                rs -> rs.getString(1), CHECKPOINT_PREFIX + table);
+        Checkpoint checkpoint = new Checkpoint();
+        if (!saved.isEmpty() && saved.get(0) != null) {
+            String[] parts = saved.get(0).split(",");
+            if (parts.length == 3) {
+                checkpoint.lastId = Long.parseLong(parts[0]);
+                checkpoint.rows = Long.parseLong(parts[1]);
+                checkpoint.checksum = Long.parseLong(parts[2]);
+                logger.logInfo("Resuming migration of " + table + " after ID " + checkpoint.lastId);
+            }
+        }
+        return checkpoint;
+    }
+
+    // Order-independent: the table checksum is the sum of the row checksums
+    private static long rowChecksum(String[] values) {
+        CRC32 crc = new CRC32();
+        for (String value : values) {
+            crc.update(value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[] {0});
+            crc.update(1);
+        }
+        return crc.getValue();
+    }
+
+    private List<TableSpec> tables() {
+        return Arrays.asList(
+                new TableSpec("users", "users",
+                        "INSERT INTO users (id, name, email, role, is_active) VALUES (?, ?, ?, ?, ?) "
+                        + "ON CONFLICT(id) DO UPDATE SET name = excluded.name, email = excluded.email, "
+                        + "role = excluded.role",
+                        "id, name, email, role, is_active", "users", migratedRows("id"), 5, -1, -1, null, null,
+                        row -> new Object[] {row.get("id"), row.get("name"), row.get("email"),
+                                role(row.get("role")), 1}),
+                new TableSpec("books", "books",
+                        "INSERT INTO books (id, title, author, isbn, category_id, total_copies, available_copies) "
+                        + "VALUES (?, ?, ?, ?, (SELECT id FROM categories WHERE name = ?), ?, 0) "
+                        + "ON CONFLICT(id) DO UPDATE SET title = excluded.title, author = excluded.author, "
+                        + "isbn = excluded.isbn, category_id = excluded.category_id, "
+                        + "total_copies = excluded.total_copies, "
+                        + "available_copies = MIN(books.available_copies, excluded.total_copies)",
+                        "b.id, b.title, b.author, b.isbn, c.name, b.total_copies",
+                        "books b LEFT JOIN categories c ON c.id = b.category_id", migratedRows("b.id"),
+                        6, 4, 0, null, null, SupabaseMigration::bookRow),
+                new TableSpec("issues", "loans",
+                        "INSERT INTO loans (id, user_id, book_id, loan_date, due_date, return_date, status) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+                        + "ON CONFLICT(id) DO UPDATE SET return_date = excluded.return_date, status = excluded.status",
+                        "id, user_id, book_id, loan_date, due_date, return_date, status", "loans", migratedRows("id"), 7, -1,
+                        2, "status = 'ACTIVE'", "return_date=not.is.null", this::loanRow));
+    }
+
+    // Supabase IDs are positive integers; nothing else in SQLite has an all-digit ID
+    private static String migratedRows(String idColumn) {
+        return idColumn + " GLOB '[1-9]*' AND " + idColumn + " NOT GLOB '*[^0-9]*'";
+    }
+
+    // Available copies are recounted from the loans, not taken from the issued flag
+    private static Object[] bookRow(Map<String, String> row) {
+        int quantity = row.get("quantity") != null ? Integer.parseInt(row.get("quantity")) : 1;
+        String isbn = row.get("isbn");
+        String genre = row.get("genre");
+        return new Object[] {row.get("id"), row.get("title"), row.get("author"),
+                isbn == null || isbn.trim().isEmpty() ? null : isbn,
+                genre == null || genre.trim().isEmpty() ? null : genre.trim(), quantity};
+    }
+
+    private Object[] loanRow(Map<String, String> row) {
+        LocalDate issued = LocalDate.parse(row.get("issue_date").substring(0, 10));
+        String returned = row.get("return_date");
+        LocalDate returnDate = returned != null ? LocalDate.parse(returned.substring(0, 10)) : null;
+        return new Object[] {row.get("id"), row.get("user_id"), row.get("book_id"),
+                SQLiteDatabase.formatTimestamp(issued.atStartOfDay()),
+                SQLiteDatabase.formatTimestamp(issued.plusDays(loanDays).atStartOfDay()),
+                returnDate != null ? SQLiteDatabase.formatTimestamp(returnDate.atStartOfDay()) : null,
+                returnDate != null ? "RETURNED" : "ACTIVE"};
+    }
+
+    private static String role(String role) {
+        return role != null && (role.equalsIgnoreCase("librarian") || role.equalsIgnoreCase("admin"))
+                ? "LIBRARIAN" : "MEMBER";
+    }
+
+    private static class TableSpec {
+        final String source;
+        final String target;
+        final String upsert;
+        final String verifyColumns;
+        final String verifyFrom;
+        final String verifyWhere;
+        final int columnCount;
+        final int categoryColumn;
+        final int bookColumn; // Column holding a book ID whose availability the row affects, or -1
+        final String resyncOpenRows; // SQLite filter of copied rows that may still change, or null
+        final String resyncChangedRows; // PostgREST filter of those rows once they have changed
+        final Function<Map<String, String>, Object[]> mapper;
+
+        TableSpec(String source, String target, String upsert, String verifyColumns, String verifyFrom,
+                  String verifyWhere, int columnCount, int categoryColumn, int bookColumn, String resyncOpenRows,
+                  String resyncChangedRows, Function<Map<String, String>, Object[]> mapper) {
+            this.source = source;
+            this.target = target;
+            this.upsert = upsert;
+            this.verifyColumns = verifyColumns;
+            this.verifyFrom = verifyFrom;
+            this.verifyWhere = verifyWhere;
+            this.columnCount = columnCount;
+            this.categoryColumn = categoryColumn;
+            this.bookColumn = bookColumn;
+            this.resyncOpenRows = resyncOpenRows;
+            this.resyncChangedRows = resyncChangedRows;
+            this.mapper = mapper;
+        }
+    }
+
+    private static class Batch {
+        final List<Map<String, String>> rows;
+        final long lastId;
+        final DatabaseException error;
+
+        Batch(List<Map<String, String>> rows, long lastId, DatabaseException error) {
+            this.rows = rows;
+            this.lastId = lastId;
+            this.error = error;
+        }
+    }
+
+    private static class Pass {
+        final TableSpec spec;
+        final Checkpoint checkpoint;
+        final long sourceRows;
+        final long copied;
+
+        Pass(TableSpec spec, Checkpoint checkpoint, long sourceRows, long copied) {
+            this.spec = spec;
+            this.checkpoint = checkpoint;
+            this.sourceRows = sourceRows;
+            this.copied = copied;
+        }
+    }
+
+    private static class Checkpoint {
+        long lastId;
+        long rows;
+        long checksum;
+    }
+}
@@ -0,0 +1,192 @@
+package library.dao;
+
+import library.exception.DatabaseException;
+import library.model.Book;
+import library.model.Category;
+import library.model.Loan;
+import library.model.LoanStatus;
+import library.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Storage engine over the Supabase project the rest of the application
+ * uses (see dao.SupabaseBookDao and friends): books with an issued flag,
+ * users with a login role, and issues as loans. IDs there are integers, so
+ * entity IDs map onto them by prefix: book B012 is row 12, user U007 row 7,
+ * loan L003 issue 3. Fields those tables have no column for (publication
+ * year, phone, notes, fines) are not stored. The project has no categories
+ * table; categories are kept in memory and a book's category travels as its
+ * genre when the table has one.
+ * New rows are written with their IDs, so if the Supabase app inserts into
+ * the same tables at the same time, its ID sequences must be kept ahead of
+ * the IDs used here.
+ */
+public class SupabaseStorageEngine implements StorageEngine {
+    private static final int LOAN_DAYS = 14; // Loan period of the Supabase app (service.IssueService)
+
+    private final InMemoryDAO<Category> categories = new InMemoryDAO<>(category -> String.valueOf(category.getId()));
+    private final SupabaseDAO<Book> books;
+    private final SupabaseDAO<User> users;
+    private final SupabaseDAO<Loan> loans;
+
+    /**
+     * Creates the engine.
+     *
+     * @param url the Supabase project URL
+     * @param key the Supabase API key
+     * @throws DatabaseException if the URL or key is missing
+     */
+    public SupabaseStorageEngine(String url, String key) throws DatabaseException {
+        PostgrestClient client = new PostgrestClient(url, key);
+        this.books = new SupabaseDAO<>(client, "books", "title.asc", Book::getId, id -> rowId("B", id),
+                SupabaseStorageEngine::bookRow, this::toBook);
+        this.users = new SupabaseDAO<User>(client, "users", "name.asc", User::getId, id -> rowId("U", id),
+                SupabaseStorageEngine::userRow, SupabaseStorageEngine::toUser) {
+            // New accounts get a random password and the member role; updates never touch either
+            @Override
+            protected Map<String, Object> insertRow(User user) {
+                Map<String, Object> row = super.insertRow(user);
+                row.put("password", UUID.randomUUID().toString());
+                row.put("role", "student");
+                return row;
+            }
+        };
+        this.loans = new SupabaseDAO<>(client, "issues", "issue_date.desc", Loan::getId, id -> rowId("L", id),
+                SupabaseStorageEngine::loanRow, SupabaseStorageEngine::toLoan);
+    }
+
+    @Override
+    public String getName() {
+        return StorageEngines.SUPABASE;
+    }
+
+    @Override
+    public SupabaseDAO<Book> books() {
+        return books;
+    }
+
+    @Override
+    public SupabaseDAO<User> users() {
+        return users;
+    }
+
+    @Override
+    public SupabaseDAO<Loan> loans() {
+        return loans;
+    }
+
+    @Override
+    public BaseDAO<Category> categories() {
+        return categories;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    private static Map<String, Object> bookRow(Book book) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", parseRowId(book.getId()));
+        row.put("title", book.getTitle());
+        row.put("author", book.getAuthor());
+        row.put("isbn", book.getIsbn());
+        row.put("issued", book.getAvailableCopies() == 0);
+        return row;
+    }
+
+    private Book toBook(Map<String, String> row) {
+        int total = row.get("quantity") != null ? Math.max(1, parseInt(row.get("quantity"))) : 1;
+        boolean issued = "true".equals(row.get("issued"));
+        Book book = new Book(entityId("B", row.get("id")), row.get("title"), row.get("author"), row.get("isbn"),
+                0, total, issued ? 0 : total);
+        String genre = row.get("genre");
+        if (genre != null && !genre.isEmpty()) {
+            book.setCategory(categoryNamed(genre));
+        }
+        return book;
+    }
+
+    private static Map<String, Object> userRow(User user) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", parseRowId(user.getId()));
+        row.put("name", user.getName());
+        row.put("email", user.getEmail());
+        return row;
+    }
+
+    private static User toUser(Map<String, String> row) {
+        return new User(entityId("U", row.get("id")), row.get("name"), row.get("email"));
+    }
+
+    private static Map<String, Object> loanRow(Loan loan) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", parseRowId(loan.getId()));
+        row.put("book_id", parseRowId(loan.getBookId()));
+        row.put("user_id", parseRowId(loan.getUserId()));
+        row.put("issue_date", formatDate(loan.getLoanDate()));
+        row.put("return_date", formatDate(loan.getReturnDate()));
+        return row;
+    }
+
+    private static Loan toLoan(Map<String, String> row) {
+        LocalDate issueDate = LocalDate.parse(row.get("issue_date"));
+        LocalDate returnDate = row.get("return_date") != null ? LocalDate.parse(row.get("return_date")) : null;
+        LocalDate dueDate = issueDate.plusDays(LOAN_DAYS);
+        LoanStatus status = returnDate != null ? LoanStatus.RETURNED
+                : dueDate.isBefore(LocalDate.now()) ? LoanStatus.OVERDUE : LoanStatus.ACTIVE;
+        return new Loan(entityId("L", row.get("id")), entityId("U", row.get("user_id")),
+                entityId("B", row.get("book_id")), issueDate.atStartOfDay(), dueDate.atStartOfDay(),
+                returnDate != null ? returnDate.atStartOfDay() : null, status, 0.0);
+    }
+
+    private synchronized Category categoryNamed(String name) {
+        int lastId = 0;
+        for (Category category : categories.findAll()) {
+            if (category.getName().equalsIgnoreCase(name)) {
+                return category;
+            }
+            lastId = Math.max(lastId, category.getId());
+        }
+        Category category = new Category(lastId + 1, name, null);
+        categories.save(category);
+        return category;
+    }
+
+    // B012 -> "12"; null when the ID has no number after its prefix
+    private static String rowId(String prefix, String id) {
+        if (id == null || !id.startsWith(prefix)) {
+            return null;
+        }
+        String digits = id.substring(prefix.length());
+        return digits.matches("\\d{1,9}") ? String.valueOf(Integer.parseInt(digits)) : null;
+    }
+
+    private static Integer parseRowId(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        String value = rowId(id.substring(0, 1), id);
+        if (value == null) {
+            throw new IllegalArgumentException("ID " + id + " has no numeric part for Supabase");
+        }
+        return Integer.valueOf(value);
+    }
+
+    private static String entityId(String prefix, String rowId) {
+        return rowId != null ? prefix + String.format("%03d", parseInt(rowId)) : null;
+    }
+
+    private static String formatDate(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate().toString() : null;
+    }
+
+    private static int parseInt(String value) {
+        return value != null ? (int) Double.parseDouble(value) : 0;
+    }
+}
@@ -1,13 +1,16 @@
 package library.model;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Book extends Publication {
     private String isbn;
-    private int totalCopies = 1;
-    private int availableCopies = 1;
-    private Map<String, Loan> activeLoans = new HashMap<>();
-    private Set<String> reservedByUsers = new HashSet<>();
+    private volatile int totalCopies = 1;
+    // Changed only by compare-and-set, so concurrent loans can never take more copies than there are
+    private final AtomicInteger availableCopies = new AtomicInteger(1);
+    private Map<String, Loan> activeLoans = new ConcurrentHashMap<>();
+    private Set<String> reservedByUsers = ConcurrentHashMap.newKeySet();
     
     private static final int DEFAULT_MAX_LOAN_DAYS = 14;
     private static final String BOOK_TYPE = "BOOK";
@@ -27,7 +30,7 @@ public class Book extends Publication {
         super(id, title, author, publicationYear);
         this.isbn = isbn;
         this.totalCopies = totalCopies;
-        this.availableCopies = availableCopies;
+        this.availableCopies.set(availableCopies);
     }
     
     @Override
@@ -37,7 +40,7 @@ public class Book extends Publication {
     
     @Override
     public boolean isAvailable() {
-        return availableCopies > 0;
+        return availableCopies.get() > 0;
     }
     
     @Override
@@ -60,36 +63,71 @@ public class Book extends Publication {
         return totalCopies;
     }
     
-    public void setTotalCopies(int totalCopies) {
+    public synchronized void setTotalCopies(int totalCopies) {
         if (totalCopies < 0) {
             throw new IllegalArgumentException("Total copies cannot be negative");
         }
-        if (totalCopies < (this.totalCopies - availableCopies)) {
+        if (totalCopies < (this.totalCopies - availableCopies.get())) {
             throw new IllegalArgumentException("Cannot set total copies less than borrowed copies");
         }
         
         int difference = totalCopies - this.totalCopies;
         this.totalCopies = totalCopies;
-        this.availableCopies = Math.max(0, this.availableCopies + difference);
+        availableCopies.updateAndGet(available -> Math.max(0, Math.min(totalCopies, available + difference)));
     }
     
     public int getAvailableCopies() {
-        return availableCopies;
+        return availableCopies.get();
     }
     
     public void setAvailableCopies(int availableCopies) {
         if (availableCopies < 0 || availableCopies > totalCopies) {
             throw new IllegalArgumentException("Invalid available copies count");
         }
-        this.availableCopies = availableCopies;
+        this.availableCopies.set(availableCopies);
     }
     
     public int getBorrowedCopies() {
-        return totalCopies - availableCopies;
+        return totalCopies - availableCopies.get();
+    }
+    
+    /**
+     * Takes one copy off the shelf if any is left.
+     * Safe to call from several threads: the count never goes below zero.
+     *
+     * @return true if a copy was taken
+     */
+    public boolean reserveCopy() {
+        while (true) {
+            int available = availableCopies.get();
+            if (available <= 0) {
+                return false;
+            }
+            if (availableCopies.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Puts one copy back on the shelf, never above the total.
+     *
+     * @return true if a copy was put back
+     */
+    public boolean releaseCopy() {
+        while (true) {
+            int available = availableCopies.get();
+            if (available >= totalCopies) {
+                return false;
+            }
+            if (availableCopies.compareAndSet(available, available + 1)) {
+                return true;
+            }
+        }
     }
     
     public boolean borrowCopy(Loan loan) {
-        if (!isAvailable() || loan == null) {
+        if (loan == null) {
             return false;
         }
         
@@ -97,7 +135,9 @@ public class Book extends Publication {
             throw new IllegalArgumentException("Loan book ID does not match this book");
         }
         
-        availableCopies--;
+        if (!reserveCopy()) {
+            return false;
+        }
         activeLoans.put(loan.getId(), loan);
         return true;
     }
@@ -105,29 +145,35 @@ public class Book extends Publication {
     public boolean returnCopy(String loanId) {
         Loan loan = activeLoans.remove(loanId);
         if (loan != null) {
-            availableCopies++;
+            releaseCopy();
             return true;
         }
         return false;
     }
     
-    public void addCopies(int copiesToAdd) {
+    public synchronized void addCopies(int copiesToAdd) {
         if (copiesToAdd <= 0) {
             throw new IllegalArgumentException("Number of copies to add must be positive");
         }
         
         this.totalCopies += copiesToAdd;
-        this.availableCopies += copiesToAdd;
+        availableCopies.addAndGet(copiesToAdd);
     }
     
-    public boolean removeCopies(int copiesToRemove) {
-        if (copiesToRemove <= 0 || copiesToRemove > availableCopies) {
+    public synchronized boolean removeCopies(int copiesToRemove) {
+        if (copiesToRemove <= 0) {
             return false;
         }
-        
-        this.totalCopies -= copiesToRemove;
-        this.availableCopies -= copiesToRemove;
-        return true;
+        while (true) {
+            int available = availableCopies.get();
+            if (copiesToRemove > available) {
+                return false;
+            }
+            if (availableCopies.compareAndSet(available, available - copiesToRemove)) {
+                this.totalCopies -= copiesToRemove;
+                return true;
+            }
+        }
     }
     
     public Map<String, Loan> getActiveLoans() {
@@ -159,10 +205,11 @@ public class Book extends Publication {
     
     public boolean isPopular() {
         return !reservedByUsers.isEmpty() || 
-               (totalCopies > 1 && availableCopies <= totalCopies * 0.2);
+               (totalCopies > 1 && availableCopies.get() <= totalCopies * 0.2);
     }
     
     public String getAvailabilityStatus() {
+        int availableCopies = this.availableCopies.get();
         if (availableCopies == 0) {
             return "Not Available";
         } else if (availableCopies == 1) {
@@ -176,7 +223,7 @@ public class Book extends Publication {
         StringBuilder summary = new StringBuilder();
         summary.append(getDisplayInfo()).append("\n");
         summary.append("ISBN: ").append(isbn).append("\n");
-        summary.append("Copies: ").append(availableCopies).append("/").append(totalCopies).append("\n");
+        summary.append("Copies: ").append(availableCopies.get()).append("/").append(totalCopies).append("\n");
         
         if (!reservedByUsers.isEmpty()) {
             summary.append("Reservations: ").append(reservedByUsers.size()).append("\n");
@@ -207,6 +254,6 @@ public class Book extends Publication {
     @Override
     public String toString() {
         return String.format("Book{id='%s', title='%s', author='%s', isbn='%s', available=%d/%d}", 
-                           getId(), getTitle(), getAuthor(), isbn, availableCopies, totalCopies);
+                           getId(), getTitle(), getAuthor(), isbn, availableCopies.get(), totalCopies);
     }
 }
\ No newline at end of file
@@ -43,4 +43,5 @@ public class BorrowRequest {
     public RequestStatus getStatus() { return status; }
     
     public void setStatus(RequestStatus status) { this.status = status; }
+    public void setRequestDate(LocalDate requestDate) { this.requestDate = requestDate; }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package library.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A loan lifecycle event as recorded in the loan event journal.
+ */
+public class LoanEvent {
+
+    /**
+     * What happened to the loan.
+     */
+    public enum Type {
+        ISSUED,
+        APPROVED,
+        RETURNED,
+        EXTENDED,
+        LOST,
+        FINE_ASSESSED;
+
+        private static final Type[] VALUES = values();
+
+        /**
+         * Gets the type stored under an ordinal code.
+         *
+         * @param code the ordinal written to the journal
+         * @return the type, or null if the code is unknown
+         */
+        public static Type fromCode(int code) {
+            return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+        }
+    }
+
+    private final long sequence;
+    private final LocalDateTime timestamp;
+    private final Type type;
+    private final String loanId;
+    private final String userId;
+    private final String bookId;
+    private final LocalDateTime dueDate;
+    private final double fineAmount;
+
+    /**
+     * Creates an event.
+     *
+     * @param sequence journal sequence number, 0 before it is appended
+     * @param timestamp when the event happened
+     * @param type what happened
+     * @param loanId the loan
+     * @param userId the borrower
+     * @param bookId the book
+     * @param dueDate the due date after the event (may be null)
+     * @param fineAmount the fine after the event
+     */
+    public LoanEvent(long sequence, LocalDateTime timestamp, Type type, String loanId, String userId,
+                     String bookId, LocalDateTime dueDate, double fineAmount) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.loanId = loanId;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.dueDate = dueDate;
+        this.fineAmount = fineAmount;
+    }
+
+    /**
+     * Creates an event describing the current state of a loan.
+     *
+     * @param type what happened
+     * @param loan the loan it happened to
+     * @return the event, not yet sequenced
+     */
+    public static LoanEvent of(Type type, Loan loan) {
+        return new LoanEvent(0, LocalDateTime.now(), type, loan.getId(), loan.getUserId(), loan.getBookId(),
+                loan.getDueDate(), loan.getFineAmount());
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getLoanId() {
+        return loanId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public double getFineAmount() {
+        return fineAmount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoanEvent{#%d %s %s loan=%s user=%s book=%s}",
+                sequence, timestamp, type, loanId, userId, bookId);
+    }
+}
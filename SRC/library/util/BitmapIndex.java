@@ -0,0 +1,214 @@
+package library.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitset index of documents by facet value.
+ * Each document gets a small integer ordinal, and each facet value keeps a
+ * BitSet of the ordinals that have it. Filters combine with bitwise AND/OR and
+ * facet counts are bit cardinalities, so neither needs the documents themselves.
+ */
+public class BitmapIndex {
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> docIds = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<Object, BitSet>> facets = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Sets the value of one facet for a document, replacing any previous value.
+     *
+     * @param docId the document identifier
+     * @param facet the facet name
+     * @param value the facet value (null is allowed, e.g. "no category")
+     */
+    public void put(String docId, String facet, Object value) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalFor(docId);
+            Map<Object, BitSet> values = facets.computeIfAbsent(facet, f -> new LinkedHashMap<>());
+            for (BitSet bits : values.values()) {
+                bits.clear(ordinal);
+            }
+            values.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from every facet.
+     *
+     * @param docId the document identifier
+     */
+    public void remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(docId);
+            if (ordinal == null) {
+                return;
+            }
+            for (Map<Object, BitSet> values : facets.values()) {
+                for (BitSet bits : values.values()) {
+                    bits.clear(ordinal);
+                }
+            }
+            live.clear(ordinal);
+            docIds.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document and facet.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            docIds.clear();
+            freeOrdinals.clear();
+            live.clear();
+            facets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the set of all indexed documents.
+     *
+     * @return a new BitSet the caller may modify
+     */
+    public BitSet all() {
+        lock.readLock().lock();
+        try {
+            return (BitSet) live.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the documents having any of the given values of a facet (bitwise OR).
+     *
+     * @param facet the facet name
+     * @param values the accepted values
+     * @return a new BitSet the caller may modify
+     */
+    public BitSet anyOf(String facet, Object... values) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet();
+            Map<Object, BitSet> facetValues = facets.get(facet);
+            if (facetValues != null) {
+                for (Object value : values) {
+                    BitSet bits = facetValues.get(value);
+                    if (bits != null) {
+                        result.or(bits);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts documents per value of a facet, restricted to a set of documents.
+     *
+     * @param facet the facet name
+     * @param within the documents to count (not modified)
+     * @return count per facet value, in first-seen order; values with no documents are left out
+     */
+    public Map<Object, Integer> counts(String facet, BitSet within) {
+        lock.readLock().lock();
+        try {
+            Map<Object, Integer> counts = new LinkedHashMap<>();
+            Map<Object, BitSet> facetValues = facets.get(facet);
+            if (facetValues != null) {
+                for (Map.Entry<Object, BitSet> entry : facetValues.entrySet()) {
+                    BitSet bits = (BitSet) entry.getValue().clone();
+                    bits.and(within);
+                    int count = bits.cardinality();
+                    if (count > 0) {
+                        counts.put(entry.getKey(), count);
+                    }
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the ordinal assigned to a document.
+     *
+     * @param docId the document identifier
+     * @return the ordinal, or -1 if the document is not indexed
+     */
+    public int ordinalOf(String docId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(docId);
+            return ordinal != null ? ordinal : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves a set of ordinals back to document identifiers.
+     *
+     * @param bits the ordinals
+     * @return document identifiers in ordinal order
+     */
+    public List<String> docIds(BitSet bits) {
+        lock.readLock().lock();
+        try {
+            List<String> result = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0 && i < docIds.size(); i = bits.nextSetBit(i + 1)) {
+                String docId = docIds.get(i);
+                if (docId != null) {
+                    result.add(docId);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int ordinalFor(String docId) {
+        Integer ordinal = ordinals.get(docId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int newOrdinal;
+        if (!freeOrdinals.isEmpty()) {
+            newOrdinal = freeOrdinals.pop();
+            docIds.set(newOrdinal, docId);
+        } else {
+            newOrdinal = docIds.size();
+            docIds.add(docId);
+        }
+        ordinals.put(docId, newOrdinal);
+        live.set(newOrdinal);
+        return newOrdinal;
+    }
+}
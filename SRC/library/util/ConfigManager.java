@@ -310,6 +310,33 @@ public class ConfigManager {
         return getProperty("database.driver", "org.sqlite.JDBC");
     }
     
+    /**
+     * Gets the storage engine name: memory, sqlite or supabase.
+     * 
+     * @return the storage engine name
+     */
+    public String getStorageEngine() {
+        return getProperty("storage.engine", "memory");
+    }
+    
+    /**
+     * Gets the Supabase project URL used by the supabase storage engine.
+     * 
+     * @return the Supabase URL, or null if not configured
+     */
+    public String getSupabaseUrl() {
+        return getProperty("supabase.url");
+    }
+    
+    /**
+     * Gets the Supabase API key used by the supabase storage engine.
+     * 
+     * @return the Supabase API key, or null if not configured
+     */
+    public String getSupabaseKey() {
+        return getProperty("supabase.key");
+    }
+    
     /**
      * Gets the maximum loan days.
      * 
@@ -0,0 +1,241 @@
+package library.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for flat REST rows.
+ * Writes objects whose values are strings, numbers, booleans or null, and
+ * reads arrays of such objects. Nested objects and arrays in a row are kept
+ * as their raw JSON text.
+ */
+public final class FlatJson {
+
+    private FlatJson() {
+    }
+
+    /**
+     * Writes one object.
+     *
+     * @param fields the fields in output order
+     * @return the JSON text
+     */
+    public static String object(Map<String, Object> fields) {
+        StringBuilder json = new StringBuilder(64);
+        appendObject(json, fields);
+        return json.toString();
+    }
+
+    /**
+     * Writes an array of objects.
+     *
+     * @param rows the objects
+     * @return the JSON text
+     */
+    public static String array(List<Map<String, Object>> rows) {
+        StringBuilder json = new StringBuilder(64 * rows.size() + 2);
+        json.append('[');
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendObject(json, rows.get(i));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Reads an array of objects.
+     *
+     * @param json the JSON text
+     * @return one map per object; string values unescaped, other scalars as written, null for null
+     * @throws IllegalArgumentException if the text is not an array of objects
+     */
+    public static List<Map<String, String>> parseArray(String json) {
+        Parser parser = new Parser(json);
+        List<Map<String, String>> rows = new ArrayList<>();
+        parser.skipWhitespace();
+        parser.expect('[');
+        parser.skipWhitespace();
+        if (parser.peek() == ']') {
+            return rows;
+        }
+        do {
+            parser.skipWhitespace();
+            rows.add(parser.readObject());
+            parser.skipWhitespace();
+        } while (parser.tryConsume(','));
+        parser.expect(']');
+        return rows;
+    }
+
+    private static void appendObject(StringBuilder json, Map<String, Object> fields) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, field.getKey());
+            json.append(':');
+            Object value = field.getValue();
+            if (value == null) {
+                json.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                appendString(json, value.toString());
+            }
+        }
+        json.append('}');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> readObject() {
+            Map<String, String> row = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (tryConsume('}')) {
+                return row;
+            }
+            do {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                row.put(key, readValue());
+                skipWhitespace();
+            } while (tryConsume(','));
+            expect('}');
+            return row;
+        }
+
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                int start = pos;
+                skipNested();
+                return text.substring(start, pos);
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+        }
+
+        void skipNested() {
+            int depth = 0;
+            do {
+                char c = peek();
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean tryConsume(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (next() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + (pos - 1));
+            }
+        }
+
+        char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+    }
+}
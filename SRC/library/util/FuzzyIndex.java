@@ -0,0 +1,328 @@
+package library.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant keyword index over short text fields.
+ * Every distinct word is broken into trigrams; a query word first collects the
+ * vocabulary words sharing enough trigrams with it, and only those candidates
+ * are scored with a bounded edit distance (adjacent swaps count as one edit).
+ */
+public class FuzzyIndex {
+
+    // A single edit can destroy at most this many padded trigrams
+    private static final int GRAMS_PER_EDIT = 3;
+
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final List<Set<String>> wordDocs = new ArrayList<>();
+    private final Map<String, Postings> gramWords = new HashMap<>();
+    private final Map<String, Set<Integer>> docWords = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes (or re-indexes) a document.
+     *
+     * @param docId the document identifier
+     * @param fields text fields to index (null fields are skipped)
+     */
+    public void index(String docId, String... fields) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(docId);
+            Set<Integer> ids = new HashSet<>();
+            for (String field : fields) {
+                for (String word : tokenize(field)) {
+                    int wordId = wordId(word);
+                    wordDocs.get(wordId).add(docId);
+                    ids.add(wordId);
+                }
+            }
+            docWords.put(docId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param docId the document identifier
+     */
+    public void remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document and word from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            wordIds.clear();
+            words.clear();
+            wordDocs.clear();
+            gramWords.clear();
+            docWords.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds documents whose words are within a few edits of the query words.
+     * Documents matching more query words rank first, then closer matches.
+     *
+     * @param query free-text query, possibly misspelled
+     * @param limit maximum number of results
+     * @return matching document identifiers, best first
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, double[]> scores = new HashMap<>(); // doc -> {terms matched, total closeness}
+            for (String term : terms) {
+                Map<String, Double> termScores = new HashMap<>();
+                int maxEdits = maxEdits(term);
+                for (int wordId : candidates(term, maxEdits)) {
+                    int distance = boundedDistance(term, words.get(wordId), maxEdits);
+                    if (distance > maxEdits) {
+                        continue;
+                    }
+                    double closeness = (double) (maxEdits + 1 - distance) / (maxEdits + 1);
+                    for (String docId : wordDocs.get(wordId)) {
+                        termScores.merge(docId, closeness, Math::max);
+                    }
+                }
+                for (Map.Entry<String, Double> entry : termScores.entrySet()) {
+                    double[] score = scores.computeIfAbsent(entry.getKey(), k -> new double[2]);
+                    score[0] += 1;
+                    score[1] += entry.getValue();
+                }
+            }
+
+            List<Map.Entry<String, double[]>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byTerms = Double.compare(b.getValue()[0], a.getValue()[0]);
+                if (byTerms != 0) return byTerms;
+                int byCloseness = Double.compare(b.getValue()[1], a.getValue()[1]);
+                return byCloseness != 0 ? byCloseness : a.getKey().compareTo(b.getKey());
+            });
+
+            List<String> results = new ArrayList<>();
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                results.add(ranked.get(i).getKey());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return the document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Edit budget by word length: short words must match exactly,
+     * medium words may have one typo and long words two.
+     */
+    static int maxEdits(String term) {
+        if (term.length() <= 2) return 0;
+        if (term.length() <= 5) return 1;
+        return 2;
+    }
+
+    /**
+     * Collects vocabulary words that share enough trigrams with the term to be
+     * within the edit budget, using the q-gram count filter. Trigrams are
+     * counted as multisets: a trigram occurring twice in both words counts
+     * twice, as the bound assumes.
+     */
+    private List<Integer> candidates(String term, int maxEdits) {
+        List<Integer> result = new ArrayList<>();
+        if (maxEdits == 0) {
+            Integer exact = wordIds.get(term);
+            if (exact != null && !wordDocs.get(exact).isEmpty()) {
+                result.add(exact);
+            }
+            return result;
+        }
+
+        List<String> grams = trigrams(term);
+        int needed = Math.max(1, grams.size() - GRAMS_PER_EDIT * maxEdits);
+        int[] counts = new int[words.size()];
+        List<Integer> touched = new ArrayList<>();
+        for (Map.Entry<String, Integer> gram : gramCounts(grams).entrySet()) {
+            Postings postings = gramWords.get(gram.getKey());
+            if (postings == null) continue;
+            for (int i = 0; i < postings.size; i++) {
+                int wordId = postings.wordIds[i];
+                if (counts[wordId] == 0) {
+                    touched.add(wordId);
+                }
+                counts[wordId] += Math.min(gram.getValue(), postings.counts[i]);
+            }
+        }
+        for (int wordId : touched) {
+            if (counts[wordId] >= needed
+                    && Math.abs(words.get(wordId).length() - term.length()) <= maxEdits
+                    && !wordDocs.get(wordId).isEmpty()) {
+                result.add(wordId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance, abandoned as soon as every cell in a
+     * row exceeds the bound.
+     *
+     * @return the distance, or bound + 1 if it is larger than the bound
+     */
+    static int boundedDistance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     *
+     * @param text the text to split
+     * @return the words (possibly empty)
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Occurrences of each trigram, in first-seen order
+    private static Map<String, Integer> gramCounts(List<String> grams) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String gram : grams) {
+            counts.merge(gram, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private int wordId(String word) {
+        Integer id = wordIds.get(word);
+        if (id != null) {
+            return id;
+        }
+        int newId = words.size();
+        wordIds.put(word, newId);
+        words.add(word);
+        wordDocs.add(new HashSet<>());
+        for (Map.Entry<String, Integer> gram : gramCounts(trigrams(word)).entrySet()) {
+            gramWords.computeIfAbsent(gram.getKey(), g -> new Postings()).add(newId, gram.getValue());
+        }
+        return newId;
+    }
+
+    private void removeUnlocked(String docId) {
+        Set<Integer> ids = docWords.remove(docId);
+        if (ids == null) {
+            return;
+        }
+        // Words keep their ids and trigram postings; a word with no documents is skipped at query time
+        for (int wordId : ids) {
+            wordDocs.get(wordId).remove(docId);
+        }
+    }
+
+    /**
+     * Growable postings of one trigram: the words containing it and how often
+     * each contains it.
+     */
+    private static class Postings {
+        private int[] wordIds = new int[4];
+        private int[] counts = new int[4];
+        private int size;
+
+        void add(int wordId, int count) {
+            if (size == wordIds.length) {
+                wordIds = Arrays.copyOf(wordIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            wordIds[size] = wordId;
+            counts[size++] = count;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Hands out IDs such as "L001", "L002" from an atomic counter.
+ * Every call takes a new number, so two threads never get the same ID, and
+ * numbers never go back even after entries are deleted. Seed it with the
+ * IDs already in use (restored data, sample data) so it continues after the
+ * highest one; any other ID in use is skipped.
+ */
+public class IdGenerator {
+    private final String prefix;
+    private final String format;
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param prefix the letters in front of the number
+     * @param digits the minimum number of digits, zero-padded
+     */
+    public IdGenerator(String prefix, int digits) {
+        this.prefix = prefix;
+        this.format = "%0" + Math.max(1, digits) + "d";
+    }
+
+    /**
+     * Moves the counter past the highest of the given IDs that has this prefix.
+     *
+     * @param ids IDs already in use
+     */
+    public void seed(Iterable<String> ids) {
+        for (String id : ids) {
+            if (id != null && id.startsWith(prefix) && id.length() > prefix.length()) {
+                String digits = id.substring(prefix.length());
+                if (digits.length() <= 18 && digits.chars().allMatch(Character::isDigit)) {
+                    long number = Long.parseLong(digits);
+                    last.accumulateAndGet(number, Math::max);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the next ID that is not taken.
+     *
+     * @param taken tells whether an ID is already in use
+     * @return a new ID
+     */
+    public String next(Predicate<String> taken) {
+        String id;
+        do {
+            id = prefix + String.format(format, last.incrementAndGet());
+        } while (taken.test(id));
+        return id;
+    }
+}
@@ -136,4 +136,50 @@ CREATE TRIGGER IF NOT EXISTS update_book_availability_on_return
         UPDATE books 
         SET available_copies = available_copies + 1 
         WHERE id = NEW.book_id;
-    END;
\ No newline at end of file
+    END;
+-- Full-text index over books for ranked keyword search (title, author, isbn, category name)
+CREATE VIRTUAL TABLE IF NOT EXISTS books_fts USING fts5(
+    book_id UNINDEXED,
+    title,
+    author,
+    isbn,
+    category,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+CREATE TRIGGER IF NOT EXISTS books_fts_insert
+    AFTER INSERT ON books
+    BEGIN
+        INSERT INTO books_fts (rowid, book_id, title, author, isbn, category)
+        SELECT NEW.rowid, NEW.id, NEW.title, NEW.author, NEW.isbn,
+               (SELECT name FROM categories WHERE id = NEW.category_id);
+    END;
+
+CREATE TRIGGER IF NOT EXISTS books_fts_update
+    AFTER UPDATE OF title, author, isbn, category_id ON books
+    BEGIN
+        DELETE FROM books_fts WHERE rowid = OLD.rowid;
+        INSERT INTO books_fts (rowid, book_id, title, author, isbn, category)
+        SELECT NEW.rowid, NEW.id, NEW.title, NEW.author, NEW.isbn,
+               (SELECT name FROM categories WHERE id = NEW.category_id);
+    END;
+
+CREATE TRIGGER IF NOT EXISTS books_fts_delete
+    AFTER DELETE ON books
+    BEGIN
+        DELETE FROM books_fts WHERE rowid = OLD.rowid;
+    END;
+
+CREATE TRIGGER IF NOT EXISTS books_fts_category_rename
+    AFTER UPDATE OF name ON categories
+    BEGIN
+        UPDATE books_fts SET category = NEW.name
+        WHERE rowid IN (SELECT rowid FROM books WHERE category_id = NEW.id);
+    END;
+
+-- Index books that existed before the full-text table was added
+INSERT INTO books_fts (rowid, book_id, title, author, isbn, category)
+SELECT b.rowid, b.id, b.title, b.author, b.isbn, c.name
+FROM books b LEFT JOIN categories c ON c.id = b.category_id
+WHERE b.rowid NOT IN (SELECT rowid FROM books_fts);
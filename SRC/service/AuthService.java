@@ -1,8 +1,10 @@
 package service;
 
 import dao.SupabaseUserDao;
+import java.util.concurrent.CompletableFuture;
 import model.User;
 import util.Logger;
+import util.ServiceExecutor;
 
 public class AuthService {
     private SupabaseUserDao userDao = new SupabaseUserDao();
@@ -24,16 +26,19 @@ public class AuthService {
     
     public boolean registerUser(User user) {
         try {
-            // Check if user already exists
-            User existingUser = userDao.getUserByEmail(user.getEmail());
-            if (existingUser != null) {
-                Logger.log("Registration failed: Email already exists - " + user.getEmail());
-                return false;
+            // Check if user already exists (only when the filter says it might)
+            if (ExistenceFilters.emailMightExist(user.getEmail())) {
+                User existingUser = userDao.getUserByEmail(user.getEmail());
+                if (existingUser != null) {
+                    Logger.log("Registration failed: Email already exists - " + user.getEmail());
+                    return false;
+                }
             }
             
             // Add new user
             boolean success = userDao.addUser(user);
             if (success) {
+                ExistenceFilters.recordEmail(user.getEmail());
                 Logger.log("User registered successfully: " + user.getEmail());
             } else {
                 Logger.log("Registration failed: Could not add user - " + user.getEmail());
@@ -44,4 +49,12 @@ public class AuthService {
             return false;
         }
     }
+    
+    public CompletableFuture<User> authenticateUserAsync(String email, String password) {
+        return ServiceExecutor.supply(() -> authenticateUser(email, password));
+    }
+    
+    public CompletableFuture<Boolean> registerUserAsync(User user) {
+        return ServiceExecutor.supply(() -> registerUser(user));
+    }
 }
@@ -0,0 +1,165 @@
+package service;
+
+import model.Book;
+import dao.BookSearchIndex;
+import dao.SupabaseBookDao;
+import util.ConfigManager;
+import util.Logger;
+import util.SearchResultCache;
+import util.ServiceExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class BookService {
+    private SupabaseBookDao bookDao = new SupabaseBookDao();
+    
+    // Shared by every BookService so repeated searches from any screen hit the same cache
+    private static final SearchResultCache searchCache =
+        new SearchResultCache(ConfigManager.getIntConfig("SEARCH_CACHE_SIZE", 500));
+    
+    public boolean addBook(Book book) {
+        try {
+            // Duplicate-ISBN check (only when the filter says it might exist)
+            if (ExistenceFilters.isbnMightExist(book.getIsbn()) && bookDao.getBookByIsbn(book.getIsbn()) != null) {
+                Logger.log("Book not added: ISBN already exists - " + book.getIsbn());
+                return false;
+            }
+            
+            boolean success = bookDao.addBook(book);
+            if (success) {
+                ExistenceFilters.recordIsbn(book.getIsbn());
+                Logger.log("Book added: " + book.getTitle());
+            }
+            return success;
+        } catch (Exception e) {
+            Logger.log("Error adding book: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    public Book getBookById(int id) {
+        try {
+            return bookDao.getBookById(id);
+        } catch (Exception e) {
+            Logger.log("Error getting book by ID: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    public List<Book> getAllBooks() {
+        try {
+            return bookDao.getAllBooks();
+        } catch (Exception e) {
+            Logger.log("Error getting all books: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    public List<Book> searchBooks(String searchTerm) {
+        return searchBooks(searchTerm, true);
+    }
+    
+    public CompletableFuture<List<Book>> getAllBooksAsync() {
+        return ServiceExecutor.supply(this::getAllBooks);
+    }
+    
+    public CompletableFuture<List<Book>> searchBooksAsync(String searchTerm) {
+        return ServiceExecutor.supply(() -> searchBooks(searchTerm));
+    }
+    
+    public List<Book> searchBooks(String searchTerm, boolean matchAll) {
+        try {
+            BookSearchIndex index = BookSearchIndex.getInstance();
+            if (!index.isLoaded()) {
+                bookDao.getAllBooks(); // loads the index snapshot
+            }
+            if (index.isLoaded()) {
+                return cachedSearch(index, searchTerm, matchAll);
+            }
+            return bookDao.searchBooks(searchTerm);
+        } catch (Exception e) {
+            Logger.log("Error searching books: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Gets hit-rate metrics for the search result cache
+     * 
+     * @return One-line metrics summary
+     */
+    public String getSearchCacheStats() {
+        return searchCache.getStats();
+    }
+    
+    private List<Book> cachedSearch(BookSearchIndex index, String searchTerm, boolean matchAll) {
+        String key = SearchResultCache.normalize(searchTerm, matchAll ? "all" : "any");
+        long version = index.getVersion();
+        
+        int[] ids = searchCache.get(key, version);
+        if (ids != null) {
+            List<Book> books = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Book book = index.get(id);
+                if (book != null) {
+                    books.add(book);
+                }
+            }
+            return books;
+        }
+        
+        // Stamped with the version read before searching, so a concurrent write makes it stale
+        List<Book> books = index.search(searchTerm, matchAll);
+        ids = new int[books.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = books.get(i).getId();
+        }
+        searchCache.put(key, version, ids);
+        return books;
+    }
+    
+    public boolean updateBook(Book book) {
+        try {
+            boolean success = bookDao.updateBook(book);
+            if (success) {
+                Logger.log("Book updated: " + book.getTitle());
+            }
+            return success;
+        } catch (Exception e) {
+            Logger.log("Error updating book: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    public boolean deleteBook(int bookId) {
+        try {
+            boolean success = bookDao.deleteBook(bookId);
+            if (success) {
+                Logger.log("Book deleted: " + bookId);
+            }
+            return success;
+        } catch (Exception e) {
+            Logger.log("Error deleting book: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    public List<Book> getAvailableBooks() {
+        try {
+            return bookDao.getAvailableBooks();
+        } catch (Exception e) {
+            Logger.log("Error getting available books: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    public List<Book> getIssuedBooks() {
+        try {
+            return bookDao.getIssuedBooks();
+        } catch (Exception e) {
+            Logger.log("Error getting issued books: " + e.getMessage());
+            return null;
+        }
+    }
+}
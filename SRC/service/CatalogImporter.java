@@ -0,0 +1,512 @@
+package service;
+
+import dao.SupabaseBookDao;
+import dao.SupabaseUserDao;
+import model.Book;
+import model.User;
+import util.ConfigManager;
+import util.JsonUtils;
+import util.Logger;
+import util.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk Import of Books and Users from CSV or NDJSON Files
+ *
+ * The file is streamed in chunks. Each chunk is validated with Validator on
+ * a worker pool (including the duplicate ISBN/email check), and a writer
+ * thread takes the results in file order, rejects rows whose key already
+ * appeared earlier in the file, writes every rejected row to the error
+ * report and sends valid rows to Supabase in bulk inserts. A batch the
+ * server rejects is retried row by row, so one bad row does not sink the
+ * others. Chunks in flight are bounded, so apart from the keys seen memory
+ * stays flat however large the file is. An import can be cancelled; rows
+ * already sent stay added.
+ *
+ * CSV files need a header row; NDJSON files (.ndjson, .jsonl) hold one JSON
+ * object per line. Books need title, author and isbn; users need name,
+ * email, password and role.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class CatalogImporter {
+
+    /**
+     * Receives progress while an import runs
+     */
+    public interface ProgressListener {
+        void onProgress(ImportReport report, long bytesRead, long totalBytes);
+    }
+
+    private final int chunkSize = Math.max(1, ConfigManager.getIntConfig("IMPORT_CHUNK_SIZE", 256));
+    private final int batchSize = Math.max(1, ConfigManager.getIntConfig("IMPORT_BATCH_SIZE", 500));
+    private final int workers = Math.max(1, ConfigManager.getIntConfig("IMPORT_WORKERS",
+            Runtime.getRuntime().availableProcessors()));
+    private final SupabaseBookDao bookDao = new SupabaseBookDao();
+    private final SupabaseUserDao userDao = new SupabaseUserDao();
+    private ProgressListener listener;
+    private volatile boolean cancelled;
+
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops a running import after the batch being sent; safe to call from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Imports books
+     *
+     * @param input CSV or NDJSON file
+     * @param errorReport File that receives one line per rejected row
+     * @return Counts and throughput of the import
+     * @throws IOException If the input or report cannot be read or written
+     */
+    public ImportReport importBooks(Path input, Path errorReport) throws IOException {
+        return run(input, errorReport, new RowType<Book>() {
+            public Book parse(Map<String, String> row, List<String> errors) {
+                String title = trim(row.get("title"));
+                String author = trim(row.get("author"));
+                String isbn = trim(row.get("isbn"));
+                if (!Validator.isValidTitle(title)) errors.add("invalid title");
+                if (!Validator.isValidName(author)) errors.add("invalid author");
+                if (!Validator.isValidISBN(isbn)) {
+                    errors.add("invalid ISBN");
+                } else if (ExistenceFilters.isbnMightExist(isbn) && bookDao.getBookByIsbn(isbn) != null) {
+                    errors.add("ISBN already exists");
+                }
+                return new Book(title, author, isbn);
+            }
+
+            public String key(Book book) {
+                return book.getIsbn().replaceAll("[\\s-]", "");
+            }
+
+            public int addAll(List<Book> books) {
+                return bookDao.addBooks(books);
+            }
+
+            public void recordAdded(Book book) {
+                ExistenceFilters.recordIsbn(book.getIsbn());
+            }
+        });
+    }
+
+    /**
+     * Imports users
+     *
+     * @param input CSV or NDJSON file
+     * @param errorReport File that receives one line per rejected row
+     * @return Counts and throughput of the import
+     * @throws IOException If the input or report cannot be read or written
+     */
+    public ImportReport importUsers(Path input, Path errorReport) throws IOException {
+        return run(input, errorReport, new RowType<User>() {
+            public User parse(Map<String, String> row, List<String> errors) {
+                String name = trim(row.get("name"));
+                String email = trim(row.get("email"));
+                String password = row.get("password");
+                String role = trim(row.get("role"));
+                if (!Validator.isValidName(name)) errors.add("invalid name");
+                if (!Validator.isValidPassword(password)) errors.add("weak or missing password");
+                if (!Validator.isValidRole(role)) errors.add("invalid role");
+                if (!Validator.isValidEmail(email)) {
+                    errors.add("invalid email");
+                } else if (ExistenceFilters.emailMightExist(email) && userDao.getUserByEmail(email) != null) {
+                    errors.add("email already exists");
+                }
+                return new User(0, name, email, password, role);
+            }
+
+            public String key(User user) {
+                return user.getEmail().toLowerCase();
+            }
+
+            public int addAll(List<User> users) {
+                return userDao.addUsers(users);
+            }
+
+            public void recordAdded(User user) {
+                ExistenceFilters.recordEmail(user.getEmail());
+            }
+        });
+    }
+
+    /**
+     * Counts and timings of one import
+     */
+    public static class ImportReport {
+        private final AtomicLong rowsRead = new AtomicLong();
+        private long rowsRejected;
+        private long rowsWritten;
+        private long batches;
+        private long retriedBatches;
+        private volatile boolean cancelled;
+        private final long startedAt = System.nanoTime();
+        private long finishedAt;
+        private final AtomicLong validationNanos = new AtomicLong();
+        private long writeNanos;
+
+        public long getRowsRead() { return rowsRead.get(); }
+        public long getRowsRejected() { return rowsRejected; }
+        public long getRowsWritten() { return rowsWritten; }
+        public long getBatches() { return batches; }
+        public long getRetriedBatches() { return retriedBatches; }
+        public boolean isCancelled() { return cancelled; }
+
+        public double getElapsedSeconds() {
+            return ((finishedAt > 0 ? finishedAt : System.nanoTime()) - startedAt) / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds > 0 ? rowsRead.get() / seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read %d, written %d, rejected %d in %.1fs (%.0f rows/s; "
+                    + "validation %.1fs across workers, writes %.1fs in %d batches, %d retried row by row)",
+                    rowsRead.get(), rowsWritten, rowsRejected, getElapsedSeconds(), getRowsPerSecond(),
+                    validationNanos.get() / 1e9, writeNanos / 1e9, batches, retriedBatches);
+        }
+    }
+
+    private interface RowType<T> {
+        T parse(Map<String, String> row, List<String> errors);
+
+        String key(T item);
+
+        int addAll(List<T> items);
+
+        void recordAdded(T item);
+    }
+
+    private static class Row<T> {
+        final long line;
+        final String raw;
+        T item;
+        String error;
+
+        Row(long line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+
+    private <T> ImportReport run(Path input, Path errorReport, RowType<T> type) throws IOException {
+        ImportReport report = new ImportReport();
+        long totalBytes = Files.size(input);
+        boolean ndjson = input.getFileName().toString().matches("(?i).*\\.(ndjson|jsonl)$");
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "import-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Futures in file order; the bound keeps at most this many chunks in memory
+        BlockingQueue<Future<List<Row<T>>>> validated = new ArrayBlockingQueue<>(workers * 2);
+        List<Row<T>> endOfInput = new ArrayList<>();
+        CountingInputStream counter = new CountingInputStream(Files.newInputStream(input));
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "import-writer"));
+        Future<?> writing = writer.submit(() -> {
+            write(validated, endOfInput, type, errorReport, report, counter, totalBytes);
+            return null;
+        });
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8))) {
+            List<String> header = ndjson ? null : parseCsvLine(readRecord(reader));
+            List<Row<T>> chunk = new ArrayList<>(chunkSize);
+            long line = ndjson ? 0 : 1;
+            String record;
+            while (!cancelled && (record = ndjson ? reader.readLine() : readRecord(reader)) != null) {
+                line++;
+                if (record.trim().isEmpty()) {
+                    continue;
+                }
+                chunk.add(new Row<>(line, record));
+                if (chunk.size() == chunkSize) {
+                    enqueue(validated, validate(pool, chunk, header, type, report), writing);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty() && !cancelled) {
+                enqueue(validated, validate(pool, chunk, header, type, report), writing);
+            }
+            enqueue(validated, pool.submit(() -> endOfInput), writing);
+            writing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException("Import failed", e.getCause());
+        } finally {
+            writing.cancel(true);
+            pool.shutdownNow();
+            writer.shutdownNow();
+        }
+        report.finishedAt = System.nanoTime();
+        Logger.log("Import of " + input.getFileName() + (report.isCancelled() ? " cancelled: " : ": ") + report);
+        return report;
+    }
+
+    // Blocks while the queue is full, but gives up as soon as the writer has failed or was cancelled
+    private <T> void enqueue(BlockingQueue<Future<List<Row<T>>>> validated, Future<List<Row<T>>> chunk,
+                             Future<?> writing) throws InterruptedException, ExecutionException {
+        while (!validated.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writing.isDone()) {
+                writing.get();
+                if (cancelled) {
+                    return;
+                }
+                throw new ExecutionException(new IOException("Import writer stopped early"));
+            }
+        }
+    }
+
+    private <T> Future<List<Row<T>>> validate(ExecutorService pool, List<Row<T>> chunk, List<String> header,
+                                              RowType<T> type, ImportReport report) {
+        report.rowsRead.addAndGet(chunk.size());
+        return pool.submit(() -> {
+            long started = System.nanoTime();
+            for (Row<T> row : chunk) {
+                List<String> errors = new ArrayList<>();
+                try {
+                    Map<String, String> fields = header != null ? toFields(header, parseCsvLine(row.raw)) : parseJson(row.raw);
+                    row.item = type.parse(fields, errors);
+                } catch (RuntimeException e) {
+                    errors.add("unreadable record: " + e.getMessage());
+                }
+                row.error = errors.isEmpty() ? null : String.join("; ", errors);
+            }
+            report.validationNanos.addAndGet(System.nanoTime() - started);
+            return chunk;
+        });
+    }
+
+    // Runs on the import-writer thread: the only thread touching the report file and the batch
+    private <T> void write(BlockingQueue<Future<List<Row<T>>>> validated, List<Row<T>> endOfInput, RowType<T> type,
+                           Path errorReport, ImportReport report, CountingInputStream counter, long totalBytes)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Row<T>> batch = new ArrayList<>(batchSize);
+        // Every key in the file so far, so a duplicate is caught however far apart the rows are
+        Set<String> keysSeen = new HashSet<>();
+        try (BufferedWriter errors = Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8)) {
+            errors.write("line,error,record");
+            errors.newLine();
+            List<Row<T>> chunk;
+            while (!cancelled && (chunk = validated.take().get()) != endOfInput) {
+                for (Row<T> row : chunk) {
+                    if (row.error == null && !keysSeen.add(type.key(row.item))) {
+                        row.error = "duplicate in file";
+                    }
+                    if (row.error != null) {
+                        reject(errors, row, report);
+                        continue;
+                    }
+                    batch.add(row);
+                    if (batch.size() == batchSize && !cancelled) {
+                        flush(batch, type, errors, report);
+                    }
+                }
+                if (listener != null) {
+                    listener.onProgress(report, counter.getCount(), totalBytes);
+                }
+            }
+            if (cancelled) {
+                report.cancelled = true;
+                return;
+            }
+            flush(batch, type, errors, report);
+        }
+        if (listener != null) {
+            listener.onProgress(report, totalBytes, totalBytes);
+        }
+    }
+
+    private <T> void flush(List<Row<T>> batch, RowType<T> type, BufferedWriter errors, ImportReport report)
+            throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<T> items = new ArrayList<>(batch.size());
+        for (Row<T> row : batch) {
+            items.add(row.item);
+        }
+        report.batches++;
+        int added = type.addAll(items);
+        if (added == items.size()) {
+            report.rowsWritten += added;
+            for (T item : items) {
+                type.recordAdded(item);
+            }
+        } else {
+            // The server rejected the batch as a whole; find the offending rows one by one
+            report.retriedBatches++;
+            for (Row<T> row : batch) {
+                List<T> single = new ArrayList<>(1);
+                single.add(row.item);
+                if (type.addAll(single) == 1) {
+                    report.rowsWritten++;
+                    type.recordAdded(row.item);
+                } else {
+                    row.error = "rejected by server";
+                    reject(errors, row, report);
+                }
+            }
+        }
+        report.writeNanos += System.nanoTime() - started;
+        batch.clear();
+    }
+
+    private static <T> void reject(BufferedWriter errors, Row<T> row, ImportReport report) throws IOException {
+        report.rowsRejected++;
+        errors.write(row.line + "," + csvField(row.error) + "," + csvField(row.raw));
+        errors.newLine();
+    }
+
+    // A CSV record ends at a newline outside quotes, so quoted fields may span lines
+    private static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (countQuotes(record) % 2 != 0 && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+        }
+        return record.toString();
+    }
+
+    private static int countQuotes(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static List<String> parseCsvLine(String record) {
+        List<String> fields = new ArrayList<>();
+        if (record == null) {
+            return fields;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Map<String, String> toFields(List<String> header, List<String> values) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            fields.put(header.get(i).trim().toLowerCase(), i < values.size() ? values.get(i) : null);
+        }
+        return fields;
+    }
+
+    private static Map<String, String> parseJson(String record) {
+        String json = record.trim();
+        if (!json.startsWith("{") || !json.endsWith("}")) {
+            throw new IllegalArgumentException("not a JSON object");
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String key : new String[] {"title", "author", "isbn", "name", "email", "password", "role"}) {
+            String value = JsonUtils.extractValue(json, key);
+            fields.put(key, value == null || value.equals("null") ? null : value);
+        }
+        return fields;
+    }
+
+    private static String csvField(String value) {
+        String text = value == null ? "" : value;
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package service;
+
+/**
+ * Outcome of Issuing or Returning a Book
+ *
+ * Lost races come back as ALREADY_ISSUED or ALREADY_RETURNED straight away;
+ * the caller decides whether to try again.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public enum CheckoutResult {
+    SUCCESS("Done"),
+    BOOK_NOT_FOUND("No book has this ID"),
+    USER_NOT_FOUND("No user has this ID"),
+    ISSUE_NOT_FOUND("No issue has this ID"),
+    ALREADY_ISSUED("The book is already issued"),
+    ALREADY_HAS_BOOK("The user already has this book"),
+    ALREADY_RETURNED("The book has already been returned"),
+    RETURNED_BOOK_NOT_RELEASED("The return was recorded, but the book could not be marked as available"),
+    ISSUE_NOT_ROLLED_BACK("The book was not issued, but its issue record could not be removed"),
+    FAILED("The server could not be reached or rejected the change");
+
+    private final String message;
+
+    CheckoutResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
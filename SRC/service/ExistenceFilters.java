@@ -0,0 +1,173 @@
+package service;
+
+import dao.SupabaseBookDao;
+import dao.SupabaseUserDao;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+import util.BloomFilter;
+import util.Logger;
+
+/**
+ * Shared Bloom filters of existing user emails and book ISBNs.
+ * A "definitely new" answer lets callers skip the existence GET entirely;
+ * only "maybe exists" needs a round trip to Supabase.
+ * Filters are built on a background thread, sized from the number of keys
+ * found, and rebuilt larger once more keys are recorded than they were sized
+ * for. Until a filter is ready every check answers "maybe exists".
+ */
+public class ExistenceFilters {
+    private static final int PAGE_SIZE = 1000;
+    private static final int MIN_CAPACITY = 10000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long RETRY_DELAY_MS = 60000;
+
+    private static final KeyFilter emails = new KeyFilter("Email",
+        ExistenceFilters::normalizeEmail, new SupabaseUserDao()::getEmailPage);
+    private static final KeyFilter isbns = new KeyFilter("ISBN",
+        ExistenceFilters::normalizeIsbn, new SupabaseBookDao()::getIsbnPage);
+
+    private ExistenceFilters() {
+        throw new UnsupportedOperationException("ExistenceFilters is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Starts building both filters in the background; returns at once.
+     */
+    public static void warmUp() {
+        emails.buildInBackground();
+        isbns.buildInBackground();
+    }
+
+    public static boolean emailMightExist(String email) {
+        return emails.mightExist(email);
+    }
+
+    public static void recordEmail(String email) {
+        emails.record(email);
+    }
+
+    public static boolean isbnMightExist(String isbn) {
+        return isbns.mightExist(isbn);
+    }
+
+    public static void recordIsbn(String isbn) {
+        isbns.record(isbn);
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase();
+    }
+
+    private static String normalizeIsbn(String isbn) {
+        return isbn == null ? null : isbn.replaceAll("[\\s-]", "");
+    }
+
+    /**
+     * Reads one page of keys; null if the request failed
+     */
+    private interface KeyPager {
+        List<String> page(int offset, int limit);
+    }
+
+    /**
+     * One filter plus the state needed to build and resize it off the caller's thread
+     */
+    private static final class KeyFilter {
+        private final String name;
+        private final UnaryOperator<String> normalizer;
+        private final KeyPager pager;
+        private final AtomicBoolean building = new AtomicBoolean();
+        private volatile BloomFilter filter;
+        private volatile int capacity;
+        private volatile long failedAt;
+        // Keys recorded while a build runs; added to the new filter so none are lost. Guarded by this.
+        private List<String> recordedDuringBuild;
+
+        KeyFilter(String name, UnaryOperator<String> normalizer, KeyPager pager) {
+            this.name = name;
+            this.normalizer = normalizer;
+            this.pager = pager;
+        }
+
+        boolean mightExist(String key) {
+            BloomFilter current = filter;
+            if (current == null) {
+                buildInBackground();
+                return true;
+            }
+            return current.mightContain(normalizer.apply(key));
+        }
+
+        void record(String key) {
+            String normalized = normalizer.apply(key);
+            synchronized (this) {
+                if (recordedDuringBuild != null) {
+                    recordedDuringBuild.add(normalized);
+                }
+            }
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(normalized);
+                if (current.getInsertionCount() > capacity) {
+                    buildInBackground();
+                }
+            }
+        }
+
+        void buildInBackground() {
+            if (filter == null && System.currentTimeMillis() - failedAt < RETRY_DELAY_MS) {
+                return;
+            }
+            if (!building.compareAndSet(false, true)) {
+                return;
+            }
+            Thread thread = new Thread(this::build, name.toLowerCase() + "-filter");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void build() {
+            try {
+                synchronized (this) {
+                    recordedDuringBuild = new ArrayList<>();
+                }
+                List<String> keys = new ArrayList<>();
+                for (int offset = 0; ; offset += PAGE_SIZE) {
+                    List<String> page = pager.page(offset, PAGE_SIZE);
+                    if (page == null) {
+                        // An incomplete filter would give false "definitely new" answers
+                        Logger.logWarning(name + " filter build failed; falling back to per-request lookups");
+                        failedAt = System.currentTimeMillis();
+                        synchronized (this) {
+                            recordedDuringBuild = null;
+                        }
+                        return;
+                    }
+                    keys.addAll(page);
+                    if (page.size() < PAGE_SIZE) break;
+                }
+
+                // Room to double before the next rebuild
+                int newCapacity = Math.max(MIN_CAPACITY, keys.size() * 2);
+                BloomFilter built = new BloomFilter(newCapacity, FALSE_POSITIVE_RATE);
+                for (String key : keys) {
+                    built.put(normalizer.apply(key));
+                }
+                synchronized (this) {
+                    for (String key : recordedDuringBuild) {
+                        built.put(key);
+                    }
+                    recordedDuringBuild = null;
+                    capacity = newCapacity;
+                    filter = built;
+                }
+                Logger.log(name + " filter built with " + built.getInsertionCount() + " entries, sized for "
+                    + newCapacity);
+            } finally {
+                building.set(false);
+            }
+        }
+    }
+}
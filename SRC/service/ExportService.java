@@ -0,0 +1,430 @@
+package service;
+
+import dao.IssueArchive;
+import dao.SupabaseBookDao;
+import dao.SupabaseIssueDao;
+import dao.SupabaseUserDao;
+import model.Book;
+import model.Issue;
+import model.User;
+import util.ConfigManager;
+import util.Logger;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming Export of Books, Users, Issues and Report Totals
+ *
+ * Each table is read from Supabase a page at a time (by ID, see the DAOs'
+ * get...After methods) and every row is encoded straight into a fixed-size
+ * buffer that is drained into a FileChannel, optionally through gzip. Only
+ * one page is held at a time, so memory does not grow with the export. The
+ * summary export folds the same pages, plus the issue archive, into totals.
+ *
+ * Files are written under EXPORT_DIRECTORY with a ".part" suffix and renamed
+ * once complete, so a failed export never leaves a truncated file behind.
+ * User passwords are never exported.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class ExportService {
+
+    /**
+     * What to export
+     */
+    public enum Dataset {
+        BOOKS("books"), USERS("users"), ISSUES("issues"), SUMMARY("summary");
+
+        private final String fileName;
+
+        Dataset(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * File format of an export
+     */
+    public enum Format {
+        CSV(".csv"), NDJSON(".ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Receives the number of rows read so far while an export runs
+     */
+    public interface ProgressListener {
+        void onProgress(Dataset dataset, long rowsRead);
+    }
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String[] BOOK_COLUMNS = {"id", "title", "author", "isbn", "genre", "status", "quantity"};
+    private static final String[] USER_COLUMNS = {"id", "name", "email", "role"};
+    private static final String[] ISSUE_COLUMNS = {"id", "book_id", "user_id", "issue_date", "return_date", "fine"};
+    private static final String[] SUMMARY_COLUMNS = {"section", "name", "value"};
+
+    private final Path exportDirectory = Paths.get(ConfigManager.getConfig("EXPORT_DIRECTORY", "exports"));
+    private final int pageSize = Math.max(1, ConfigManager.getIntConfig("EXPORT_PAGE_SIZE", 1000));
+    private final int bufferSize = Math.max(4, ConfigManager.getIntConfig("EXPORT_BUFFER_KB", 64)) * 1024;
+    private final SupabaseBookDao bookDao = new SupabaseBookDao();
+    private final SupabaseUserDao userDao = new SupabaseUserDao();
+    private final SupabaseIssueDao issueDao = new SupabaseIssueDao();
+    private final IssueService issueService = new IssueService();
+    private ProgressListener listener;
+
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    public Path getExportDirectory() {
+        return exportDirectory;
+    }
+
+    /**
+     * Exports one dataset into a new timestamped file
+     *
+     * @param dataset What to export
+     * @param format CSV or NDJSON
+     * @param gzip Whether to gzip the file (adds ".gz")
+     * @return The finished file
+     * @throws IOException If a page cannot be read or the file cannot be written
+     */
+    public Path export(Dataset dataset, Format format, boolean gzip) throws IOException {
+        Files.createDirectories(exportDirectory);
+        String name = dataset.fileName + "-" + LocalDateTime.now().format(FILE_STAMP) + format.extension
+                + (gzip ? ".gz" : "");
+        Path target = exportDirectory.resolve(name);
+        Path partial = exportDirectory.resolve(name + ".part");
+        long started = System.nanoTime();
+        long rows;
+        try (RecordWriter writer = new RecordWriter(partial, format, gzip, bufferSize)) {
+            switch (dataset) {
+                case BOOKS:
+                    writer.header(BOOK_COLUMNS);
+                    rows = stream(dataset, bookDao::getBooksAfter, Book::getId, book -> writer.row(BOOK_COLUMNS,
+                            book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getGenre(),
+                            book.getStatus(), book.getQuantity()));
+                    break;
+                case USERS:
+                    writer.header(USER_COLUMNS);
+                    rows = stream(dataset, userDao::getUsersAfter, User::getId, user -> writer.row(USER_COLUMNS,
+                            user.getId(), user.getName(), user.getEmail(), user.getRole()));
+                    break;
+                case ISSUES:
+                    writer.header(ISSUE_COLUMNS);
+                    rows = stream(dataset, issueDao::getIssuesAfter, Issue::getId, issue -> writer.row(ISSUE_COLUMNS,
+                            issue.getId(), issue.getBookId(), issue.getUserId(), issue.getIssueDate(),
+                            issue.getReturnDate(), issueService.calculateFine(issue)));
+                    break;
+                default:
+                    writer.header(SUMMARY_COLUMNS);
+                    rows = writeSummary(writer);
+                    break;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Logger.log(String.format("Exported %d %s rows to %s in %.1fs (%d bytes)", rows, dataset.fileName,
+                target, (System.nanoTime() - started) / 1e9, Files.size(target)));
+        return target;
+    }
+
+    /**
+     * Exports every dataset, one file each
+     *
+     * @param format CSV or NDJSON
+     * @param gzip Whether to gzip the files
+     * @return The finished files
+     * @throws IOException If any export fails; files already finished are kept
+     */
+    public List<Path> exportAll(Format format, boolean gzip) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Dataset dataset : Dataset.values()) {
+            files.add(export(dataset, format, gzip));
+        }
+        return files;
+    }
+
+    // Folds the three tables into totals; only the per-status, per-genre, per-role and per-month maps are kept
+    private long writeSummary(RecordWriter writer) throws IOException {
+        Map<String, Long> bookStatus = new TreeMap<>();
+        Map<String, Long> bookGenre = new TreeMap<>();
+        long[] copies = new long[1];
+        long books = stream(Dataset.BOOKS, bookDao::getBooksAfter, Book::getId, book -> {
+            bookStatus.merge(String.valueOf(book.getStatus()), 1L, Long::sum);
+            bookGenre.merge(String.valueOf(book.getGenre()), 1L, Long::sum);
+            copies[0] += book.getQuantity();
+        });
+
+        Map<String, Long> userRole = new TreeMap<>();
+        long users = stream(Dataset.USERS, userDao::getUsersAfter, User::getId,
+                user -> userRole.merge(String.valueOf(user.getRole()), 1L, Long::sum));
+
+        Map<YearMonth, Long> issuesPerMonth = new TreeMap<>();
+        long[] active = new long[2];
+        double[] fines = new double[1];
+        long issues = stream(Dataset.ISSUES, issueDao::getIssuesAfter, Issue::getId, issue -> {
+            issuesPerMonth.merge(YearMonth.from(issue.getIssueDate()), 1L, Long::sum);
+            if (issue.getReturnDate() == null) {
+                active[0]++;
+                double fine = issueService.calculateFine(issue);
+                if (fine > 0) {
+                    active[1]++;
+                    fines[0] += fine;
+                }
+            }
+        });
+
+        // Archived issues count towards the monthly totals; only their issue dates are read
+        long archived = IssueArchiver.getArchive().scan(EnumSet.of(IssueArchive.Column.ISSUE_DATE), null, chunk -> {
+            for (long epochDay : chunk.get(IssueArchive.Column.ISSUE_DATE)) {
+                issuesPerMonth.merge(YearMonth.from(LocalDate.ofEpochDay(epochDay)), 1L, Long::sum);
+            }
+        });
+
+        writer.row(SUMMARY_COLUMNS, "totals", "generated", LocalDateTime.now().withNano(0).toString());
+        writer.row(SUMMARY_COLUMNS, "totals", "books", books);
+        writer.row(SUMMARY_COLUMNS, "totals", "copies", copies[0]);
+        writer.row(SUMMARY_COLUMNS, "totals", "users", users);
+        writer.row(SUMMARY_COLUMNS, "totals", "issues", issues);
+        writer.row(SUMMARY_COLUMNS, "totals", "archived_issues", archived);
+        writer.row(SUMMARY_COLUMNS, "totals", "active_issues", active[0]);
+        writer.row(SUMMARY_COLUMNS, "totals", "overdue_issues", active[1]);
+        writer.row(SUMMARY_COLUMNS, "totals", "outstanding_fines", String.format("%.2f", fines[0]));
+        writeCounts(writer, "book_status", bookStatus);
+        writeCounts(writer, "book_genre", bookGenre);
+        writeCounts(writer, "user_role", userRole);
+        writeCounts(writer, "issues_per_month", issuesPerMonth);
+        return books + users + issues;
+    }
+
+    private static void writeCounts(RecordWriter writer, String section, Map<?, Long> counts) throws IOException {
+        for (Map.Entry<?, Long> entry : counts.entrySet()) {
+            writer.row(SUMMARY_COLUMNS, section, entry.getKey().toString(), entry.getValue());
+        }
+    }
+
+    private interface PageReader<T> {
+        List<T> read(int afterId, int limit);
+    }
+
+    private interface RowHandler<T> {
+        void accept(T item) throws IOException;
+    }
+
+    private <T> long stream(Dataset dataset, PageReader<T> reader, ToIntFunction<T> idOf, RowHandler<T> handler)
+            throws IOException {
+        long rows = 0;
+        int lastId = 0;
+        while (true) {
+            List<T> page = reader.read(lastId, pageSize);
+            if (page == null) {
+                throw new IOException("Failed to read " + dataset.fileName + " after id " + lastId);
+            }
+            if (page.isEmpty()) {
+                return rows;
+            }
+            for (T item : page) {
+                handler.accept(item);
+            }
+            rows += page.size();
+            lastId = idOf.applyAsInt(page.get(page.size() - 1));
+            if (listener != null) {
+                listener.onProgress(dataset, rows);
+            }
+        }
+    }
+
+    /**
+     * Encodes records into a fixed buffer and drains it into the file channel
+     */
+    private static class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final OutputStream gzip;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final Format format;
+        private final StringBuilder line = new StringBuilder(256);
+
+        RecordWriter(Path file, Format format, boolean gzip, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.gzip = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize) : null;
+            this.buffer = gzip ? ByteBuffer.allocate(bufferSize) : ByteBuffer.allocateDirect(bufferSize);
+            this.format = format;
+        }
+
+        void header(String[] columns) throws IOException {
+            if (format == Format.CSV) {
+                line.setLength(0);
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    line.append(columns[i]);
+                }
+                write(line.append('\n'));
+            }
+        }
+
+        void row(String[] columns, Object... values) throws IOException {
+            line.setLength(0);
+            if (format == Format.CSV) {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsv(values[i]);
+                }
+            } else {
+                line.append('{');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendJsonString(columns[i]);
+                    line.append(':');
+                    appendJson(values[i]);
+                }
+                line.append('}');
+            }
+            write(line.append('\n'));
+        }
+
+        private void appendCsv(Object value) {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                line.append(text);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void appendJson(Object value) {
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else if (value instanceof LocalDate) {
+                line.append('"').append(value).append('"');
+            } else {
+                appendJsonString(value.toString());
+            }
+        }
+
+        private void appendJsonString(String text) {
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"': line.append("\\\""); break;
+                    case '\\': line.append("\\\\"); break;
+                    case '\n': line.append("\\n"); break;
+                    case '\r': line.append("\\r"); break;
+                    case '\t': line.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                }
+            }
+            line.append('"');
+        }
+
+        private void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    return;
+                } else {
+                    result.throwException();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            if (gzip != null) {
+                gzip.write(buffer.array(), buffer.position(), buffer.remaining());
+            } else {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                encoder.encode(CharBuffer.allocate(0), buffer, true);
+                encoder.flush(buffer);
+                drain();
+                if (gzip != null) {
+                    gzip.close();
+                } else {
+                    channel.force(false);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
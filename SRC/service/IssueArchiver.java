@@ -0,0 +1,164 @@
+package service;
+
+import dao.IssueArchive;
+import dao.SupabaseIssueDao;
+import model.Issue;
+import util.ConfigManager;
+import util.Logger;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background Archiving of Old Returned Issues
+ *
+ * Issues returned more than ARCHIVE_AFTER_DAYS ago are copied into the
+ * columnar IssueArchive and then deleted from Supabase, so the live table
+ * only holds recent history. A segment is on disk before any row is deleted;
+ * if a delete fails, the rows stay live and the next run skips the IDs the
+ * archive already holds instead of archiving them twice.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class IssueArchiver {
+
+    public static final String STATUS_RETURNED = "returned";
+    public static final String STATUS_RETURNED_LATE = "returned_late";
+
+    private static final int LOAN_DAYS = 14; // Same loan period IssueService.calculateFine uses
+    private static final int PAGE_SIZE = 1000;
+    private static final int DELETE_BATCH_SIZE = 200;
+
+    private static IssueArchive archive;
+    private static IssueArchiver instance;
+
+    private final SupabaseIssueDao issueDao = new SupabaseIssueDao();
+    private final int afterDays = ConfigManager.getIntConfig("ARCHIVE_AFTER_DAYS", 365);
+    private final int segmentRows = Math.max(1, ConfigManager.getIntConfig("ARCHIVE_SEGMENT_ROWS", 50000));
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Gets the shared archive under ARCHIVE_DIRECTORY
+     *
+     * @return The archive; it is empty until the first run
+     */
+    public static synchronized IssueArchive getArchive() {
+        if (archive == null) {
+            archive = new IssueArchive(Paths.get(ConfigManager.getConfig("ARCHIVE_DIRECTORY", "archive")),
+                    ConfigManager.getIntConfig("ARCHIVE_CHUNK_ROWS", 4096));
+        }
+        return archive;
+    }
+
+    /**
+     * Starts the background archiver if ARCHIVE_ENABLED is set; later calls do nothing
+     */
+    public static synchronized void startIfEnabled() {
+        if (instance == null && Boolean.parseBoolean(ConfigManager.getConfig("ARCHIVE_ENABLED", "false"))) {
+            instance = new IssueArchiver();
+            instance.start(ConfigManager.getIntConfig("ARCHIVE_INTERVAL_HOURS", 24));
+        }
+    }
+
+    /**
+     * Runs the archiver every interval, starting one minute from now
+     *
+     * @param intervalHours Hours between runs
+     */
+    public synchronized void start(int intervalHours) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "issue-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMinutes = Math.max(1, intervalHours) * 60L;
+        scheduler.scheduleWithFixedDelay(this::archiveOnce, 1, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the background runs
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Moves every issue returned before the cutoff into the archive
+     *
+     * @return Number of issues archived
+     */
+    public synchronized int archiveOnce() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        IssueArchive target = getArchive();
+        int archived = 0;
+        int afterId = 0;
+        while (true) {
+            List<Issue> batch = new ArrayList<>();
+            while (batch.size() < segmentRows) {
+                List<Issue> page = issueDao.getIssuesReturnedBefore(cutoff, afterId, PAGE_SIZE);
+                if (page == null) {
+                    Logger.logWarning("Issue archiving stopped: could not read returned issues");
+                    return archived;
+                }
+                if (page.isEmpty()) {
+                    break;
+                }
+                batch.addAll(page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            try {
+                Set<Integer> alreadyArchived = target.archivedIds(batch.get(0).getId(),
+                        batch.get(batch.size() - 1).getId());
+                List<Issue> fresh = new ArrayList<>(batch.size());
+                for (Issue issue : batch) {
+                    if (!alreadyArchived.contains(issue.getId())) {
+                        fresh.add(issue);
+                    }
+                }
+                target.writeSegment(fresh, IssueArchiver::statusOf);
+                archived += fresh.size();
+            } catch (IOException e) {
+                Logger.logError("Issue archiving stopped: could not write the archive", e);
+                return archived;
+            }
+
+            for (int from = 0; from < batch.size(); from += DELETE_BATCH_SIZE) {
+                List<Integer> ids = new ArrayList<>();
+                for (Issue issue : batch.subList(from, Math.min(batch.size(), from + DELETE_BATCH_SIZE))) {
+                    ids.add(issue.getId());
+                }
+                if (!issueDao.deleteIssues(ids)) {
+                    Logger.logWarning("Archived issues are still live; they will be removed on the next run");
+                    return archived;
+                }
+            }
+        }
+        if (archived > 0) {
+            Logger.log("Archived " + archived + " issues returned before " + cutoff);
+        }
+        return archived;
+    }
+
+    private static String statusOf(Issue issue) {
+        return issue.getReturnDate().isAfter(issue.getIssueDate().plusDays(LOAN_DAYS))
+                ? STATUS_RETURNED_LATE : STATUS_RETURNED;
+    }
+}
@@ -0,0 +1,234 @@
+
+package service;
+
+import dao.SupabaseBookDao;
+import dao.SupabaseIssueDao;
+import dao.SupabaseUserDao;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import model.Issue;
+import model.User;
+import util.IdAllocator;
+import util.LatencyRecorder;
+import util.Logger;
+import util.ServiceExecutor;
+
+public class IssueService {
+    private SupabaseIssueDao issueDao = new SupabaseIssueDao();
+    private SupabaseBookDao bookDao = new SupabaseBookDao();
+    private SupabaseUserDao userDao = new SupabaseUserDao();
+    
+    private static final LatencyRecorder checkoutLatency = new LatencyRecorder("Checkout");
+    private static final LatencyRecorder lookupLatency = new LatencyRecorder("Checkout claim and checks");
+    private static final LatencyRecorder writeLatency = new LatencyRecorder("Checkout issue insert");
+    private static final LatencyRecorder checkinLatency = new LatencyRecorder("Return");
+    
+    /**
+     * Issues a book. The first round trip claims the copy with a conditional
+     * PATCH (issued=eq.false) while the user and open-loan checks run
+     * alongside it. When the issue ID can be allocated on the client
+     * (IdAllocator), the issue insert goes out in that same round trip and is
+     * deleted again if anything else fails; otherwise it is a second round
+     * trip. A lost claim fails with ALREADY_ISSUED, and a claim whose other
+     * checks fail is released.
+     */
+    public CheckoutResult checkout(int bookId, int userId) {
+        long started = System.nanoTime();
+        try {
+            Logger.log("Attempting to issue book ID: " + bookId + " to user ID: " + userId);
+            
+            Issue issue = new Issue(IdAllocator.forTable("issues").nextId(), bookId, userId, LocalDate.now(), null);
+            boolean insertEarly = issue.getId() > 0;
+            
+            // Round trip 1: claim the copy and run the checks (and the insert, if its ID is known) at the same time
+            CompletableFuture<Boolean> claim = ServiceExecutor.fork(() -> bookDao.compareAndSetIssued(bookId, false, true));
+            CompletableFuture<User> userLookup = ServiceExecutor.fork(() -> userDao.getUserById(userId));
+            CompletableFuture<Boolean> openLoanLookup = ServiceExecutor.fork(
+                () -> issueDao.hasActiveIssue(bookId, userId, issue.getId()));
+            CompletableFuture<Boolean> insert = insertEarly
+                ? ServiceExecutor.fork(() -> issueDao.addIssue(issue))
+                : CompletableFuture.completedFuture(false);
+            Boolean claimed = claim.join();
+            User user = userLookup.join();
+            Boolean hasOpenLoan = openLoanLookup.join();
+            boolean inserted = insert.join();
+            lookupLatency.recordSince(started);
+            
+            CheckoutResult result = CheckoutResult.SUCCESS;
+            if (claimed == null) {
+                result = CheckoutResult.FAILED;
+            } else if (!claimed) {
+                // Only a failed claim pays for telling a missing book from a lost race
+                result = bookDao.getBookById(bookId) == null
+                    ? CheckoutResult.BOOK_NOT_FOUND : CheckoutResult.ALREADY_ISSUED;
+            } else if (user == null) {
+                result = CheckoutResult.USER_NOT_FOUND;
+            } else if (hasOpenLoan == null) {
+                result = CheckoutResult.FAILED;
+            } else if (hasOpenLoan) {
+                result = CheckoutResult.ALREADY_HAS_BOOK;
+            } else if (!insertEarly) {
+                // Round trip 2: record the issue against the claimed copy
+                long writeStarted = System.nanoTime();
+                if (!issueDao.addIssue(issue)) {
+                    result = CheckoutResult.FAILED;
+                }
+                writeLatency.recordSince(writeStarted);
+            } else if (!inserted) {
+                result = CheckoutResult.FAILED;
+            }
+            
+            if (result != CheckoutResult.SUCCESS) {
+                if (inserted && !issueDao.deleteIssue(issue.getId())) {
+                    Logger.logWarning("Could not remove issue ID " + issue.getId() + " for the failed checkout");
+                    result = CheckoutResult.ISSUE_NOT_ROLLED_BACK;
+                }
+                if (Boolean.TRUE.equals(claimed)) {
+                    releaseClaim(bookId);
+                }
+                Logger.log("Book ID " + bookId + " not issued: " + result.getMessage());
+                return result;
+            }
+            Logger.log("Book issued successfully: ID " + bookId + " to " + user.getName());
+            return result;
+        } catch (Exception e) {
+            Logger.log("Error issuing book: " + e.getMessage());
+            return CheckoutResult.FAILED;
+        } finally {
+            checkoutLatency.recordSince(started);
+        }
+    }
+    
+    public boolean issueBook(int bookId, int userId) {
+        return checkout(bookId, userId).isSuccess();
+    }
+    
+    public CompletableFuture<CheckoutResult> checkoutAsync(int bookId, int userId) {
+        return ServiceExecutor.supply(() -> checkout(bookId, userId));
+    }
+    
+    /**
+     * Returns a book in two round trips: a conditional PATCH
+     * (return_date=is.null) closes the issue, so of two desks returning the
+     * same issue only one succeeds, then the copy is released. A release
+     * that cannot reach the server is tried once more; if the copy still is
+     * not released the issue stays closed and RETURNED_BOOK_NOT_RELEASED
+     * tells the caller to check the book.
+     */
+    public CheckoutResult checkin(int issueId) {
+        long started = System.nanoTime();
+        try {
+            Logger.log("Attempting to return book for issue ID: " + issueId);
+            
+            List<Issue> closed = issueDao.closeIssue(issueId, LocalDate.now());
+            if (closed == null) {
+                return CheckoutResult.FAILED;
+            }
+            if (closed.isEmpty()) {
+                CheckoutResult result = issueDao.getIssueById(issueId) == null
+                    ? CheckoutResult.ISSUE_NOT_FOUND : CheckoutResult.ALREADY_RETURNED;
+                Logger.log("Issue ID " + issueId + " not returned: " + result.getMessage());
+                return result;
+            }
+            
+            int bookId = closed.get(0).getBookId();
+            Boolean released = bookDao.compareAndSetIssued(bookId, true, false);
+            if (released == null) {
+                released = bookDao.compareAndSetIssued(bookId, true, false);
+            }
+            if (!Boolean.TRUE.equals(released)) {
+                Logger.logWarning("Issue ID " + issueId + " closed but book ID " + bookId
+                    + (released == null ? " could not be released" : " was not marked as issued"));
+                return CheckoutResult.RETURNED_BOOK_NOT_RELEASED;
+            }
+            Logger.log("Book returned successfully: issue ID " + issueId);
+            return CheckoutResult.SUCCESS;
+        } catch (Exception e) {
+            Logger.log("Error returning book: " + e.getMessage());
+            return CheckoutResult.FAILED;
+        } finally {
+            checkinLatency.recordSince(started);
+        }
+    }
+    
+    public boolean returnBook(int issueId) {
+        return checkin(issueId).isSuccess();
+    }
+    
+    public CompletableFuture<CheckoutResult> checkinAsync(int issueId) {
+        return ServiceExecutor.supply(() -> checkin(issueId));
+    }
+    
+    private void releaseClaim(int bookId) {
+        if (!Boolean.TRUE.equals(bookDao.compareAndSetIssued(bookId, true, false))) {
+            Logger.logWarning("Could not release the claim on book ID " + bookId + "; it stays marked as issued");
+        }
+    }
+    
+    /**
+     * Gets checkout latency figures for the reports screen
+     * 
+     * @return One line per measured step
+     */
+    public static String getCheckoutStats() {
+        return checkoutLatency.getStats() + "\n" + lookupLatency.getStats() + "\n" + writeLatency.getStats()
+            + "\n" + checkinLatency.getStats() + "\nService calls run on " + ServiceExecutor.describe();
+    }
+    
+    public List<Issue> getIssuesByUserId(int userId) {
+        try {
+            return issueDao.getIssuesByUserId(userId);
+        } catch (Exception e) {
+            Logger.log("Error getting issues by user: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Gets how often each book has been issued
+     * 
+     * @return Count by book ID, or an empty map if the counts are unavailable
+     */
+    public Map<Integer, Integer> getIssueCountsByBook() {
+        Map<Integer, Integer> counts = issueDao.getIssueCountsByBook();
+        return counts != null ? counts : new HashMap<>();
+    }
+    
+    /**
+     * Gets how many books each user has borrowed
+     * 
+     * @return Count by user ID, or an empty map if the counts are unavailable
+     */
+    public Map<Integer, Integer> getIssueCountsByUser() {
+        Map<Integer, Integer> counts = issueDao.getIssueCountsByUser();
+        return counts != null ? counts : new HashMap<>();
+    }
+    
+    public List<Issue> getAllIssues() {
+        try {
+            return issueDao.getAllIssues();
+        } catch (Exception e) {
+            Logger.log("Error getting all issues: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    public double calculateFine(Issue issue) {
+        if (issue.getReturnDate() != null) {
+            return 0.0; // Book already returned
+        }
+        
+        LocalDate dueDate = issue.getIssueDate().plusDays(14); // 14 days loan period
+        LocalDate today = LocalDate.now();
+        
+        if (today.isAfter(dueDate)) {
+            long daysLate = java.time.temporal.ChronoUnit.DAYS.between(dueDate, today);
+            return daysLate * 0.50; // $0.50 per day
+        }
+        
+        return 0.0;
+    }
+}
\ No newline at end of file
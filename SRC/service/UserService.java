@@ -1,17 +1,24 @@
 package service;
 
 import dao.SupabaseUserDao;
+import dao.UserSearchIndex;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import model.User;
 import util.Logger;
+import util.Page;
+import util.ServiceExecutor;
 
 public class UserService {
     private SupabaseUserDao userDao = new SupabaseUserDao();
+    private UserSearchIndex searchIndex = UserSearchIndex.getInstance();
     
     public boolean addUser(User user) {
         try {
             boolean success = userDao.addUser(user);
             if (success) {
+                ExistenceFilters.recordEmail(user.getEmail());
                 Logger.log("User added: " + user.getEmail());
         }
             return success;
@@ -30,6 +37,14 @@ public class UserService {
         }
     }
     
+    public CompletableFuture<Boolean> addUserAsync(User user) {
+        return ServiceExecutor.supply(() -> addUser(user));
+    }
+    
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return ServiceExecutor.supply(this::getAllUsers);
+    }
+    
     public List<User> getAllUsers() {
         try {
         return userDao.getAllUsers();
@@ -39,6 +54,33 @@ public class UserService {
         }
     }
     
+    /**
+     * Searches users by name, email or role, one page at a time.
+     * Answered from the local index (loaded on first use); falls back to a
+     * server-side search if the index cannot be loaded.
+     *
+     * @param searchTerm Text to match (empty for all users)
+     * @param pageNumber Zero-based page number
+     * @param pageSize Users per page
+     * @return The requested page of matches
+     */
+    public Page<User> searchUsers(String searchTerm, int pageNumber, int pageSize) {
+        try {
+            if (!searchIndex.isLoaded()) {
+                userDao.getAllUsers();
+            }
+            if (searchIndex.isLoaded()) {
+                return searchIndex.search(searchTerm, pageNumber, pageSize);
+            }
+            String term = searchTerm == null ? "" : searchTerm.trim();
+            List<User> users = term.isEmpty() ? userDao.getAllUsers() : userDao.searchUsers(term);
+            return Page.of(users, pageNumber, pageSize);
+        } catch (Exception e) {
+            Logger.log("Error searching users: " + e.getMessage());
+            return Page.of(new ArrayList<User>(), pageNumber, pageSize);
+        }
+    }
+    
     public boolean updateUser(User user) {
         try {
             boolean success = userDao.updateUser(user);
@@ -0,0 +1,122 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact Bloom Filter for String Keys
+ *
+ * This class answers "have we seen this key?" with no false negatives and a
+ * configurable false positive rate. It is used to skip existence lookups
+ * against Supabase when a key is definitely new.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+    private int insertions;
+
+    /**
+     * Creates a Bloom filter sized for the expected number of keys
+     *
+     * @param expectedInsertions Number of keys the filter should hold
+     * @param falsePositiveRate Target false positive probability (0 < rate < 1)
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        int n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+
+        this.bitCount = (int) m;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.bits = new long[(bitCount + 63) >>> 6];
+    }
+
+    /**
+     * Adds a key to the filter
+     *
+     * @param key The key to add (null is ignored)
+     */
+    public synchronized void put(String key) {
+        if (key == null) return;
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            bits[index >>> 6] |= 1L << index;
+        }
+        insertions++;
+    }
+
+    /**
+     * Checks whether a key may have been added
+     *
+     * @param key The key to check
+     * @return false if the key was definitely never added, true if it may have been
+     */
+    public synchronized boolean mightContain(String key) {
+        if (key == null) return false;
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of keys added so far
+     *
+     * @return Insertion count
+     */
+    public synchronized int getInsertionCount() {
+        return insertions;
+    }
+
+    /**
+     * Gets the size of the bit array
+     *
+     * @return Number of bits
+     */
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Gets the number of hash functions applied per key
+     *
+     * @return Hash function count
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur-style mix
+     */
+    private static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
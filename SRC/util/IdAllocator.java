@@ -0,0 +1,97 @@
+package util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-Side ID Allocation from Server-Leased Blocks
+ *
+ * Each table has one allocator that leases a block of IDs with the lease_ids
+ * database function (see config/supabase_id_blocks.sql) and hands them out
+ * locally, so a row's ID is known before it is inserted and dependent writes
+ * can be sent together. The same sequence backs the column defaults, so IDs
+ * from this class never clash with IDs the server assigns itself. IDs left
+ * in a block when the application exits are skipped, not reused.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class IdAllocator {
+
+    private static final Map<String, IdAllocator> allocators = new ConcurrentHashMap<>();
+
+    private final String table;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: a lease waits on I/O and must not pin a virtual thread
+    private long next;
+    private long end;
+
+    private IdAllocator(String table) {
+        this.table = table;
+        this.blockSize = Math.max(1, ConfigManager.getIntConfig("ID_BLOCK_SIZE", 100));
+    }
+
+    /**
+     * Gets the allocator for a table
+     *
+     * @param table The table name
+     * @return The shared allocator
+     */
+    public static IdAllocator forTable(String table) {
+        return allocators.computeIfAbsent(table, IdAllocator::new);
+    }
+
+    /**
+     * Checks whether IDs should be assigned on the client (ID_BLOCKS_ENABLED)
+     *
+     * @return true if the ID sequences and lease_ids function are installed
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(ConfigManager.getConfig("ID_BLOCKS_ENABLED", "false"));
+    }
+
+    /**
+     * Takes the next ID, leasing a new block when the current one is used up
+     *
+     * @return A new ID, or 0 if allocation is disabled or no block could be leased
+     */
+    public int nextId() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (next >= end && !leaseBlock()) {
+                return 0;
+            }
+            return (int) next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean leaseBlock() {
+        String response = SupabaseConnection.executeRpc("lease_ids",
+                JsonUtils.createJson("p_table", table, "p_count", String.valueOf(blockSize)));
+        if (response == null) {
+            Logger.logWarning("Could not lease IDs for " + table + "; the server will assign them");
+            return false;
+        }
+        try {
+            long start = Long.parseLong(response.trim());
+            if (start <= 0 || start + blockSize - 1 > Integer.MAX_VALUE) {
+                Logger.logWarning("Leased ID block for " + table + " is out of range: " + start);
+                return false;
+            }
+            next = start;
+            end = start + blockSize;
+            Logger.log("Leased IDs " + next + "-" + (end - 1) + " for " + table);
+            return true;
+        } catch (NumberFormatException e) {
+            Logger.logError("Unexpected lease_ids response for " + table + ": " + response, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-Memory Inverted Index over Integer Document IDs
+ *
+ * This class maps normalized tokens to the documents that contain them, with a
+ * weight per field so matches in important fields rank higher. Queries support
+ * AND/OR semantics and prefix matching, and return IDs ordered by relevance.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class InvertedIndex {
+
+    // Prefix matches count for less than whole-token matches
+    private static final int PREFIX_DIVISOR = 2;
+
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Set<String>> documentTokens = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes (or re-indexes) a document
+     *
+     * @param docId The document ID
+     * @param fields Field values to index
+     * @param weights Relevance weight of each field, parallel to fields
+     */
+    public void index(int docId, String[] fields, int[] weights) {
+        if (fields.length != weights.length) {
+            throw new IllegalArgumentException("Fields and weights must have the same length");
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(docId);
+            Set<String> tokens = new LinkedHashSet<>();
+            for (int i = 0; i < fields.length; i++) {
+                for (String token : tokenize(fields[i])) {
+                    postings.computeIfAbsent(token, t -> new HashMap<>()).merge(docId, weights[i], Integer::sum);
+                    tokens.add(token);
+                }
+            }
+            documentTokens.put(docId, tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from the index
+     *
+     * @param docId The document ID
+     */
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document from the index
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTokens.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index
+     *
+     * @param query Free-text query
+     * @param matchAll true for AND semantics (every token must match), false for OR
+     * @return Matching document IDs, most relevant first
+     */
+    public List<Integer> search(String query, boolean matchAll) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = null;
+            for (String token : new LinkedHashSet<>(queryTokens)) {
+                Map<Integer, Integer> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else if (matchAll) {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                } else {
+                    for (Map.Entry<Integer, Integer> entry : tokenScores.entrySet()) {
+                        scores.merge(entry.getKey(), entry.getValue(), Integer::sum);
+                    }
+                }
+                if (matchAll && scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byScore = Integer.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+            });
+
+            List<Integer> result = new ArrayList<>(ranked.size());
+            for (Map.Entry<Integer, Integer> entry : ranked) {
+                result.add(entry.getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed documents
+     *
+     * @return Document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTokens.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into normalized tokens: lowercase letters and digits, with
+     * hyphens between digits dropped so "978-0-452" indexes as "9780452"
+     *
+     * @param text Text to tokenize
+     * @return List of tokens (possibly empty)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String normalized = text.toLowerCase().replaceAll("(?<=\\d)-(?=\\d)", "");
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Scores all documents containing the token exactly or as a prefix
+     */
+    private Map<Integer, Integer> scoreToken(String token) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Integer>> entry : postings.tailMap(token, true).entrySet()) {
+            String indexed = entry.getKey();
+            if (!indexed.startsWith(token)) {
+                break;
+            }
+            boolean exact = indexed.length() == token.length();
+            for (Map.Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+                int score = exact ? posting.getValue() : Math.max(1, posting.getValue() / PREFIX_DIVISOR);
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void removeUnlocked(int docId) {
+        Set<String> tokens = documentTokens.remove(docId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Integer, Integer> docs = postings.get(token);
+            if (docs != null) {
+                docs.remove(docId);
+                if (docs.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency Histogram for One Operation
+ *
+ * This class counts timings into fixed millisecond buckets, so recording is
+ * a couple of atomic increments and percentiles can be read at any time
+ * without keeping the samples. Percentiles are reported as the upper bound
+ * of the bucket they fall in.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class LatencyRecorder {
+
+    private static final long[] BUCKET_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 300, 500, 750, 1000, 1500, 2000,
+            3000, 5000, 10000, 30000, Long.MAX_VALUE};
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_MILLIS.length);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Creates an empty recorder
+     *
+     * @param name Operation name shown in the stats
+     */
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one timing
+     *
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (millis >= BUCKET_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Records the time since a System.nanoTime() start
+     *
+     * @param startNanos The start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    /**
+     * Gets a percentile
+     *
+     * @param percentile Between 0 and 100
+     * @return Upper bound in milliseconds of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_MILLIS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i < BUCKET_MILLIS.length - 1 ? BUCKET_MILLIS[i] : maxNanos.get() / 1_000_000;
+            }
+        }
+        return maxNanos.get() / 1_000_000;
+    }
+
+    public String getStats() {
+        return String.format("%s: %d calls, mean %.1f ms, p50 <= %d ms, p95 <= %d ms, p99 <= %d ms, max %d ms",
+                name, getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                getPercentileMillis(99), maxNanos.get() / 1_000_000);
+    }
+}
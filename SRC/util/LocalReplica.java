@@ -0,0 +1,629 @@
+package util;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local Read Replica of the Supabase Tables
+ *
+ * This class mirrors books, users and issues into a local SQLite file and
+ * answers reads from memory, so screens no longer wait on the WAN for data
+ * that rarely changes. A background thread pulls only the rows whose
+ * updated_at is past the table's watermark, in (updated_at, id) order so a
+ * page boundary never skips or repeats a row. updated_at is set when a row
+ * is written, not when its transaction commits, so a slow transaction can
+ * commit a row older than the watermark after it moved on; every sync
+ * therefore re-reads the REPLICA_SYNC_LAG_SECONDS before the watermark and
+ * keeps only the rows that changed. The lag must cover the longest write
+ * transaction. Deletions are applied from the replica_tombstones table
+ * (see config/supabase_replica.sql). Writes
+ * still go to Supabase; the rows it returns are applied here at once, so a
+ * user sees their own change on the next read. The file keeps the rows and
+ * watermarks, so a restart serves reads immediately and only catches up on
+ * what changed meanwhile.
+ *
+ * Reads with filters the replica cannot evaluate (e.g. or=) and reads of a
+ * table that has never been synced go to Supabase as before. Enabled with
+ * REPLICA_ENABLED=true; needs the SQLite JDBC driver on the classpath.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class LocalReplica {
+
+    private static final String[] TABLES = {"books", "users", "issues"};
+    private static final String TOMBSTONES = "replica_tombstones";
+    private static final int PAGE_SIZE = 500;
+    private static final Watermark START = new Watermark(null, 0);
+
+    private static LocalReplica instance;
+    private static boolean unavailable;
+
+    private final Connection connection;
+    private final Map<String, TreeMap<Integer, Row>> tables = new ConcurrentHashMap<>();
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+    private final Set<String> ready = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final long lagSeconds;
+    private long tombstoneWatermark;
+
+    /**
+     * Gets the replica, opening it on first use
+     *
+     * @return The replica, or null if it is disabled or cannot be opened
+     */
+    public static synchronized LocalReplica getInstance() {
+        if (instance == null && !unavailable && Boolean.parseBoolean(ConfigManager.getConfig("REPLICA_ENABLED", "false"))) {
+            try {
+                instance = new LocalReplica(ConfigManager.getConfig("REPLICA_PATH", "data/replica.db"),
+                        ConfigManager.getIntConfig("REPLICA_SYNC_INTERVAL", 30),
+                        ConfigManager.getIntConfig("REPLICA_SYNC_LAG_SECONDS", 60));
+            } catch (SQLException e) {
+                Logger.logError("Local replica disabled", e);
+                unavailable = true;
+            }
+        }
+        return instance;
+    }
+
+    private LocalReplica(String path, int syncIntervalSeconds, int lagSeconds) throws SQLException {
+        this.lagSeconds = Math.max(0, lagSeconds);
+        File parent = new File(path).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_rows (table_name TEXT NOT NULL, id INTEGER NOT NULL, "
+                    + "updated_at TEXT, json TEXT NOT NULL, PRIMARY KEY (table_name, id))");
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_state (table_name TEXT PRIMARY KEY, "
+                    + "updated_at TEXT, last_id INTEGER NOT NULL, complete INTEGER NOT NULL DEFAULT 0)");
+        }
+        load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, 0, Math.max(1, syncIntervalSeconds), TimeUnit.SECONDS);
+        Logger.log("Local replica opened: " + path + " (" + ready.size() + " of " + TABLES.length + " tables warm)");
+    }
+
+    /**
+     * Answers a GET from the replica
+     *
+     * @param table The table name
+     * @param queryParams PostgREST query parameters
+     * @return A JSON array, or null if the table is not replicated yet or a filter is unsupported
+     */
+    public String query(String table, String queryParams) {
+        TreeMap<Integer, Row> rows = tables.get(table);
+        if (rows == null || !ready.contains(table)) {
+            return null;
+        }
+        Query query = Query.parse(queryParams);
+        if (query == null) {
+            return null;
+        }
+        List<Row> matches = new ArrayList<>();
+        synchronized (rows) {
+            for (Row row : rows.values()) {
+                if (query.matches(row)) {
+                    matches.add(row);
+                }
+            }
+        }
+        if (query.orderColumn != null) {
+            Comparator<Row> order = (a, b) -> compareValues(a.get(query.orderColumn), b.get(query.orderColumn));
+            matches.sort(query.descending ? order.reversed() : order);
+        }
+        int from = Math.min(query.offset, matches.size());
+        int to = query.limit >= 0 ? Math.min(matches.size(), from + query.limit) : matches.size();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            json.append(i > from ? "," : "").append(matches.get(i).json);
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Applies rows returned by a successful POST or PATCH
+     *
+     * @param table The table name
+     * @param response The JSON array Supabase returned
+     */
+    public void applyWrite(String table, String response) {
+        if (!tables.containsKey(table) || response == null) {
+            return;
+        }
+        try {
+            for (String json : splitArray(response)) {
+                store(table, new Row(json));
+            }
+        } catch (SQLException | RuntimeException e) {
+            Logger.logError("Failed to apply write to local replica", e);
+        }
+    }
+
+    /**
+     * Applies a successful DELETE
+     *
+     * @param table The table name
+     * @param filter The filter the DELETE used
+     */
+    public void applyDelete(String table, String filter) {
+        TreeMap<Integer, Row> rows = tables.get(table);
+        if (rows == null) {
+            return;
+        }
+        Query query = Query.parse(filter);
+        if (query == null) {
+            Logger.logWarning("Unsupported delete filter; local " + table + " will catch up on the next sync");
+            return;
+        }
+        List<Integer> ids = new ArrayList<>();
+        synchronized (rows) {
+            for (Row row : rows.values()) {
+                if (query.matches(row)) {
+                    ids.add(row.id);
+                }
+            }
+        }
+        try {
+            for (int id : ids) {
+                remove(table, id);
+            }
+        } catch (SQLException e) {
+            Logger.logError("Failed to apply delete to local replica", e);
+        }
+    }
+
+    /**
+     * Pulls changes since the last sync; runs on the replica-sync thread
+     */
+    public synchronized void sync() {
+        for (String table : TABLES) {
+            try {
+                syncTable(table);
+            } catch (SQLException | RuntimeException e) {
+                Logger.logError("Replica sync of " + table + " failed", e);
+            }
+        }
+        try {
+            syncTombstones();
+        } catch (SQLException | RuntimeException e) {
+            Logger.logError("Replica tombstone sync failed", e);
+        }
+    }
+
+    /**
+     * Stops syncing and closes the local file
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.scheduler.shutdownNow();
+        try {
+            instance.connection.close();
+        } catch (SQLException e) {
+            Logger.logError("Failed to close local replica", e);
+        }
+        instance = null;
+    }
+
+    private void syncTable(String table) throws SQLException {
+        Watermark mark = watermarks.get(table);
+        // Re-read the lag window; rows already held unchanged are skipped below
+        Watermark from = mark != null ? mark.minusSeconds(lagSeconds) : START;
+        int pulled = 0;
+        while (true) {
+            String query = "select=*&order=updated_at.asc,id.asc&limit=" + PAGE_SIZE;
+            if (from.updatedAt != null) {
+                String at = "\"" + from.updatedAt + "\"";
+                query += "&or=" + encode("(updated_at.gt." + at + ",and(updated_at.eq." + at + ",id.gt." + from.lastId + "))");
+            }
+            String response = SupabaseConnection.executeRemoteGet(table, query);
+            if (response == null) {
+                return;
+            }
+            List<String> page = splitArray(response);
+            if (page.isEmpty()) {
+                break;
+            }
+            synchronized (connection) {
+                connection.setAutoCommit(false);
+                try {
+                    Row last = null;
+                    for (String json : page) {
+                        last = new Row(json);
+                        if (store(table, last)) {
+                            pulled++;
+                        }
+                    }
+                    from = new Watermark(last.get("updated_at"), last.id);
+                    // The window lies behind the watermark, so it never moves back
+                    mark = mark == null || from.isAfter(mark) ? from : mark;
+                    saveWatermark(table, mark, ready.contains(table));
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+            watermarks.put(table, mark);
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        if (!ready.contains(table)) {
+            // First full pass done: from now on reads of this table are served locally
+            mark = mark != null ? mark : START;
+            saveWatermark(table, mark, true);
+            watermarks.put(table, mark);
+            tables.computeIfAbsent(table, name -> new TreeMap<>());
+            ready.add(table);
+        }
+        if (pulled > 0) {
+            Logger.log("Replica pulled " + pulled + " changed " + table + " rows");
+        }
+    }
+
+    private void syncTombstones() throws SQLException {
+        while (true) {
+            String response = SupabaseConnection.executeRemoteGet(TOMBSTONES,
+                    "select=id,table_name,row_id&id=gt." + tombstoneWatermark + "&order=id.asc&limit=" + PAGE_SIZE);
+            if (response == null) {
+                return;
+            }
+            List<String> page = splitArray(response);
+            for (String json : page) {
+                String table = JsonUtils.extractValue(json, "table_name");
+                String rowId = JsonUtils.extractValue(json, "row_id");
+                if (table != null && rowId != null && tables.containsKey(table)) {
+                    remove(table, Integer.parseInt(rowId));
+                }
+                tombstoneWatermark = Long.parseLong(JsonUtils.extractValue(json, "id"));
+            }
+            if (!page.isEmpty()) {
+                saveWatermark(TOMBSTONES, new Watermark(null, tombstoneWatermark), true);
+            }
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    // A row fetched before a local write must not overwrite the newer row that write returned
+    private boolean store(String table, Row row) throws SQLException {
+        TreeMap<Integer, Row> rows = tables.computeIfAbsent(table, name -> new TreeMap<>());
+        synchronized (rows) {
+            Row current = rows.get(row.id);
+            if (current != null && current.json.equals(row.json)) {
+                return false;
+            }
+            String currentAt = current != null ? current.get("updated_at") : null;
+            String newAt = row.get("updated_at");
+            if (currentAt != null && newAt != null && newAt.compareTo(currentAt) < 0) {
+                return false;
+            }
+            rows.put(row.id, row);
+        }
+        synchronized (connection) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO replica_rows (table_name, id, updated_at, json) VALUES (?, ?, ?, ?)")) {
+                statement.setString(1, table);
+                statement.setInt(2, row.id);
+                statement.setString(3, row.get("updated_at"));
+                statement.setString(4, row.json);
+                statement.executeUpdate();
+            }
+        }
+        return true;
+    }
+
+    private void remove(String table, int id) throws SQLException {
+        TreeMap<Integer, Row> rows = tables.get(table);
+        synchronized (rows) {
+            rows.remove(id);
+        }
+        synchronized (connection) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM replica_rows WHERE table_name = ? AND id = ?")) {
+                statement.setString(1, table);
+                statement.setInt(2, id);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void saveWatermark(String table, Watermark mark, boolean complete) throws SQLException {
+        synchronized (connection) {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT OR REPLACE INTO replica_state "
+                    + "(table_name, updated_at, last_id, complete) VALUES (?, ?, ?, ?)")) {
+                statement.setString(1, table);
+                statement.setString(2, mark.updatedAt);
+                statement.setLong(3, mark.lastId);
+                statement.setInt(4, complete ? 1 : 0);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    // Tables whose first full sync completed are served locally right away
+    private void load() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT table_name, updated_at, last_id, complete FROM replica_state")) {
+                while (rs.next()) {
+                    String table = rs.getString(1);
+                    if (table.equals(TOMBSTONES)) {
+                        tombstoneWatermark = rs.getLong(3);
+                    } else {
+                        watermarks.put(table, new Watermark(rs.getString(2), rs.getLong(3)));
+                        if (rs.getInt(4) != 0) {
+                            ready.add(table);
+                        }
+                    }
+                }
+            }
+            Map<String, TreeMap<Integer, Row>> loaded = new HashMap<>();
+            try (ResultSet rs = statement.executeQuery("SELECT table_name, json FROM replica_rows")) {
+                while (rs.next()) {
+                    Row row = new Row(rs.getString(2));
+                    loaded.computeIfAbsent(rs.getString(1), name -> new TreeMap<>()).put(row.id, row);
+                }
+            }
+            for (String table : watermarks.keySet()) {
+                tables.put(table, loaded.getOrDefault(table, new TreeMap<>()));
+            }
+        }
+    }
+
+    private static int compareValues(String a, String b) {
+        if (a == null || b == null) {
+            // PostgREST puts nulls last in ascending order
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        try {
+            return Double.compare(Double.parseDouble(a), Double.parseDouble(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private static List<String> splitArray(String json) {
+        List<String> objects = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}' && --depth == 0) {
+                objects.add(json.substring(start, i + 1));
+            }
+        }
+        return objects;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One replicated row: its JSON and the fields read from it so far
+     */
+    private static class Row {
+        private static final String NULL = new String("null");
+
+        final int id;
+        final String json;
+        private final Map<String, String> fields = new ConcurrentHashMap<>();
+
+        Row(String json) {
+            this.json = json;
+            this.id = Integer.parseInt(JsonUtils.extractValue(json, "id"));
+        }
+
+        String get(String column) {
+            String value = fields.get(column);
+            if (value == null && !fields.containsKey(column)) {
+                value = JsonUtils.extractValue(json, column);
+                if (value != null && value.equals("null")) {
+                    value = null;
+                }
+                fields.put(column, value != null ? value : NULL);
+            }
+            return value == NULL ? null : value;
+        }
+    }
+
+    private static class Watermark {
+        final String updatedAt;
+        final long lastId;
+
+        Watermark(String updatedAt, long lastId) {
+            this.updatedAt = updatedAt;
+            this.lastId = lastId;
+        }
+
+        boolean isAfter(Watermark other) {
+            if (other.updatedAt == null || updatedAt == null) {
+                return updatedAt != null;
+            }
+            int cmp = instant(updatedAt).compareTo(instant(other.updatedAt));
+            return cmp != 0 ? cmp > 0 : lastId > other.lastId;
+        }
+
+        // The point the given number of seconds earlier, before every row at that time
+        Watermark minusSeconds(long seconds) {
+            return updatedAt == null || seconds == 0 ? this
+                    : new Watermark(instant(updatedAt).minusSeconds(seconds).toString(), 0);
+        }
+
+        private static Instant instant(String timestamp) {
+            return OffsetDateTime.parse(timestamp.replace(' ', 'T')).toInstant();
+        }
+    }
+
+    /**
+     * The subset of PostgREST parameters the replica evaluates: select,
+     * column=eq/neq/gt/gte/lt/lte/is/in filters, order on one column, limit and offset
+     */
+    private static class Query {
+        final List<String[]> filters = new ArrayList<>();
+        String orderColumn;
+        boolean descending;
+        int limit = -1;
+        int offset;
+
+        static Query parse(String queryParams) {
+            Query query = new Query();
+            if (queryParams == null || queryParams.isEmpty()) {
+                return query;
+            }
+            for (String param : queryParams.split("&")) {
+                int eq = param.indexOf('=');
+                if (eq < 0) {
+                    return null;
+                }
+                String key = param.substring(0, eq);
+                String value = decode(param.substring(eq + 1));
+                try {
+                    switch (key) {
+                        case "select":
+                            break;
+                        case "limit":
+                            query.limit = Integer.parseInt(value);
+                            break;
+                        case "offset":
+                            query.offset = Integer.parseInt(value);
+                            break;
+                        case "order":
+                            if (value.contains(",")) {
+                                return null;
+                            }
+                            String[] parts = value.split("\\.");
+                            query.orderColumn = parts[0];
+                            query.descending = parts.length > 1 && parts[1].equals("desc");
+                            break;
+                        case "or":
+                        case "and":
+                        case "not":
+                            return null;
+                        default:
+                            int dot = value.indexOf('.');
+                            if (dot < 0) {
+                                return null;
+                            }
+                            String op = value.substring(0, dot);
+                            if (!op.matches("eq|neq|gt|gte|lt|lte|is|in")) {
+                                return null;
+                            }
+                            query.filters.add(new String[] {key, op, value.substring(dot + 1)});
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return query;
+        }
+
+        boolean matches(Row row) {
+            for (String[] filter : filters) {
+                String actual = row.get(filter[0]);
+                String expected = filter[2];
+                if (filter[1].equals("is")) {
+                    if (expected.equals("null") != (actual == null)) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (actual == null) {
+                    return false;
+                }
+                if (filter[1].equals("in")) {
+                    if (!matchesAny(actual, expected)) {
+                        return false;
+                    }
+                    continue;
+                }
+                int cmp = compareValues(actual, expected);
+                boolean ok;
+                switch (filter[1]) {
+                    case "eq": ok = cmp == 0; break;
+                    case "neq": ok = cmp != 0; break;
+                    case "gt": ok = cmp > 0; break;
+                    case "gte": ok = cmp >= 0; break;
+                    case "lt": ok = cmp < 0; break;
+                    default: ok = cmp <= 0;
+                }
+                if (!ok) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // expected is PostgREST's "(a,b,c)" list; quoted values are not supported
+        private static boolean matchesAny(String actual, String expected) {
+            String list = expected.startsWith("(") && expected.endsWith(")")
+                    ? expected.substring(1, expected.length() - 1) : expected;
+            for (String candidate : list.split(",")) {
+                if (compareValues(actual, candidate.trim()) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
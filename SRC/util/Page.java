@@ -0,0 +1,82 @@
+package util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One Page of a Larger Result
+ *
+ * This class carries the items of the requested page together with the total
+ * number of matches, so screens can show "page X of Y" without fetching
+ * every row.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final int pageNumber;
+    private final int pageSize;
+    private final int totalCount;
+
+    /**
+     * Creates a page
+     *
+     * @param items Items on this page
+     * @param pageNumber Zero-based page number
+     * @param pageSize Maximum items per page
+     * @param totalCount Total number of matches across all pages
+     */
+    public Page(List<T> items, int pageNumber, int pageSize, int totalCount) {
+        this.items = Collections.unmodifiableList(items);
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Cuts one page out of a full result list
+     *
+     * @param all Every match, in display order
+     * @param pageNumber Zero-based page number
+     * @param pageSize Maximum items per page
+     * @return The requested page (empty if past the end)
+     */
+    public static <T> Page<T> of(List<T> all, int pageNumber, int pageSize) {
+        int size = Math.max(1, pageSize);
+        int page = Math.max(0, pageNumber);
+        int from = (int) Math.min((long) page * size, all.size());
+        int to = Math.min(from + size, all.size());
+        return new Page<>(all.subList(from, to), page, size, all.size());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getTotalPages() {
+        return (totalCount + pageSize - 1) / pageSize;
+    }
+
+    public boolean hasNext() {
+        return pageNumber + 1 < getTotalPages();
+    }
+
+    public boolean hasPrevious() {
+        return pageNumber > 0;
+    }
+}
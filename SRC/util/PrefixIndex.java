@@ -0,0 +1,311 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable Prefix Index for Type-Ahead Suggestions
+ *
+ * This class keeps every word start of every entry in one sorted array, so a
+ * prefix maps to a contiguous range found by binary search. A max segment tree
+ * over popularity then pulls the top-k entries out of that range without
+ * scanning it, which keeps lookups well under a millisecond on large catalogs.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class PrefixIndex {
+
+    private final String[] displays;   // entry -> original text
+    private final String[] folded;     // entry -> lowercase text
+    private final int[] weights;       // entry -> popularity
+    private final int[] keyEntry;      // sorted key -> entry
+    private final int[] keyOffset;     // sorted key -> offset of the word start in folded text
+    private final int[] maxTree;       // segment tree of key positions with the highest weight
+
+    private PrefixIndex(String[] displays, int[] weights) {
+        this.displays = displays;
+        this.weights = weights;
+        this.folded = new String[displays.length];
+
+        int keyCount = 0;
+        for (int i = 0; i < displays.length; i++) {
+            folded[i] = displays[i].toLowerCase();
+            keyCount += countWordStarts(folded[i]);
+        }
+
+        int[] entries = new int[keyCount];
+        int[] offsets = new int[keyCount];
+        int k = 0;
+        for (int i = 0; i < folded.length; i++) {
+            String text = folded[i];
+            for (int j = 0; j < text.length(); j++) {
+                if (isWordStart(text, j)) {
+                    entries[k] = i;
+                    offsets[k] = j;
+                    k++;
+                }
+            }
+        }
+
+        int[] order = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) order[i] = i;
+        sortKeys(order, new long[keyCount], new int[keyCount], new long[keyCount], 0, keyCount, 0, entries, offsets);
+
+        this.keyEntry = new int[keyCount];
+        this.keyOffset = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keyEntry[i] = entries[order[i]];
+            keyOffset[i] = offsets[order[i]];
+        }
+
+        this.maxTree = new int[2 * Math.max(1, keyCount)];
+        for (int i = 0; i < keyCount; i++) {
+            maxTree[keyCount + i] = i;
+        }
+        for (int i = keyCount - 1; i > 0; i--) {
+            maxTree[i] = better(maxTree[2 * i], maxTree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Creates a builder that merges duplicate texts by summing their weights
+     *
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the most popular entries that have a word starting with the prefix
+     *
+     * @param prefix Text typed so far (case-insensitive)
+     * @param limit Maximum number of suggestions
+     * @return Suggestions, most popular first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> results = new ArrayList<>();
+        if (prefix == null || limit <= 0 || keyEntry.length == 0) {
+            return results;
+        }
+        String p = prefix.trim().toLowerCase();
+        if (p.isEmpty()) {
+            return results;
+        }
+
+        int lo = lowerBound(p);
+        int hi = upperBound(p, lo);
+
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> {
+            int byWeight = Integer.compare(weights[keyEntry[b[2]]], weights[keyEntry[a[2]]]);
+            return byWeight != 0 ? byWeight : Integer.compare(a[2], b[2]);
+        });
+        pushRange(ranges, lo, hi);
+
+        Set<Integer> seen = new HashSet<>();
+        while (results.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            int entry = keyEntry[best];
+            if (seen.add(entry)) {
+                results.add(displays[entry]);
+            }
+            pushRange(ranges, range[0], best);
+            pushRange(ranges, best + 1, range[1]);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of distinct entries
+     *
+     * @return Entry count
+     */
+    public int size() {
+        return displays.length;
+    }
+
+    private void pushRange(PriorityQueue<int[]> ranges, int lo, int hi) {
+        if (lo < hi) {
+            ranges.add(new int[] {lo, hi, queryMax(lo, hi)});
+        }
+    }
+
+    private int queryMax(int lo, int hi) {
+        int n = keyEntry.length;
+        int best = -1;
+        for (lo += n, hi += n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) best = best < 0 ? maxTree[lo] : better(best, maxTree[lo]);
+            lo += (lo & 1);
+            if ((hi & 1) == 1) best = best < 0 ? maxTree[hi - 1] : better(best, maxTree[hi - 1]);
+        }
+        return best;
+    }
+
+    /**
+     * Picks the key position with the higher weight; ties go to the earlier (alphabetical) key
+     */
+    private int better(int a, int b) {
+        int wa = weights[keyEntry[a]];
+        int wb = weights[keyEntry[b]];
+        if (wa != wb) return wa > wb ? a : b;
+        return Math.min(a, b);
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0, hi = keyEntry.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareKeyTo(mid, prefix) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private int upperBound(String prefix, int from) {
+        int lo = from, hi = keyEntry.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyStartsWith(mid, prefix)) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private boolean keyStartsWith(int key, String prefix) {
+        return folded[keyEntry[key]].startsWith(prefix, keyOffset[key]);
+    }
+
+    private int compareKeyTo(int key, String prefix) {
+        String text = folded[keyEntry[key]];
+        int offset = keyOffset[key];
+        int len = Math.min(text.length() - offset, prefix.length());
+        for (int i = 0; i < len; i++) {
+            char a = text.charAt(offset + i);
+            char b = prefix.charAt(i);
+            if (a != b) return a - b;
+        }
+        return (text.length() - offset) - prefix.length();
+    }
+
+    /**
+     * Sorts keys four chars at a time: order the range by the packed chars at
+     * this depth, then recurse into each run that shares them. Every pass reads
+     * primitives sequentially, so large catalogs sort in a few seconds.
+     */
+    private void sortKeys(int[] order, long[] heads, int[] tmpOrder, long[] tmpHeads,
+                          int from, int to, int depth, int[] entries, int[] offsets) {
+        for (int i = from; i < to; i++) {
+            heads[i] = packHead(folded[entries[order[i]]], offsets[order[i]] + depth);
+        }
+        mergeSort(order, heads, tmpOrder, tmpHeads, from, to);
+
+        int runStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || heads[i] != heads[runStart]) {
+                // A zero in the last slot means the key ended inside this chunk
+                if (i - runStart > 1 && (heads[runStart] & 0xFFFF) != 0) {
+                    sortKeys(order, heads, tmpOrder, tmpHeads, runStart, i, depth + 4, entries, offsets);
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    private static long packHead(String text, int offset) {
+        long head = 0;
+        for (int i = 0; i < 4; i++) {
+            int pos = offset + i;
+            head = (head << 16) | (pos < text.length() ? text.charAt(pos) : 0);
+        }
+        return head;
+    }
+
+    /**
+     * Stable merge sort of key indices by packed head, moving the heads alongside
+     */
+    private static void mergeSort(int[] order, long[] heads, int[] tmpOrder, long[] tmpHeads, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(order, heads, tmpOrder, tmpHeads, from, mid);
+        mergeSort(order, heads, tmpOrder, tmpHeads, mid, to);
+        if (Long.compareUnsigned(heads[mid - 1], heads[mid]) <= 0) return;
+
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (Long.compareUnsigned(heads[i], heads[j]) <= 0) {
+                tmpOrder[k] = order[i];
+                tmpHeads[k++] = heads[i++];
+            } else {
+                tmpOrder[k] = order[j];
+                tmpHeads[k++] = heads[j++];
+            }
+        }
+        while (i < mid) {
+            tmpOrder[k] = order[i];
+            tmpHeads[k++] = heads[i++];
+        }
+        while (j < to) {
+            tmpOrder[k] = order[j];
+            tmpHeads[k++] = heads[j++];
+        }
+        System.arraycopy(tmpOrder, from, order, from, to - from);
+        System.arraycopy(tmpHeads, from, heads, from, to - from);
+    }
+
+    private static int countWordStarts(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isWordStart(text, i)) count++;
+        }
+        return count;
+    }
+
+    private static boolean isWordStart(String text, int i) {
+        return Character.isLetterOrDigit(text.charAt(i))
+            && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    /**
+     * Collects entries before building the immutable index
+     */
+    public static class Builder {
+        private final Map<String, Integer> entries = new HashMap<>();
+
+        /**
+         * Adds a suggestion text, or adds to its weight if already present
+         *
+         * @param text The suggestion text (blank values are ignored)
+         * @param weight Popularity weight
+         * @return This builder
+         */
+        public Builder add(String text, int weight) {
+            if (text != null && !text.trim().isEmpty()) {
+                entries.merge(text.trim(), Math.max(0, weight), Integer::sum);
+            }
+            return this;
+        }
+
+        /**
+         * Builds the index
+         *
+         * @return An immutable prefix index
+         */
+        public PrefixIndex build() {
+            String[] displays = new String[entries.size()];
+            int[] weights = new int[entries.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+                displays[i] = entry.getKey();
+                weights[i] = entry.getValue();
+                i++;
+            }
+            return new PrefixIndex(displays, weights);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded Cache of Search Results Keyed by Normalized Query
+ *
+ * This class stores search results as compact int ID arrays under a
+ * normalized key, so "Harry  Potter" and "harry potter" share one entry.
+ * Every entry is stamped with the catalog version it was computed at; a
+ * lookup at a newer version is a miss, so any write invalidates the whole
+ * cache without touching it. The least recently used entry is evicted once
+ * the size bound is reached.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class SearchResultCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache holding at most maxEntries queries
+     *
+     * @param maxEntries Size bound (at least 1)
+     */
+    public SearchResultCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchResultCache.Entry> eldest) {
+                if (size() > SearchResultCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Builds a cache key: case-folded, whitespace-collapsed query plus filters
+     *
+     * @param query The raw query text
+     * @param filters Filter values that change the result (e.g. match mode)
+     * @return The normalized key
+     */
+    public static String normalize(String query, String... filters) {
+        StringBuilder key = new StringBuilder();
+        key.append(query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase());
+        for (String filter : filters) {
+            key.append('\u0001').append(filter);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Looks up a cached result
+     *
+     * @param key Normalized key from {@link #normalize}
+     * @param catalogVersion Current catalog version
+     * @return The cached IDs, or null on a miss or if the entry is from an older version
+     */
+    public synchronized int[] get(String key, long catalogVersion) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != catalogVersion) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.ids;
+    }
+
+    /**
+     * Stores a result computed at the given catalog version
+     *
+     * @param key Normalized key from {@link #normalize}
+     * @param catalogVersion Catalog version the result was computed at
+     * @param ids Result IDs in ranked order
+     */
+    public synchronized void put(String key, long catalogVersion, int[] ids) {
+        entries.put(key, new Entry(catalogVersion, ids));
+    }
+
+    /**
+     * Removes every entry (metrics are kept)
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the fraction of lookups answered from the cache
+     *
+     * @return Hit rate between 0 and 1 (0 before any lookup)
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets a one-line summary of the cache metrics for logs and reports
+     *
+     * @return Metrics summary
+     */
+    public synchronized String getStats() {
+        return String.format("Search cache: %d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                entries.size(), maxEntries, hits, misses, getHitRate() * 100, evictions);
+    }
+
+    private static class Entry {
+        private final long version;
+        private final int[] ids;
+
+        Entry(long version, int[] ids) {
+            this.version = version;
+            this.ids = ids;
+        }
+    }
+}
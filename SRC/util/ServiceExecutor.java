@@ -0,0 +1,148 @@
+package util;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Shared Executors for Blocking Service Calls
+ *
+ * The services run DAO calls (HTTP requests to Supabase) through this class
+ * when they need them off the calling thread. Whole service calls go through
+ * supply(); the requests one service call sends side by side go through
+ * fork(), which has executors of its own, so a service call waiting on its
+ * fan-out never waits behind other service calls. On Java 21 and later the
+ * multi-release jar supplies virtual threads; on older runtimes, or with
+ * SERVICE_VIRTUAL_THREADS=false, bounded platform pools of SERVICE_THREADS
+ * threads are used instead.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+public class ServiceExecutor {
+
+    private static final String THREAD_NAME = "service";
+    private static final String FORK_THREAD_NAME = "service-fork";
+
+    private static volatile ExecutorService executor;
+    private static volatile ExecutorService forkExecutor;
+    private static boolean virtual;
+
+    private ServiceExecutor() {
+        throw new UnsupportedOperationException("ServiceExecutor is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Gets the shared executor for whole service calls, creating it on first use
+     *
+     * @return The executor
+     */
+    public static ExecutorService get() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (ServiceExecutor.class) {
+                current = executor;
+                if (current == null) {
+                    create();
+                    current = executor;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Runs a blocking service call on the shared executor
+     *
+     * @param task The call
+     * @return Future holding the call's result; failed with RejectedExecutionException
+     *         if SERVICE_QUEUE_SIZE calls are already waiting
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return submit(task, get());
+    }
+
+    /**
+     * Runs one of the requests a service call sends at the same time as others.
+     * Only for tasks that do not wait on further tasks themselves.
+     *
+     * @param task The request
+     * @return Future holding the request's result
+     */
+    public static <T> CompletableFuture<T> fork(Supplier<T> task) {
+        get();
+        return submit(task, forkExecutor);
+    }
+
+    /**
+     * Checks whether service calls run on virtual threads
+     *
+     * @return true on Java 21+ unless turned off in the configuration
+     */
+    public static boolean isVirtual() {
+        get();
+        return virtual;
+    }
+
+    /**
+     * Describes the executor for the reports screen
+     *
+     * @return e.g. "virtual threads" or "platform pool of 64 threads"
+     */
+    public static String describe() {
+        return isVirtual() ? "virtual threads" : "platform pool of " + threadCount() + " threads";
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task, ExecutorService target) {
+        try {
+            return CompletableFuture.supplyAsync(task, target);
+        } catch (RejectedExecutionException e) {
+            // Never run the call on the submitting thread: that may be the EDT
+            Logger.logWarning("Service call rejected: the service queue is full");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void create() {
+        ExecutorService calls = null;
+        ExecutorService forks = null;
+        if (Boolean.parseBoolean(ConfigManager.getConfig("SERVICE_VIRTUAL_THREADS", "true"))) {
+            calls = ServiceThreads.newVirtualExecutor(THREAD_NAME);
+            forks = ServiceThreads.newVirtualExecutor(FORK_THREAD_NAME);
+        }
+        virtual = calls != null;
+        if (calls == null) {
+            // Service calls queue up to SERVICE_QUEUE_SIZE and are rejected beyond that
+            calls = newPool(THREAD_NAME, new LinkedBlockingQueue<>(
+                    Math.max(1, ConfigManager.getIntConfig("SERVICE_QUEUE_SIZE", 1000))));
+            // Fan-out is bounded by the service calls waiting on it, so its queue is not
+            forks = newPool(FORK_THREAD_NAME, new LinkedBlockingQueue<>());
+        }
+        forkExecutor = forks;
+        executor = calls;
+        Logger.log("Service calls run on " + (virtual ? "virtual threads" : "a platform pool of " + threadCount() + " threads"));
+    }
+
+    private static ExecutorService newPool(String name, BlockingQueue<Runnable> queue) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount(), threadCount(), 60, TimeUnit.SECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static int threadCount() {
+        return Math.max(1, ConfigManager.getIntConfig("SERVICE_THREADS", 64));
+    }
+}
@@ -0,0 +1,30 @@
+package util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual Thread Support for ServiceExecutor (Java 11 version)
+ *
+ * This runtime has no virtual threads, so ServiceExecutor falls back to its
+ * platform pool. The Java 21 version of this class in SRC/java21 replaces it
+ * in the multi-release jar.
+ *
+ * @author Library Management Team
+ * @version 1.0
+ * @since 2024
+ */
+final class ServiceThreads {
+
+    private ServiceThreads() {
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task
+     *
+     * @param name Thread name prefix
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    static ExecutorService newVirtualExecutor(String name) {
+        return null;
+    }
+}
@@ -53,7 +53,7 @@ public class SupabaseConnection {
             ConfigManager.initialize();
             
             // Test connection by making a simple query
-            String testResponse = executeGet("users", "select=id&limit=1");
+            String testResponse = executeRemoteGet("users", "select=id&limit=1");
             if (testResponse != null) {
                 Logger.log("Supabase connection initialized successfully");
                 isInitialized = true;
@@ -67,13 +67,32 @@ public class SupabaseConnection {
     }
     
     /**
-     * Executes a GET request to Supabase
+     * Executes a GET request, answered by the local replica when it is enabled
+     * and holds the table
      * 
      * @param table The table name
      * @param queryParams Query parameters (e.g., "select=*&limit=10")
      * @return JSON response as string
      */
     public static String executeGet(String table, String queryParams) {
+        LocalReplica replica = LocalReplica.getInstance();
+        if (replica != null) {
+            String local = replica.query(table, queryParams);
+            if (local != null) {
+                return local;
+            }
+        }
+        return executeRemoteGet(table, queryParams);
+    }
+    
+    /**
+     * Executes a GET request to Supabase, bypassing the local replica
+     * 
+     * @param table The table name
+     * @param queryParams Query parameters (e.g., "select=*&limit=10")
+     * @return JSON response as string
+     */
+    static String executeRemoteGet(String table, String queryParams) {
         try {
             String url = ConfigManager.getConfig("SUPABASE_URL") + 
                         ConfigManager.getConfig("REST_ENDPOINT", "/rest/v1") + "/" + table;
@@ -132,6 +151,7 @@ public class SupabaseConnection {
             
             if (response.statusCode() == 201) {
                 logRequest("POST", table, response.statusCode());
+                applyToReplica(table, response.body());
                 return response.body();
             } else {
                 Logger.log("POST request failed for table " + table + ": " + response.statusCode() + " - " + response.body());
@@ -144,6 +164,43 @@ public class SupabaseConnection {
         }
     }
     
+    /**
+     * Calls a Postgres function through PostgREST (POST /rpc/name)
+     * 
+     * @param function The function name
+     * @param jsonArgs JSON object of named arguments
+     * @return JSON response as string, or null if the call failed
+     */
+    public static String executeRpc(String function, String jsonArgs) {
+        try {
+            String url = ConfigManager.getConfig("SUPABASE_URL") + 
+                        ConfigManager.getConfig("REST_ENDPOINT", "/rest/v1") + "/rpc/" + function;
+            
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("apikey", ConfigManager.getConfig("SUPABASE_ANON_KEY"))
+                .header("Authorization", "Bearer " + ConfigManager.getConfig("SUPABASE_ANON_KEY"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonArgs))
+                .timeout(Duration.ofSeconds(ConfigManager.getIntConfig("REQUEST_TIMEOUT", 30)))
+                .build();
+            
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            
+            if (response.statusCode() == 200) {
+                logRequest("RPC", function, response.statusCode());
+                return response.body();
+            } else {
+                Logger.log("RPC call failed for " + function + ": " + response.statusCode() + " - " + response.body());
+                return null;
+            }
+            
+        } catch (Exception e) {
+            Logger.log("Error executing RPC call: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Executes a PATCH request to Supabase (UPDATE)
      * 
@@ -174,6 +231,7 @@ public class SupabaseConnection {
             
             if (response.statusCode() == 200) {
                 logRequest("PATCH", table, response.statusCode());
+                applyToReplica(table, response.body());
                 return response.body();
             } else {
                 Logger.log("PATCH request failed for table " + table + ": " + response.statusCode() + " - " + response.body());
@@ -214,6 +272,10 @@ public class SupabaseConnection {
             
             if (response.statusCode() == 204) {
                 logRequest("DELETE", table, response.statusCode());
+                LocalReplica replica = LocalReplica.getInstance();
+                if (replica != null) {
+                    replica.applyDelete(table, filter);
+                }
                 return true;
             } else {
                 Logger.log("DELETE request failed for table " + table + ": " + response.statusCode() + " - " + response.body());
@@ -226,6 +288,20 @@ public class SupabaseConnection {
         }
     }
     
+    /**
+     * Applies the rows a write returned to the local replica, so the caller
+     * reads its own write even before the next replica sync
+     * 
+     * @param table Table name
+     * @param body JSON array of the written rows
+     */
+    private static void applyToReplica(String table, String body) {
+        LocalReplica replica = LocalReplica.getInstance();
+        if (replica != null) {
+            replica.applyWrite(table, body);
+        }
+    }
+    
     /**
      * Logs request information for monitoring
      */
@@ -258,7 +334,7 @@ public class SupabaseConnection {
      */
     public static boolean isConnectionValid() {
         try {
-            String response = executeGet("users", "select=id&limit=1");
+            String response = executeRemoteGet("users", "select=id&limit=1");
             return response != null;
         } catch (Exception e) {
             Logger.log("Connection validation failed: " + e.getMessage());
@@ -0,0 +1,92 @@
+package library;
+
+import library.model.Book;
+import library.model.Loan;
+import library.util.IdGenerator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Multithreaded check of the lock-free copy counts and ID generation.
+ * Threads borrow and return copies of one book and take IDs from a shared
+ * generator, all started at once.
+ */
+public class InventoryStressTest {
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 5000;
+    private static final int COPIES = 3;
+
+    @Test
+    public void copiesAreNeverOversoldAndIdsNeverRepeat() throws InterruptedException {
+        Book book = new Book("B001", "Stress", "Check", "978-0-00-000000-0", 2024, COPIES, COPIES);
+        IdGenerator loanIds = new IdGenerator("L", 3);
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        List<String> problems = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger borrows = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            String userId = String.format("U%03d", t + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        String loanId = loanIds.next(id -> false);
+                        if (!issued.add(loanId)) {
+                            problems.add("ID handed out twice: " + loanId);
+                        }
+                        if (book.borrowCopy(new Loan(loanId, userId, book.getId()))) {
+                            borrows.incrementAndGet();
+                            int now = held.incrementAndGet();
+                            if (now > COPIES) {
+                                problems.add(now + " copies held of " + COPIES);
+                            }
+                            int available = book.getAvailableCopies();
+                            if (available < 0 || available > COPIES) {
+                                problems.add("available copies out of range: " + available);
+                            }
+                            held.decrementAndGet();
+                            if (!book.returnCopy(loanId)) {
+                                problems.add("loan " + loanId + " could not be returned");
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "stress-" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(problems.subList(0, Math.min(10, problems.size())).toString(), problems.isEmpty());
+        assertTrue("no copy was ever borrowed", borrows.get() > 0);
+        assertEquals("copies missing after all returns", COPIES, book.getAvailableCopies());
+        assertEquals(THREADS * ITERATIONS, issued.size());
+    }
+
+    @Test
+    public void seededGeneratorContinuesAfterHighestId() {
+        IdGenerator loanIds = new IdGenerator("L", 3);
+        loanIds.seed(Arrays.asList("L001", "L041", "X999", "L"));
+
+        assertEquals("L042", loanIds.next(id -> false));
+    }
+}